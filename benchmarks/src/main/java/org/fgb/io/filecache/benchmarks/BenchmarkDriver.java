@@ -0,0 +1,58 @@
+/*
+ * Class:   BenchmarkDriver.java
+ * Born On: Oct, 2026
+ * Purpose: Run the JMH benchmarks, writing the results as JSON.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class <code>BenchmarkDriver</code> runs the JMH benchmarks.  It takes the usual JMH command line options, but unless
+ * told otherwise writes the results as JSON to {@value #DEFAULT_RESULT_FILE}, so that runs can be compared by a
+ * script.
+ * <p>
+ * For example, to run the copy benchmarks only:
+ * <pre>
+ * java -jar target/benchmarks.jar CopyBenchmark -rff copy.json
+ * </pre>
+ *
+ * @author Frederick Burkley
+ */
+public class BenchmarkDriver {
+
+	/**
+	 * The file the results are written to, unless <code>-rff</code> is given.
+	 */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	/**
+	 * Bootstrap.
+	 *
+	 * @param args The JMH command line options.
+	 * @throws Exception If the options are not valid, or a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+		if (commandLineOptions.shouldList()) {
+			new Runner(commandLineOptions).list();
+			return;
+		}
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+}
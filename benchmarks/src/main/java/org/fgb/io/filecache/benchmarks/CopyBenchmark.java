@@ -0,0 +1,94 @@
+/*
+ * Class:   CopyBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark every copy path of Copy.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.impl.FileSizeFileGenerator;
+import org.fgb.io.filecache.util.Copy;
+
+/**
+ * Benchmark the copy paths of {@linkplain Copy}: <code>transferTo</code>, a direct buffer, gzip, zip, and
+ * <code>IOUtils</code>.  The input is a file of random numbers, as written by the generators, so the compressed paths
+ * see realistic data.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CopyBenchmark {
+
+	@Param({ "1048576", "67108864" })
+	public long fileSize;
+
+	private File directory;
+
+	private File inputFile;
+
+	private File outputFile;
+
+	private Copy copy;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("filecache-copy").toFile();
+		this.inputFile = new File(this.directory, "FGBinput");
+		new FileSizeFileGenerator(this.inputFile.getPath(), this.fileSize, (short) 24).generateFile();
+		this.outputFile = new File(this.directory, "FGBoutput");
+		this.copy = new Copy();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(this.directory);
+	}
+
+	@Benchmark
+	public long copy() throws IOException {
+		return this.copy.copy(this.inputFile, this.outputFile);
+	}
+
+	@Benchmark
+	public long copyWithDirectBuffer() throws IOException {
+		return this.copy.copyWithDirectBuffer(this.inputFile, this.outputFile);
+	}
+
+	@Benchmark
+	public void copyWithGZipCompression() throws IOException {
+		this.copy.copyWithGZipCompression(this.inputFile, this.outputFile);
+	}
+
+	@Benchmark
+	public void copyWithZipCompression() throws IOException {
+		this.copy.copyWithZipCompression(this.inputFile, this.outputFile);
+	}
+
+	@Benchmark
+	public void copyWithIOUtils() throws IOException {
+		this.copy.copyWithIOUtils(this.inputFile, this.outputFile);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Class:   DataBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark the parsing of generated lines.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.util.Data;
+import org.fgb.io.filecache.util.RandomLineHelper;
+import org.fgb.io.filecache.util.RecordParser;
+
+/**
+ * Benchmark parsing a line written by the generators: into <code>String</code> fields with {@linkplain Data}, and into
+ * <code>float</code>s with a {@linkplain RecordParser}.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataBenchmark {
+
+	/**
+	 * The number of distinct lines parsed in turn, so that the branch predictor does not learn one line.
+	 */
+	private static final int LINE_COUNT = 1024;
+
+	@Param({ "8", "24" })
+	public short fieldsPerLine;
+
+	private String[] lines;
+
+	private int next;
+
+	private RecordParser recordParser;
+
+	private float[] values;
+
+	@Setup
+	public void setUp() {
+		RandomLineHelper randomLineHelper = new RandomLineHelper(this.fieldsPerLine);
+		this.lines = new String[LINE_COUNT];
+		for (int i = 0; i < LINE_COUNT; i++) {
+			String line = randomLineHelper.getLine();
+			this.lines[i] = line.substring(0, line.length() - 1);
+		}
+		this.recordParser = new RecordParser();
+		this.values = new float[this.fieldsPerLine];
+	}
+
+	@Benchmark
+	public List<String> parse() {
+		String line = this.lines[this.next];
+		this.next = (this.next + 1) % LINE_COUNT;
+		return new Data(line).getData();
+	}
+
+	@Benchmark
+	public float[] parseFloats() {
+		String line = this.lines[this.next];
+		this.next = (this.next + 1) % LINE_COUNT;
+		this.recordParser.reset(line);
+		this.recordParser.next();
+		this.recordParser.getFloats(this.values);
+		return this.values;
+	}
+}
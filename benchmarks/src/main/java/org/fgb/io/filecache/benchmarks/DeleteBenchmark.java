@@ -0,0 +1,117 @@
+/*
+ * Class:   DeleteBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark evicting a batch of real files, by deletes and through the trash.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.BatchDeleter;
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.DeleteResult;
+import org.fgb.io.filecache.Trash;
+
+/**
+ * Benchmark evicting a batch of real files from a synthetic cache directory, with a {@linkplain BatchDeleter} of
+ * one and of several deletes in flight, and by renaming into a {@linkplain Trash}.  The files are created again before
+ * every iteration, in 100 subdirectories.  Run it on the volume the cache lives on: set <code>java.io.tmpdir</code>.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class DeleteBenchmark {
+
+	/**
+	 * The size of every file.
+	 */
+	private static final int FILE_SIZE = 4096;
+	/**
+	 * The number of subdirectories the files are spread over.
+	 */
+	private static final int SUBDIRECTORY_COUNT = 100;
+
+	@Param({ "10000", "100000" })
+	public int fileCount;
+
+	@Param({ "1", "8" })
+	public int parallelism;
+
+	private File directory;
+
+	private List<CacheEntry> victims;
+
+	private BatchDeleter batchDeleter;
+
+	private Trash trash;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("filecache-delete").toFile();
+		this.batchDeleter = new BatchDeleter(this.parallelism);
+		this.trash = new Trash(this.directory);
+		this.trash.open();
+	}
+
+	@Setup(Level.Iteration)
+	public void createFiles() throws IOException {
+		byte[] data = new byte[FILE_SIZE];
+		long now = System.currentTimeMillis();
+		this.victims = new ArrayList<CacheEntry>(this.fileCount);
+		for (int i = 0; i < this.fileCount; i++) {
+			File parent = new File(this.directory, Integer.toString(i % SUBDIRECTORY_COUNT));
+			if (i < SUBDIRECTORY_COUNT) {
+				parent.mkdirs();
+			}
+			File file = new File(parent, "FGB" + i);
+			Files.write(file.toPath(), data);
+			this.victims.add(new CacheEntry(file, FILE_SIZE, now));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.batchDeleter.close();
+		this.trash.close();
+		FileUtils.deleteDirectory(this.directory);
+	}
+
+	@Benchmark
+	public DeleteResult batchDelete() {
+		return this.batchDeleter.delete(this.victims);
+	}
+
+	/**
+	 * The time it takes to take the files out of the cache; the reaper unlinks them afterwards.  The parallelism does
+	 * not apply.
+	 */
+	@Benchmark
+	public DeleteResult moveToTrash() {
+		return this.trash.moveToTrash(this.victims);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Class:   EvictionBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark loading and evicting from the index of a large synthetic cache.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.CacheIndex;
+
+/**
+ * Benchmark the {@linkplain CacheIndex} of a synthetic cache of 10k, 100k and 1M files, spread over year/month/week
+ * subdirectories: loading it (as from a manifest on start), evicting a fifth of it in one pass (as when the high
+ * water mark is crossed), and evicting from one subtree (as for a subtree quota).
+ * <p>
+ * The files do not exist; the index never touches the disk for these operations, so this measures the cost of the
+ * eviction order and of the directory rollups alone.  See {@linkplain DeleteBenchmark} for the cost of the deletes.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class EvictionBenchmark {
+
+	/**
+	 * The size of every file.
+	 */
+	private static final long FILE_SIZE = 4096;
+	/**
+	 * Every file may be evicted.
+	 */
+	private static final FileFilter _ALL_FILES = new FileFilter() {
+
+		@Override
+		public boolean accept(File pathname) {
+			return true;
+		}
+	};
+
+	@Param({ "10000", "100000", "1000000" })
+	public int fileCount;
+
+	private File directory;
+
+	private File subdirectory;
+
+	private List<CacheEntry> entries;
+
+	private CacheIndex cacheIndex;
+
+	@Setup(Level.Trial)
+	public void createEntries() {
+		this.directory = new File("/synthetic/cache");
+		this.subdirectory = new File(this.directory, "2026/10/1");
+		this.entries = new ArrayList<CacheEntry>(this.fileCount);
+		Random random = new Random(this.fileCount);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < this.fileCount; i++) {
+			int year = 2024 + random.nextInt(3);
+			int month = 1 + random.nextInt(12);
+			int week = 1 + random.nextInt(5);
+			File parent = new File(this.directory, year + "/" + month + "/" + week);
+			this.entries.add(new CacheEntry(new File(parent, "FGB" + i), FILE_SIZE, now - random.nextInt(Integer.MAX_VALUE)));
+		}
+	}
+
+	/**
+	 * A fresh index for every eviction, since evicting empties it.
+	 */
+	@Setup(Level.Invocation)
+	public void loadIndex() {
+		this.cacheIndex = new CacheIndex(this.directory, _ALL_FILES);
+		this.cacheIndex.load(this.entries);
+	}
+
+	@Benchmark
+	public CacheIndex load() {
+		CacheIndex index = new CacheIndex(this.directory, _ALL_FILES);
+		index.load(this.entries);
+		return index;
+	}
+
+	@Benchmark
+	public List<CacheEntry> evictToLowWaterMark() {
+		return this.cacheIndex.pollVictims(this.cacheIndex.getTotalSize() / 5);
+	}
+
+	@Benchmark
+	public List<CacheEntry> evictSubtree() {
+		return this.cacheIndex.pollVictims(this.subdirectory, this.cacheIndex.getDirectorySize(this.subdirectory) / 2);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Class:   FileGeneratorBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark both file generators, with and without compression.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.FileGenerator;
+import org.fgb.io.filecache.impl.FileSizeFileGenerator;
+import org.fgb.io.filecache.impl.LineCountFileGenerator;
+
+/**
+ * Benchmark {@linkplain FileSizeFileGenerator} and {@linkplain LineCountFileGenerator}, each writing about
+ * {@value #FILE_SIZE} bytes of uncompressed text, plain, zipped and gzipped, as text and as binary columns.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class FileGeneratorBenchmark {
+
+	/**
+	 * The size of the uncompressed text of each file.
+	 */
+	private static final long FILE_SIZE = 64L * 1024 * 1024;
+	/**
+	 * The number of fields per line.
+	 */
+	private static final short FIELDS_PER_LINE = 24;
+	/**
+	 * The average length of a line: each field is up to three digits, a point and five decimals, and a tab or a newline.
+	 */
+	private static final int AVERAGE_LINE_LENGTH = FIELDS_PER_LINE * 10;
+
+	@Param({ "none", "zip", "gzip" })
+	public String compression;
+
+	@Param({ "text", "binary" })
+	public String format;
+
+	private File directory;
+
+	private FileGenerator fileSizeFileGenerator;
+
+	private FileGenerator lineCountFileGenerator;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("filecache-generator").toFile();
+		this.fileSizeFileGenerator = this.configure(new FileSizeFileGenerator(
+				new File(this.directory, "FGBsize").getPath(), FILE_SIZE, FIELDS_PER_LINE));
+		this.lineCountFileGenerator = this.configure(new LineCountFileGenerator(
+				new File(this.directory, "FGBlines").getPath(), FILE_SIZE / AVERAGE_LINE_LENGTH, FIELDS_PER_LINE));
+	}
+
+	private FileGenerator configure(final FileGenerator fileGenerator) {
+		fileGenerator.enableZipCompression("zip".equals(this.compression));
+		fileGenerator.enableGZipCompression("gzip".equals(this.compression));
+		fileGenerator.enableBinaryOutput("binary".equals(this.format));
+		return fileGenerator;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(this.directory);
+	}
+
+	@Benchmark
+	public void fileSizeFileGenerator() throws IOException {
+		this.fileSizeFileGenerator.generateFile();
+	}
+
+	@Benchmark
+	public void lineCountFileGenerator() throws IOException {
+		this.lineCountFileGenerator.generateFile();
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Class:   RandomLineHelperBenchmark.java
+ * Born On: Oct, 2026
+ * Purpose: Benchmark the generation of lines of random numbers.
+ */
+package org.fgb.io.filecache.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.fgb.io.filecache.util.RandomLineHelper;
+
+/**
+ * Benchmark {@linkplain RandomLineHelper}: the <code>String</code> API, and the byte API the file generators use.
+ *
+ * @author Frederick Burkley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RandomLineHelperBenchmark {
+
+	@Param({ "8", "24" })
+	public short fieldsPerLine;
+
+	private RandomLineHelper randomLineHelper;
+
+	private byte[] buffer;
+
+	private ByteBuffer byteBuffer;
+
+	@Setup
+	public void setUp() {
+		this.randomLineHelper = new RandomLineHelper(this.fieldsPerLine);
+		this.buffer = new byte[this.randomLineHelper.getMaximumLineLength()];
+		this.byteBuffer = ByteBuffer.allocateDirect(this.randomLineHelper.getMaximumLineLength());
+	}
+
+	@Benchmark
+	public String getLine() {
+		return this.randomLineHelper.getLine();
+	}
+
+	@Benchmark
+	public int getLineIntoArray() {
+		return this.randomLineHelper.getLine(this.buffer, 0);
+	}
+
+	@Benchmark
+	public int getLineIntoByteBuffer() {
+		this.byteBuffer.clear();
+		return this.randomLineHelper.getLine(this.byteBuffer);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Class:   AccessTracker.java
+ * Born On: Oct, 2026
+ * Purpose: Record reads of cached files without locking, for later use by the cache index.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class <code>AccessTracker</code> records reads of cached files without taking the lock of the {@linkplain CacheIndex}.
+ * <p>
+ * Readers only increment striped counters (see {@linkplain LongAdder}), so recording a hit costs a few nanoseconds and
+ * does not contend with other readers or with the event thread.  The counts are periodically moved into the index with
+ * {@linkplain #drainTo(CacheIndex)}, where the {@linkplain EvictionPolicy} sees them.
+ * <p>
+ * The per file counts are approximate: a hit recorded while its counter is being dropped (because the file was idle
+ * for a whole drain interval) may be lost.  The hit and miss totals are exact.
+ *
+ * @author Frederick Burkley
+ */
+public class AccessTracker {
+
+	/**
+	 * The accesses of one file since the last drain.
+	 */
+	private static class Counter {
+
+		private final LongAdder count = new LongAdder();
+		private volatile long lastAccessed;
+	}
+	/**
+	 * The accesses since the last drain, keyed by file.
+	 */
+	private final ConcurrentHashMap<File, Counter> counters;
+	/**
+	 * The number of reads that found their file.
+	 */
+	private final LongAdder hits;
+	/**
+	 * The number of reads that did not find their file.
+	 */
+	private final LongAdder misses;
+
+	/**
+	 * Create an <code>AccessTracker</code>.
+	 */
+	public AccessTracker() {
+		this.counters = new ConcurrentHashMap<File, Counter>();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+
+	/**
+	 * Record a read of a file that is in the cache.
+	 *
+	 * @param file The file.
+	 */
+	public void recordHit(final File file) {
+		Counter counter = this.counters.get(file);
+		if (counter == null) {
+			Counter newCounter = new Counter();
+			counter = this.counters.putIfAbsent(file, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		counter.count.increment();
+		counter.lastAccessed = System.currentTimeMillis();
+		this.hits.increment();
+	}
+
+	/**
+	 * Record a read of a file that is not in the cache.
+	 *
+	 * @param file The file.
+	 */
+	public void recordMiss(final File file) {
+		this.misses.increment();
+	}
+
+	/**
+	 * Move the accesses recorded since the last drain into <code>cacheIndex</code>.
+	 *
+	 * @param cacheIndex The index to update.
+	 * @return The number of files whose entry was updated.
+	 */
+	public int drainTo(final CacheIndex cacheIndex) {
+		int updated = 0;
+		Iterator<Map.Entry<File, Counter>> iterator = this.counters.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<File, Counter> entry = iterator.next();
+			Counter counter = entry.getValue();
+			long count = counter.count.sumThenReset();
+			if (count == 0) {
+				// Idle for a whole interval; drop the counter so that the map only holds hot files.
+				iterator.remove();
+			} else if (cacheIndex.recordAccesses(entry.getKey(), count, counter.lastAccessed)) {
+				updated++;
+			}
+		}
+		return updated;
+	}
+
+	/**
+	 * Get the number of reads that found their file.
+	 *
+	 * @return The number of hits since this tracker was created.
+	 */
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Get the number of reads that did not find their file.
+	 *
+	 * @return The number of misses since this tracker was created.
+	 */
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+}
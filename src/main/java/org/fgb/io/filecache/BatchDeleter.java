@@ -0,0 +1,224 @@
+/*
+ * Class:   BatchDeleter.java
+ * Born On: Oct, 2026
+ * Purpose: Delete large batches of files with several deletes in flight.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>BatchDeleter</code> deletes batches of files with several deletes in flight.
+ * <p>
+ * When many small files have to go, the time is spent waiting on each unlink, not on the CPU; an SSD or NVMe device
+ * serves many unlinks at once, so deleting with several threads is several times faster than deleting one file at a
+ * time.  The calling thread deletes files too, and at most <code>parallelism</code> deletes of a batch are in flight.
+ * The threads take the next file from a shared index, so there is no task per file.  Small batches are deleted on the
+ * calling thread alone.
+ * <p>
+ * One <code>BatchDeleter</code> may be shared by several cleaners; batches may be deleted concurrently.  Its threads are
+ * only created when a batch needs them.
+ *
+ * @author Frederick Burkley
+ */
+public class BatchDeleter {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = BatchDeleter.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default number of deletes in flight.
+	 */
+	public static final int DEFAULT_PARALLELISM = 8;
+	/**
+	 * Progress is reported every this many files.
+	 */
+	public static final int PROGRESS_INTERVAL = 1000;
+	/**
+	 * Batches with fewer files per thread than this are not worth handing to other threads.
+	 */
+	private static final int MINIMUM_FILES_PER_THREAD = 16;
+	/**
+	 * The number of deletes in flight for one batch.
+	 */
+	private final int parallelism;
+	/**
+	 * The threads that help the calling thread, or <code>null</code> if the parallelism is 1.
+	 */
+	private final ExecutorService executor;
+	/**
+	 * Told of the progress of every batch, or <code>null</code>.
+	 */
+	private volatile DeleteProgressListener progressListener;
+
+	/**
+	 * Create a <code>BatchDeleter</code> with {@value #DEFAULT_PARALLELISM} deletes in flight.
+	 */
+	public BatchDeleter() {
+		this(DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Create a <code>BatchDeleter</code>.
+	 *
+	 * @param parallelism The number of deletes in flight for one batch, including the calling thread.
+	 * @throws IllegalArgumentException If <code>parallelism</code> is not positive.
+	 */
+	public BatchDeleter(final int parallelism) throws IllegalArgumentException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(_className + ": The parallelism " + parallelism + " must be positive.");
+		}
+		this.parallelism = parallelism;
+		if (parallelism == 1) {
+			this.executor = null;
+		} else {
+			this.executor = Executors.newFixedThreadPool(parallelism - 1, new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, _className + ".worker-" + this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Set a listener that is told of the progress of every batch.
+	 *
+	 * @param progressListener The listener, or <code>null</code>.
+	 */
+	public void setProgressListener(final DeleteProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Get the number of deletes in flight for one batch.
+	 *
+	 * @return The parallelism.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * Delete a batch of files, and wait until they are all handled.  The sizes come from the entries, so no file is
+	 * stat'ed.
+	 *
+	 * @param victims The files to delete.
+	 * @return The outcome of the batch.
+	 */
+	public DeleteResult delete(final List<CacheEntry> victims) {
+		long startTime = System.nanoTime();
+		Batch batch = new Batch(victims, this.progressListener);
+		int helpers = this.executor == null ? 0 : Math.min(this.parallelism, victims.size() / MINIMUM_FILES_PER_THREAD) - 1;
+		List<Future<?>> futures = new ArrayList<Future<?>>(Math.max(helpers, 0));
+		for (int i = 0; i < helpers; i++) {
+			futures.add(this.executor.submit(batch));
+		}
+		batch.run();
+		boolean interrupted = false;
+		for (Future<?> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException ex) {
+					// The helpers stop once the shared index runs out; wait for them so the result is complete.
+					interrupted = true;
+				} catch (ExecutionException ex) {
+					_logger.log(Level.WARNING, null, ex.getCause());
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return new DeleteResult(batch.filesDeleted.get(), batch.bytesFreed.get(), batch.filesMissing.get(),
+				new ArrayList<File>(batch.failures), System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Stop the threads of this deleter.  Batches that are being deleted are finished by their calling threads.
+	 */
+	public void close() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+	}
+
+	/**
+	 * A batch of files, and its running outcome.  Every thread that works on the batch runs it.
+	 */
+	private static class Batch implements Runnable {
+
+		private final List<CacheEntry> victims;
+		private final DeleteProgressListener progressListener;
+		private final AtomicInteger next = new AtomicInteger();
+		private final AtomicInteger filesDone = new AtomicInteger();
+		private final AtomicInteger filesDeleted = new AtomicInteger();
+		private final AtomicInteger filesMissing = new AtomicInteger();
+		private final AtomicLong bytesFreed = new AtomicLong();
+		private final ConcurrentLinkedQueue<File> failures = new ConcurrentLinkedQueue<File>();
+
+		Batch(final List<CacheEntry> victims, final DeleteProgressListener progressListener) {
+			this.victims = victims;
+			this.progressListener = progressListener;
+		}
+
+		@Override
+		public void run() {
+			int size = this.victims.size();
+			for (int i = this.next.getAndIncrement(); i < size; i = this.next.getAndIncrement()) {
+				this.delete(this.victims.get(i));
+				int done = this.filesDone.incrementAndGet();
+				if (this.progressListener != null && (done % PROGRESS_INTERVAL == 0 || done == size)) {
+					this.progressListener.onProgress(done, size, this.bytesFreed.get());
+				}
+			}
+		}
+
+		private void delete(final CacheEntry entry) {
+			File file = entry.getFile();
+			try {
+				Files.delete(file.toPath());
+				this.filesDeleted.incrementAndGet();
+				this.bytesFreed.addAndGet(entry.getSize());
+				if (_logger.isLoggable(Level.FINEST)) {
+					_logger.finest("Deleted " + file);
+				}
+			} catch (NoSuchFileException ex) {
+				this.filesMissing.incrementAndGet();
+			} catch (IOException ex) {
+				this.failures.add(file);
+				if (_logger.isLoggable(Level.FINE)) {
+					_logger.fine("Unable to delete " + file + ": " + ex);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Class:   CacheEntry.java
+ * Born On: Oct, 2026
+ * Purpose: An immutable description of a file in the cache.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+
+/**
+ * Class <code>CacheEntry</code> is an immutable description of a file in the cache, as it was the last time it was stat'ed.
+ * <p>
+ * The access information (last access time and number of accesses) is kept by the cache, not read from the file system.
+ *
+ * @author Frederick Burkley
+ */
+public class CacheEntry {
+
+	/**
+	 * The file.
+	 */
+	private final File file;
+	/**
+	 * The size of the file, in bytes.
+	 */
+	private final long size;
+	/**
+	 * The time the file was last modified, in milliseconds since the epoch.
+	 */
+	private final long lastModified;
+	/**
+	 * The time the file was last accessed through the cache, in milliseconds since the epoch.
+	 */
+	private final long lastAccessed;
+	/**
+	 * The number of times the file was accessed through the cache.
+	 */
+	private final long accessCount;
+
+	/**
+	 * Create a <code>CacheEntry</code> for a file that has not been accessed.  The last access time is the last modified time.
+	 *
+	 * @param file The file.
+	 * @param size The size of the file, in bytes.
+	 * @param lastModified The time the file was last modified, in milliseconds since the epoch.
+	 */
+	public CacheEntry(final File file, final long size, final long lastModified) {
+		this(file, size, lastModified, lastModified, 0);
+	}
+
+	/**
+	 * Create a <code>CacheEntry</code>.
+	 *
+	 * @param file The file.
+	 * @param size The size of the file, in bytes.
+	 * @param lastModified The time the file was last modified, in milliseconds since the epoch.
+	 * @param lastAccessed The time the file was last accessed, in milliseconds since the epoch.
+	 * @param accessCount The number of times the file was accessed.
+	 */
+	public CacheEntry(final File file, final long size, final long lastModified, final long lastAccessed, final long accessCount) {
+		this.file = file;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.lastAccessed = lastAccessed;
+		this.accessCount = accessCount;
+	}
+
+	/**
+	 * Get the file.
+	 *
+	 * @return The file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Get the size of the file.
+	 *
+	 * @return The size of the file, in bytes.
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Get the time the file was last modified.
+	 *
+	 * @return The time the file was last modified, in milliseconds since the epoch.
+	 */
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * Get the time the file was last accessed through the cache.
+	 *
+	 * @return The time the file was last accessed, in milliseconds since the epoch.
+	 */
+	public long getLastAccessed() {
+		return this.lastAccessed;
+	}
+
+	/**
+	 * Get the number of times the file was accessed through the cache.
+	 *
+	 * @return The number of accesses.
+	 */
+	public long getAccessCount() {
+		return this.accessCount;
+	}
+
+	/**
+	 * Get a copy of this entry that keeps the access information of <code>previous</code>.
+	 *
+	 * @param previous An earlier entry for the same file.
+	 * @return A new entry, with the file attributes of this entry, the later of the two last access times, and the
+	 *   number of accesses of <code>previous</code>.
+	 */
+	public CacheEntry withAccessesOf(final CacheEntry previous) {
+		return new CacheEntry(this.file, this.size, this.lastModified, Math.max(this.lastAccessed, previous.lastAccessed), previous.accessCount);
+	}
+
+	@Override
+	public String toString() {
+		return this.file + " (" + this.size + " bytes, last modified " + this.lastModified + ")";
+	}
+}
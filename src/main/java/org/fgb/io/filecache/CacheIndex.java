@@ -0,0 +1,755 @@
+/*
+ * Class:   CacheIndex.java
+ * Born On: Oct, 2026
+ * Purpose: Keep a running account of the files in a cache directory and of their total size.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.fgb.io.filecache.impl.ModifiedTimeEvictionPolicy;
+
+/**
+ * Class <code>CacheIndex</code> keeps a running account of the files in a cache directory and of their total size.
+ * <p>
+ * The index is seeded once by walking the directory tree (see {@linkplain #load()}), and is then kept up to date
+ * from file system events via {@linkplain #add(File)}, {@linkplain #update(File)} and {@linkplain #remove(File)}.
+ * Asking the index for the size of the directory is O(1).
+ * <p>
+ * The index also keeps the size and file count of every subdirectory, including its own subdirectories, so asking
+ * for the size of any subtree is O(1) too.  Keeping these rollups up to date costs O(depth) per change.
+ * <p>
+ * The files that may be evicted (as decided by the eligibility filter) are also kept in eviction order, as decided by an
+ * {@linkplain EvictionPolicy} (by default, oldest last modified time first), so that {@linkplain #pollVictim()} is
+ * O(log N) and does not need to list or sort the directory.  If the policy expires files, they are kept in expiry order
+ * as well, so that {@linkplain #pollExpired(long)} only looks at the files that have expired.
+ * <p>
+ * Events can be missed (a listener that was slow, a file that changed size between the event and the stat, etc.),
+ * so the index should periodically be compared against the disk with {@linkplain #reconcile()}.  The tree is walked
+ * without holding the lock of the index, so events keep being applied during the walk; the files they change (and the
+ * files that are evicted) during the walk are remembered, and keep the state the events gave them rather than the one
+ * the walk saw.
+ * <p>
+ * If a {@linkplain CacheManifest} is set, every change is journaled to it, and the index can be seeded from the manifest
+ * with {@linkplain #load(Collection)} instead of walking the tree.  Files that belong to the cache itself
+ * (see {@linkplain CacheManifest#isInternalFile(File)}) are never indexed.
+ *
+ * @author Frederick Burkley
+ */
+public class CacheIndex {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = CacheIndex.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * Orders nodes lowest priority first.  Ties are broken on the last access time, then on the path, so that distinct
+	 * files never compare equal.
+	 */
+	private static final Comparator<Node> _EVICTION_ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node n1, Node n2) {
+			int ret = Double.compare(n1.priority, n2.priority);
+			if (ret == 0) {
+				ret = Long.compare(n1.entry.getLastAccessed(), n2.entry.getLastAccessed());
+			}
+			if (ret == 0) {
+				ret = n1.entry.getFile().compareTo(n2.entry.getFile());
+			}
+			return ret;
+		}
+	};
+	/**
+	 * Orders nodes soonest expiry first, then in eviction order.
+	 */
+	private static final Comparator<Node> _EXPIRY_ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node n1, Node n2) {
+			int ret = Long.compare(n1.expiryTime, n2.expiryTime);
+			if (ret == 0) {
+				ret = _EVICTION_ORDER.compare(n1, n2);
+			}
+			return ret;
+		}
+	};
+	/**
+	 * An entry, and its priority and expiry time at the time it was put in the index.
+	 */
+	private static class Node {
+
+		private final CacheEntry entry;
+		private final double priority;
+		private final long expiryTime;
+		private final boolean evictable;
+
+		Node(final CacheEntry entry, final double priority, final long expiryTime, final boolean evictable) {
+			this.entry = entry;
+			this.priority = priority;
+			this.expiryTime = expiryTime;
+			this.evictable = evictable;
+		}
+
+		/**
+		 * Whether the node is in the expiry order.
+		 */
+		boolean expires() {
+			return this.evictable && this.expiryTime != Long.MAX_VALUE;
+		}
+	}
+	/**
+	 * The size and file count of a subdirectory, including its own subdirectories.
+	 */
+	private static class DirectoryTotals {
+
+		private long size;
+		private int fileCount;
+	}
+	/**
+	 * The root directory of the cache.
+	 */
+	private final File directory;
+	/**
+	 * Decides which files may be evicted.
+	 */
+	private final FileFilter eligibilityFilter;
+	/**
+	 * Every file in the cache, keyed by file.
+	 */
+	private Map<File, Node> entries;
+	/**
+	 * The files that may be evicted, in eviction order.
+	 */
+	private TreeSet<Node> evictionOrder;
+	/**
+	 * The files that may be evicted and that will expire, soonest first.
+	 */
+	private TreeSet<Node> expiryOrder;
+	/**
+	 * Decides the eviction order.
+	 */
+	private EvictionPolicy evictionPolicy;
+	/**
+	 * The sum of the sizes of all files in the cache.
+	 */
+	private long totalSize;
+	/**
+	 * The totals of every subdirectory that holds at least one file, keyed by subdirectory.  The root is not included.
+	 */
+	private Map<File, DirectoryTotals> directoryTotals;
+	/**
+	 * The manifest that changes are journaled to, or <code>null</code>.
+	 */
+	private CacheManifest cacheManifest;
+	/**
+	 * The number of walks of the tree in progress.
+	 */
+	private int scansInProgress;
+	/**
+	 * Counts the changes made by events and evictions.
+	 */
+	private long changeCount;
+	/**
+	 * While a walk is in progress, the files changed by events and evictions, with the value of
+	 * <code>changeCount</code> at their last change.
+	 */
+	private Map<File, Long> changesDuringScans;
+
+	/**
+	 * Create an empty <code>CacheIndex</code> for the directory <code>directory</code>, that evicts the oldest files first.
+	 *
+	 * @param directory The root directory of the cache.
+	 * @param eligibilityFilter Decides which files may be evicted.  Every file is counted in the size of the cache,
+	 *   but only files accepted by this filter are returned by {@linkplain #pollVictim()}.
+	 */
+	public CacheIndex(final File directory, final FileFilter eligibilityFilter) {
+		this(directory, eligibilityFilter, new ModifiedTimeEvictionPolicy());
+	}
+
+	/**
+	 * Create an empty <code>CacheIndex</code> for the directory <code>directory</code>.
+	 *
+	 * @param directory The root directory of the cache.
+	 * @param eligibilityFilter Decides which files may be evicted.  Every file is counted in the size of the cache,
+	 *   but only files accepted by this filter are returned by {@linkplain #pollVictim()}.
+	 * @param evictionPolicy Decides the eviction order.
+	 */
+	public CacheIndex(final File directory, final FileFilter eligibilityFilter, final EvictionPolicy evictionPolicy) {
+		this.directory = directory;
+		this.eligibilityFilter = eligibilityFilter;
+		this.evictionPolicy = evictionPolicy;
+		this.entries = new HashMap<File, Node>();
+		this.evictionOrder = new TreeSet<Node>(_EVICTION_ORDER);
+		this.expiryOrder = new TreeSet<Node>(_EXPIRY_ORDER);
+		this.totalSize = 0;
+		this.directoryTotals = new HashMap<File, DirectoryTotals>();
+		this.changesDuringScans = new HashMap<File, Long>();
+	}
+
+	/**
+	 * Change the eviction policy.  Every entry is given a new priority.
+	 *
+	 * @param evictionPolicy Decides the eviction order.
+	 */
+	public synchronized void setEvictionPolicy(final EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+		this.replace(this.toEntryMap());
+	}
+
+	/**
+	 * Get the eviction policy.
+	 *
+	 * @return The policy that decides the eviction order.
+	 */
+	public synchronized EvictionPolicy getEvictionPolicy() {
+		return this.evictionPolicy;
+	}
+
+	/**
+	 * Seed the index by walking the directory tree.  Any previous content of the index is discarded, except for the
+	 * files that events change during the walk.
+	 *
+	 * @throws IOException If the directory tree can not be walked.
+	 */
+	public void load() throws IOException {
+		this.rescan();
+	}
+
+	/**
+	 * Seed the index from entries read from a {@linkplain CacheManifest}.  Any previous content of the index is discarded.
+	 *
+	 * @param loaded The entries.
+	 */
+	public void load(final Collection<CacheEntry> loaded) {
+		Map<File, CacheEntry> entries = new HashMap<File, CacheEntry>(loaded.size() * 2);
+		for (CacheEntry entry : loaded) {
+			entries.put(entry.getFile(), entry);
+		}
+		synchronized (this) {
+			this.entries = new HashMap<File, Node>();
+			this.replace(entries);
+		}
+	}
+
+	/**
+	 * Journal every change of the index to <code>cacheManifest</code>.
+	 *
+	 * @param cacheManifest The manifest, or <code>null</code> to stop journaling.
+	 */
+	public synchronized void setManifest(final CacheManifest cacheManifest) {
+		this.cacheManifest = cacheManifest;
+	}
+
+	/**
+	 * Compare the index against the disk, and correct the index if it has drifted.  The access information of the
+	 * files that are still on disk is kept.
+	 * <p>
+	 * The corrections are not journaled; a {@linkplain CacheManifest#checkpoint(CacheIndex)} should follow.
+	 *
+	 * @return The difference, in bytes, between the size on disk and the size the index was tracking.
+	 * @throws IOException If the directory tree can not be walked.
+	 */
+	public long reconcile() throws IOException {
+		long drift = this.rescan();
+		if (drift != 0 && _logger.isLoggable(Level.FINE)) {
+			_logger.fine("Reconciled " + this.directory + ", drift = " + drift + " bytes");
+		}
+		return drift;
+	}
+
+	/**
+	 * Add a file to the index.  If the file is already in the index, this is the same as {@linkplain #update(File)}.
+	 *
+	 * @param file The file that was created.
+	 * @return The entry of the file, or <code>null</code> if it is not in the index.
+	 */
+	public CacheEntry add(final File file) {
+		return this.update(file);
+	}
+
+	/**
+	 * Update the size and last modified time of a file in the index.  If the file is not in the index, it is added.
+	 * If the file no longer exists, it is removed.
+	 *
+	 * @param file The file that was changed.
+	 * @return The entry of the file, or <code>null</code> if it is not in the index.
+	 */
+	public CacheEntry update(final File file) {
+		if (CacheManifest.isInternalFile(this.directory, file)) {
+			return null;
+		}
+		BasicFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+		} catch (IOException ex) {
+			this.remove(file);
+			return null;
+		}
+		if (!attrs.isRegularFile()) {
+			return null;
+		}
+		CacheEntry entry = newEntry(file, attrs);
+		synchronized (this) {
+			Node previous = this.entries.get(file);
+			if (previous != null) {
+				entry = entry.withAccessesOf(previous.entry);
+			}
+			this.put(entry);
+			this.changed(file);
+			this.journalPut(entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Record reads of a file, and give it a new priority.  Reads of a file that is not in the index are ignored.
+	 *
+	 * @param file The file that was read.
+	 * @param count The number of reads.
+	 * @param lastAccessed The time of the last read, in milliseconds since the epoch.
+	 * @return <code>true</code> if the file is in the index.
+	 */
+	public synchronized boolean recordAccesses(final File file, final long count, final long lastAccessed) {
+		Node node = this.entries.get(file);
+		if (node == null) {
+			return false;
+		}
+		CacheEntry entry = node.entry;
+		CacheEntry accessed = new CacheEntry(file, entry.getSize(), entry.getLastModified(),
+				Math.max(entry.getLastAccessed(), lastAccessed), entry.getAccessCount() + count);
+		this.put(accessed);
+		this.journalPut(accessed);
+		return true;
+	}
+
+	/**
+	 * Remove a file from the index.  Removing a file that is not in the index has no effect.
+	 *
+	 * @param file The file that was deleted.
+	 * @return The size that was tracked for the file, or 0 if the file was not in the index.
+	 */
+	public synchronized long remove(final File file) {
+		this.changed(file);
+		Node node = this.entries.remove(file);
+		if (node == null) {
+			return 0;
+		}
+		if (node.evictable) {
+			this.evictionOrder.remove(node);
+		}
+		if (node.expires()) {
+			this.expiryOrder.remove(node);
+		}
+		this.account(node.entry, -1);
+		this.journalRemove(file);
+		return node.entry.getSize();
+	}
+
+	/**
+	 * Remove the first file in eviction order from the index, and return it.
+	 * <p>
+	 * The file is not deleted; that is up to the caller.  If the caller can not delete the file, it stays out of
+	 * the index until the next {@linkplain #reconcile()}.
+	 *
+	 * @return The first file in eviction order, or <code>null</code> if there is no file that may be evicted.
+	 */
+	public synchronized CacheEntry pollVictim() {
+		Node node = this.evictionOrder.pollFirst();
+		if (node == null) {
+			return null;
+		}
+		this.evicted(node);
+		return node.entry;
+	}
+
+	/**
+	 * Remove files from the index, in eviction order, until at least <code>bytesToFree</code> bytes have been removed
+	 * (or there are no more files that may be evicted), and return them.
+	 * <p>
+	 * As with {@linkplain #pollVictim()}, the files are not deleted; that is up to the caller.
+	 *
+	 * @param bytesToFree The number of bytes to free.
+	 * @return The files to delete, in eviction order.  The list is empty if <code>bytesToFree</code> is not positive.
+	 */
+	public synchronized List<CacheEntry> pollVictims(final long bytesToFree) {
+		List<CacheEntry> victims = new ArrayList<CacheEntry>();
+		long freed = 0;
+		while (freed < bytesToFree) {
+			CacheEntry entry = this.pollVictim();
+			if (entry == null) {
+				break;
+			}
+			victims.add(entry);
+			freed += entry.getSize();
+		}
+		return victims;
+	}
+
+	/**
+	 * Remove the files that the eviction policy says have expired from the index, and return them.  The files that
+	 * will expire are kept in expiry order, so this only looks at the files that have expired; if the policy never
+	 * expires files (see {@linkplain EvictionPolicy#expires()}), it returns at once.
+	 * <p>
+	 * As with {@linkplain #pollVictim()}, the files are not deleted; that is up to the caller.
+	 *
+	 * @param now The current time, in milliseconds since the epoch.
+	 * @return The files to delete, soonest expiry first.
+	 */
+	public synchronized List<CacheEntry> pollExpired(final long now) {
+		List<CacheEntry> expired = new ArrayList<CacheEntry>();
+		while (!this.expiryOrder.isEmpty() && this.expiryOrder.first().expiryTime < now) {
+			Node node = this.expiryOrder.pollFirst();
+			this.evictionOrder.remove(node);
+			this.evicted(node);
+			expired.add(node.entry);
+		}
+		return expired;
+	}
+
+	/**
+	 * Remove files under <code>subdirectory</code> from the index, in eviction order, until at least
+	 * <code>bytesToFree</code> bytes have been removed (or there are no more files under the subdirectory that may be
+	 * evicted), and return them.  This is how a quota on a subtree is enforced.
+	 * <p>
+	 * Files outside the subtree are skipped, so the cost grows with the number of files that are evicted before the
+	 * victims in the eviction order.  As with {@linkplain #pollVictim()}, the files are not deleted; that is up to the
+	 * caller.
+	 *
+	 * @param subdirectory The root of the subtree.
+	 * @param bytesToFree The number of bytes to free.
+	 * @return The files to delete, in eviction order.  The list is empty if <code>bytesToFree</code> is not positive.
+	 */
+	public synchronized List<CacheEntry> pollVictims(final File subdirectory, final long bytesToFree) {
+		if (subdirectory.equals(this.directory)) {
+			return this.pollVictims(bytesToFree);
+		}
+		List<CacheEntry> victims = new ArrayList<CacheEntry>();
+		DirectoryTotals totals = this.directoryTotals.get(subdirectory);
+		long freed = 0;
+		Iterator<Node> iterator = this.evictionOrder.iterator();
+		while (freed < bytesToFree && totals != null && totals.fileCount > 0 && iterator.hasNext()) {
+			Node node = iterator.next();
+			if (isUnder(node.entry.getFile(), subdirectory)) {
+				iterator.remove();
+				this.evicted(node);
+				victims.add(node.entry);
+				freed += node.entry.getSize();
+			}
+		}
+		return victims;
+	}
+
+	/**
+	 * Get the sum of the sizes of all files in the index.
+	 *
+	 * @return The size of the cache, in bytes.
+	 */
+	public synchronized long getTotalSize() {
+		return this.totalSize;
+	}
+
+	/**
+	 * Get the sum of the sizes of the files under a directory of the cache, including its subdirectories.
+	 *
+	 * @param subdirectory The root directory of the cache, or one of its subdirectories.
+	 * @return The size of the subtree, in bytes, or 0 if the index has no file under it.
+	 */
+	public synchronized long getDirectorySize(final File subdirectory) {
+		if (subdirectory.equals(this.directory)) {
+			return this.totalSize;
+		}
+		DirectoryTotals totals = this.directoryTotals.get(subdirectory);
+		return totals == null ? 0 : totals.size;
+	}
+
+	/**
+	 * Get the number of files under a directory of the cache, including its subdirectories.
+	 *
+	 * @param subdirectory The root directory of the cache, or one of its subdirectories.
+	 * @return The number of files in the subtree.
+	 */
+	public synchronized int getDirectoryFileCount(final File subdirectory) {
+		if (subdirectory.equals(this.directory)) {
+			return this.entries.size();
+		}
+		DirectoryTotals totals = this.directoryTotals.get(subdirectory);
+		return totals == null ? 0 : totals.fileCount;
+	}
+
+	/**
+	 * Get the number of files in the index.
+	 *
+	 * @return The number of files in the cache.
+	 */
+	public synchronized int getFileCount() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Get a copy of the entries of the index.
+	 *
+	 * @return Every entry of the index, in no particular order.
+	 */
+	public synchronized List<CacheEntry> getEntries() {
+		List<CacheEntry> copy = new ArrayList<CacheEntry>(this.entries.size());
+		for (Node node : this.entries.values()) {
+			copy.add(node.entry);
+		}
+		return copy;
+	}
+
+	/**
+	 * Get the root directory of the cache.
+	 *
+	 * @return The root directory of the cache.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Put an entry in the index, replacing the previous entry for the same file (if any).
+	 */
+	private void put(final CacheEntry entry) {
+		boolean evictable = this.eligibilityFilter.accept(entry.getFile());
+		long expiryTime = evictable && this.evictionPolicy.expires() ? this.evictionPolicy.getExpiryTime(entry) : Long.MAX_VALUE;
+		Node node = new Node(entry, evictable ? this.evictionPolicy.getPriority(entry) : 0, expiryTime, evictable);
+		Node previous = this.entries.put(entry.getFile(), node);
+		if (previous != null) {
+			if (previous.evictable) {
+				this.evictionOrder.remove(previous);
+			}
+			if (previous.expires()) {
+				this.expiryOrder.remove(previous);
+			}
+			this.account(previous.entry, -1);
+		}
+		if (evictable) {
+			this.evictionOrder.add(node);
+		}
+		if (node.expires()) {
+			this.expiryOrder.add(node);
+		}
+		this.account(entry, 1);
+	}
+
+	/**
+	 * Finish the removal of a node that was taken out of the eviction order (or of the expiry order) for eviction.
+	 */
+	private void evicted(final Node node) {
+		if (node.expires()) {
+			this.expiryOrder.remove(node);
+		}
+		this.entries.remove(node.entry.getFile());
+		this.account(node.entry, -1);
+		this.changed(node.entry.getFile());
+		this.journalRemove(node.entry.getFile());
+		this.evictionPolicy.onEvict(node.entry, node.priority);
+	}
+
+	/**
+	 * Add (<code>sign</code> is 1) or take away (<code>sign</code> is -1) an entry from the total size and from the
+	 * totals of every directory between the file and the root.
+	 */
+	private void account(final CacheEntry entry, final int sign) {
+		this.totalSize += sign * entry.getSize();
+		for (File parent = entry.getFile().getParentFile(); parent != null && !parent.equals(this.directory); parent = parent.getParentFile()) {
+			DirectoryTotals totals = this.directoryTotals.get(parent);
+			if (totals == null) {
+				totals = new DirectoryTotals();
+				this.directoryTotals.put(parent, totals);
+			}
+			totals.size += sign * entry.getSize();
+			totals.fileCount += sign;
+			if (totals.fileCount == 0) {
+				this.directoryTotals.remove(parent);
+			}
+		}
+	}
+
+	/**
+	 * Whether a file is under a directory, at any depth.
+	 */
+	private static boolean isUnder(final File file, final File directory) {
+		for (File parent = file.getParentFile(); parent != null; parent = parent.getParentFile()) {
+			if (parent.equals(directory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remember that a file was changed by an event or evicted, if the tree is being walked.
+	 */
+	private void changed(final File file) {
+		if (this.scansInProgress > 0) {
+			this.changesDuringScans.put(file, ++this.changeCount);
+		}
+	}
+
+	/**
+	 * Walk the directory tree and bring the index in line with it.
+	 *
+	 * @return The difference, in bytes, between the size on disk and the size the index was tracking.
+	 */
+	private long rescan() throws IOException {
+		long since = this.startScan();
+		Map<File, CacheEntry> scanned;
+		try {
+			scanned = this.scan();
+		} catch (IOException | RuntimeException ex) {
+			synchronized (this) {
+				this.endScan();
+			}
+			throw ex;
+		}
+		return this.finishScan(scanned, since);
+	}
+
+	/**
+	 * Start remembering the files that are changed during a walk.
+	 *
+	 * @return The change count at the start of the walk, for {@linkplain #finishScan(Map, long)}.
+	 */
+	synchronized long startScan() {
+		this.scansInProgress++;
+		return this.changeCount;
+	}
+
+	/**
+	 * Replace the content of the index with the files found by a walk, except for the files that were changed since
+	 * the walk started: the index knows better than the walk what happened to them.
+	 *
+	 * @param scanned The files found by the walk.  The map is changed.
+	 * @param since The change count at the start of the walk.
+	 * @return The difference, in bytes, between the new and the previous size of the index.
+	 */
+	synchronized long finishScan(final Map<File, CacheEntry> scanned, final long since) {
+		for (Map.Entry<File, Long> change : this.changesDuringScans.entrySet()) {
+			if (change.getValue() > since) {
+				Node node = this.entries.get(change.getKey());
+				if (node == null) {
+					scanned.remove(change.getKey());
+				} else {
+					scanned.put(change.getKey(), node.entry);
+				}
+			}
+		}
+		this.endScan();
+		long previousSize = this.totalSize;
+		this.replace(scanned);
+		return this.totalSize - previousSize;
+	}
+
+	private void endScan() {
+		if (--this.scansInProgress == 0) {
+			this.changesDuringScans.clear();
+		}
+	}
+
+	private void journalPut(final CacheEntry entry) {
+		if (this.cacheManifest != null) {
+			this.cacheManifest.journalPut(entry);
+		}
+	}
+
+	private void journalRemove(final File file) {
+		if (this.cacheManifest != null) {
+			this.cacheManifest.journalRemove(file);
+		}
+	}
+
+	/**
+	 * Replace the content of the index, keeping the access information of the files that were already indexed.
+	 */
+	private void replace(final Map<File, CacheEntry> scanned) {
+		Map<File, Node> previousEntries = this.entries;
+		this.entries = new HashMap<File, Node>(scanned.size() * 2);
+		this.evictionOrder = new TreeSet<Node>(_EVICTION_ORDER);
+		this.expiryOrder = new TreeSet<Node>(_EXPIRY_ORDER);
+		this.totalSize = 0;
+		this.directoryTotals = new HashMap<File, DirectoryTotals>();
+		for (CacheEntry entry : scanned.values()) {
+			Node previous = previousEntries.get(entry.getFile());
+			this.put(previous == null ? entry : entry.withAccessesOf(previous.entry));
+		}
+	}
+
+	/**
+	 * Copy the entries of the index into a map.
+	 */
+	private Map<File, CacheEntry> toEntryMap() {
+		Map<File, CacheEntry> copy = new HashMap<File, CacheEntry>(this.entries.size() * 2);
+		for (Node node : this.entries.values()) {
+			copy.put(node.entry.getFile(), node.entry);
+		}
+		return copy;
+	}
+
+	/**
+	 * Create an entry from the attributes of a file.  The file system access time counts as an access.
+	 */
+	private static CacheEntry newEntry(final File file, final BasicFileAttributes attrs) {
+		long lastModified = attrs.lastModifiedTime().toMillis();
+		long lastAccessed = Math.max(lastModified, attrs.lastAccessTime().toMillis());
+		return new CacheEntry(file, attrs.size(), lastModified, lastAccessed, 0);
+	}
+
+	/**
+	 * Walk the directory tree, recording every regular file.  The attributes of each file are read once.  The index is
+	 * not locked during the walk.
+	 */
+	Map<File, CacheEntry> scan() throws IOException {
+		final Map<File, CacheEntry> scanned = new HashMap<File, CacheEntry>();
+		final Path root = this.directory.toPath();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) throws IOException {
+				if (!path.equals(root) && CacheManifest.isInternalFile(path.toFile())) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
+				File file = path.toFile();
+				if (attrs.isRegularFile() && !CacheManifest.isInternalFile(file)) {
+					scanned.put(file, newEntry(file, attrs));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path path, IOException ex) throws IOException {
+				// The file was most likely deleted during the walk.
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return scanned;
+	}
+}
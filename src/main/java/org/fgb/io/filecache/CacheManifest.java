@@ -0,0 +1,449 @@
+/*
+ * Class:   CacheManifest.java
+ * Born On: Oct, 2026
+ * Purpose: Persist the cache index, so that it does not have to be rebuilt from the disk at start up.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>CacheManifest</code> persists a {@linkplain CacheIndex}, so that a restarted cleaner can make eviction
+ * decisions as soon as it starts, instead of after a walk of the whole directory tree.
+ * <p>
+ * The manifest is made of two files in the cache directory:
+ * <ul>
+ * <li>a snapshot, <code>{@value #SNAPSHOT_FILE_NAME}</code>, holding every entry of the index at the last checkpoint, and</li>
+ * <li>a journal, <code>{@value #JOURNAL_FILE_NAME}</code>, to which every change of the index since the checkpoint is appended.</li>
+ * </ul>
+ * Both are read by memory mapping them.  A record holds the path of the file (relative to the cache directory), its size,
+ * last modified time, last access time and number of accesses.  A record cut short by a crash ends the journal.
+ * <p>
+ * A checkpoint rotates the journal while holding the index lock, then writes the new snapshot without it, so the cache
+ * keeps running while the snapshot is written.  Checkpoints of one manifest run one at a time.  If the process dies during a checkpoint, the old snapshot and both
+ * journals are still on disk and are replayed on the next load.
+ * <p>
+ * A loaded manifest may be out of date (files may have changed while the cleaner was not running), so it should be
+ * followed by a {@linkplain CacheIndex#reconcile()} in the background.
+ *
+ * @author Frederick Burkley
+ */
+public class CacheManifest {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = CacheManifest.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * Files whose name starts with this prefix belong to the cache itself, not to its content.
+	 */
+	public static final String INTERNAL_FILE_PREFIX = ".filecache";
+	/**
+	 * The name of the snapshot file.
+	 */
+	public static final String SNAPSHOT_FILE_NAME = INTERNAL_FILE_PREFIX + ".manifest";
+	/**
+	 * The name of the journal file.
+	 */
+	public static final String JOURNAL_FILE_NAME = INTERNAL_FILE_PREFIX + ".journal";
+	/**
+	 * The name of the journal being superseded by a checkpoint.
+	 */
+	private static final String _OLD_JOURNAL_FILE_NAME = JOURNAL_FILE_NAME + ".old";
+	/**
+	 * The name of the snapshot being written by a checkpoint.
+	 */
+	private static final String _NEW_SNAPSHOT_FILE_NAME = SNAPSHOT_FILE_NAME + ".new";
+	/**
+	 * The first bytes of both files: "FGBC".
+	 */
+	private static final int _MAGIC = 0x46474243;
+	/**
+	 * The version of the file format.
+	 */
+	private static final int _VERSION = 1;
+	/**
+	 * A journal record that adds or replaces an entry.
+	 */
+	private static final byte _PUT = 1;
+	/**
+	 * A journal record that removes an entry.
+	 */
+	private static final byte _REMOVE = 2;
+	/**
+	 * The size of the write buffers.
+	 */
+	private static final int _BUFFER_SIZE = 64 * 1024;
+	/**
+	 * The root directory of the cache.
+	 */
+	private final File directory;
+	/**
+	 * The root directory of the cache, as a path.  Used to relativise the paths that are written.
+	 */
+	private final Path root;
+	/**
+	 * The journal, open for appending.  <code>null</code> until {@linkplain #open()} is called.
+	 */
+	private FileChannel journal;
+	/**
+	 * Journal records not yet written to the journal.
+	 */
+	private final ByteBuffer journalBuffer;
+	/**
+	 * The length of the readable part of each journal, as found by {@linkplain #load()}.  A journal is truncated to
+	 * this length when it is opened, so that new records do not follow a record cut short by a crash.
+	 */
+	private final Map<String, Long> journalLengths;
+	/**
+	 * Held for the whole of a checkpoint, so that two checkpoints do not rotate the journal or write the new snapshot
+	 * at the same time.  Taken before the lock of the index, and never while holding the lock of the manifest.
+	 */
+	private final Object checkpointLock;
+
+	/**
+	 * Create a <code>CacheManifest</code> for the directory <code>directory</code>.
+	 *
+	 * @param directory The root directory of the cache.
+	 */
+	public CacheManifest(final File directory) {
+		this.directory = directory;
+		this.root = directory.toPath();
+		this.journalBuffer = ByteBuffer.allocateDirect(_BUFFER_SIZE);
+		this.journalLengths = new HashMap<String, Long>();
+		this.checkpointLock = new Object();
+	}
+
+	/**
+	 * Whether a file belongs to the cache itself (the manifest, for example) rather than to its content.
+	 *
+	 * @param file A file in the cache directory.
+	 * @return <code>true</code> if the file should not be indexed.
+	 */
+	public static boolean isInternalFile(final File file) {
+		return file.getName().startsWith(INTERNAL_FILE_PREFIX);
+	}
+
+	/**
+	 * Whether a file belongs to the cache itself, or is inside a directory that does (the trash, for example).
+	 *
+	 * @param directory The root directory of the cache.
+	 * @param file A file under the root directory of the cache.
+	 * @return <code>true</code> if the file should not be indexed.
+	 */
+	public static boolean isInternalFile(final File directory, final File file) {
+		for (File parent = file; parent != null && !parent.equals(directory); parent = parent.getParentFile()) {
+			if (isInternalFile(parent)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read the snapshot and replay the journals.
+	 *
+	 * @return The entries of the index at the time the manifest was last written, or <code>null</code> if there is no manifest.
+	 * @throws IOException If the manifest can not be read, or is not a manifest.
+	 */
+	public Map<File, CacheEntry> load() throws IOException {
+		File snapshot = new File(this.directory, SNAPSHOT_FILE_NAME);
+		File oldJournal = new File(this.directory, _OLD_JOURNAL_FILE_NAME);
+		File journal = new File(this.directory, JOURNAL_FILE_NAME);
+		if (!snapshot.exists() && !oldJournal.exists() && !journal.exists()) {
+			return null;
+		}
+		long startTime = System.currentTimeMillis();
+		Map<File, CacheEntry> entries = new HashMap<File, CacheEntry>();
+		this.read(snapshot, entries, false);
+		this.read(oldJournal, entries, true);
+		this.read(journal, entries, true);
+		if (_logger.isLoggable(Level.FINE)) {
+			_logger.fine("Loaded " + entries.size() + " entries for " + this.directory + " in "
+					+ (System.currentTimeMillis() - startTime) + " milliseconds");
+		}
+		return entries;
+	}
+
+	/**
+	 * Delete the snapshot and the journals, for example because they could not be read.
+	 *
+	 * @throws IOException If a file can not be deleted.
+	 */
+	public synchronized void reset() throws IOException {
+		this.close();
+		Files.deleteIfExists(this.root.resolve(SNAPSHOT_FILE_NAME));
+		Files.deleteIfExists(this.root.resolve(_OLD_JOURNAL_FILE_NAME));
+		Files.deleteIfExists(this.root.resolve(JOURNAL_FILE_NAME));
+		this.journalLengths.clear();
+	}
+
+	/**
+	 * Open the journal for appending.  A journal that does not exist is created.
+	 *
+	 * @throws IOException If the journal can not be opened.
+	 */
+	public synchronized void open() throws IOException {
+		if (this.journal == null) {
+			for (Map.Entry<String, Long> length : this.journalLengths.entrySet()) {
+				try (FileChannel channel = FileChannel.open(this.root.resolve(length.getKey()), StandardOpenOption.WRITE)) {
+					channel.truncate(length.getValue());
+				}
+			}
+			this.journalLengths.clear();
+			this.journal = openJournal(this.root.resolve(JOURNAL_FILE_NAME));
+		}
+	}
+
+	/**
+	 * Append the addition or replacement of an entry to the journal.  Does nothing if the journal is not open.
+	 *
+	 * @param entry The entry.
+	 */
+	public synchronized void journalPut(final CacheEntry entry) {
+		if (this.journal != null) {
+			byte[] path = this.encode(entry.getFile());
+			this.reserve(1 + 4 + path.length + 4 * 8);
+			this.journalBuffer.put(_PUT);
+			putRecord(this.journalBuffer, path, entry);
+		}
+	}
+
+	/**
+	 * Append the removal of an entry to the journal.  Does nothing if the journal is not open.
+	 *
+	 * @param file The file whose entry was removed.
+	 */
+	public synchronized void journalRemove(final File file) {
+		if (this.journal != null) {
+			byte[] path = this.encode(file);
+			this.reserve(1 + 4 + path.length);
+			this.journalBuffer.put(_REMOVE);
+			this.journalBuffer.putInt(path.length);
+			this.journalBuffer.put(path);
+		}
+	}
+
+	/**
+	 * Write the buffered journal records to the journal.
+	 */
+	public synchronized void flush() {
+		if (this.journal != null && this.journalBuffer.position() > 0) {
+			try {
+				this.journalBuffer.flip();
+				while (this.journalBuffer.hasRemaining()) {
+					this.journal.write(this.journalBuffer);
+				}
+			} catch (IOException ex) {
+				// The records are lost; the next reconcile and checkpoint will make up for them.
+				_logger.log(Level.WARNING, null, ex);
+			} finally {
+				this.journalBuffer.clear();
+			}
+		}
+	}
+
+	/**
+	 * Write a new snapshot of <code>cacheIndex</code> and start a new journal.  A checkpoint that is called while
+	 * another is running waits for it, and then writes a snapshot that is at least as recent.
+	 *
+	 * @param cacheIndex The index to snapshot.  Its changes must be journaled by this manifest.
+	 * @throws IOException If the snapshot can not be written.
+	 */
+	public void checkpoint(final CacheIndex cacheIndex) throws IOException {
+		synchronized (this.checkpointLock) {
+			long startTime = System.currentTimeMillis();
+			Collection<CacheEntry> entries;
+			synchronized (cacheIndex) {
+				entries = cacheIndex.getEntries();
+				this.rotateJournal();
+			}
+			Path newSnapshot = this.root.resolve(_NEW_SNAPSHOT_FILE_NAME);
+			try (FileChannel channel = FileChannel.open(newSnapshot, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(_BUFFER_SIZE);
+				buffer.putInt(_MAGIC);
+				buffer.putInt(_VERSION);
+				for (CacheEntry entry : entries) {
+					byte[] path = this.encode(entry.getFile());
+					if (buffer.remaining() < 4 + path.length + 4 * 8) {
+						write(channel, buffer);
+					}
+					putRecord(buffer, path, entry);
+				}
+				write(channel, buffer);
+				channel.force(false);
+			}
+			Files.move(newSnapshot, this.root.resolve(SNAPSHOT_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(this.root.resolve(_OLD_JOURNAL_FILE_NAME));
+			if (_logger.isLoggable(Level.FINE)) {
+				_logger.fine("Wrote " + entries.size() + " entries for " + this.directory + " in "
+						+ (System.currentTimeMillis() - startTime) + " milliseconds");
+			}
+		}
+	}
+
+	/**
+	 * Flush and close the journal.
+	 */
+	public synchronized void close() {
+		if (this.journal != null) {
+			this.flush();
+			try {
+				this.journal.close();
+			} catch (IOException ex) {
+				_logger.log(Level.WARNING, null, ex);
+			}
+			this.journal = null;
+		}
+	}
+
+	/**
+	 * Move the current journal aside and start an empty one.  The caller holds the lock of the index, so no change is
+	 * journaled between the copy of the entries and the rotation.
+	 */
+	private synchronized void rotateJournal() throws IOException {
+		if (this.journal == null) {
+			return;
+		}
+		this.flush();
+		this.journal.close();
+		Path journalPath = this.root.resolve(JOURNAL_FILE_NAME);
+		Path oldJournalPath = this.root.resolve(_OLD_JOURNAL_FILE_NAME);
+		if (Files.exists(oldJournalPath)) {
+			// A previous checkpoint failed.  Its old journal is older than the current one, so keep both.
+			try (FileChannel channel = FileChannel.open(oldJournalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+					FileChannel current = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+				current.position(8);
+				channel.transferFrom(current, channel.size(), current.size() - 8);
+			}
+			Files.delete(journalPath);
+		} else {
+			Files.move(journalPath, oldJournalPath, StandardCopyOption.ATOMIC_MOVE);
+		}
+		this.journal = openJournal(journalPath);
+	}
+
+	/**
+	 * Open a journal for appending, writing the header if the journal is new.
+	 */
+	private static FileChannel openJournal(final Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		if (channel.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(8);
+			header.putInt(_MAGIC);
+			header.putInt(_VERSION);
+			write(channel, header);
+		}
+		return channel;
+	}
+
+	/**
+	 * Make room for a record of <code>length</code> bytes in the journal buffer.
+	 */
+	private void reserve(final int length) {
+		if (this.journalBuffer.remaining() < length) {
+			this.flush();
+		}
+	}
+
+	/**
+	 * Read a snapshot or a journal into <code>entries</code>.  A file that does not exist is skipped.
+	 */
+	private void read(final File file, final Map<File, CacheEntry> entries, final boolean journal) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8 || buffer.getInt() != _MAGIC || buffer.getInt() != _VERSION) {
+				throw new IOException(file + " is not a cache manifest");
+			}
+			int position = buffer.position();
+			try {
+				while (buffer.hasRemaining()) {
+					position = buffer.position();
+					byte op = journal ? buffer.get() : _PUT;
+					File entryFile = this.decode(buffer);
+					if (op == _PUT) {
+						CacheEntry entry = new CacheEntry(entryFile, buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+						entries.put(entryFile, entry);
+					} else if (op == _REMOVE) {
+						entries.remove(entryFile);
+					} else {
+						_logger.warning(file + " is corrupt at offset " + position + ", ignoring the rest of it");
+						break;
+					}
+				}
+				position = buffer.position();
+			} catch (BufferUnderflowException ex) {
+				// The last record was cut short; the process died while it was being written.
+			}
+			if (journal) {
+				this.journalLengths.put(file.getName(), (long) position);
+			}
+		}
+	}
+
+	/**
+	 * Put the path, size, last modified time, last access time and number of accesses of an entry.
+	 */
+	private static void putRecord(final ByteBuffer buffer, final byte[] path, final CacheEntry entry) {
+		buffer.putInt(path.length);
+		buffer.put(path);
+		buffer.putLong(entry.getSize());
+		buffer.putLong(entry.getLastModified());
+		buffer.putLong(entry.getLastAccessed());
+		buffer.putLong(entry.getAccessCount());
+	}
+
+	/**
+	 * Encode the path of a file, relative to the cache directory.
+	 */
+	private byte[] encode(final File file) {
+		return this.root.relativize(file.toPath()).toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decode the path of a file.
+	 */
+	private File decode(final ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] path = new byte[length];
+		buffer.get(path);
+		return new File(this.directory, new String(path, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Write the content of the buffer to the channel, and clear the buffer.
+	 */
+	private static void write(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -7,7 +7,16 @@ package org.fgb.io.filecache;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -18,13 +27,18 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.comparator.LastModifiedFileComparator;
+
+import org.fgb.io.filecache.impl.EvictionPolicies;
+import org.fgb.io.filecache.impl.ModifiedTimeEvictionPolicy;
 
 /**
  * Class <code>CleanDirectory</code> will monitor a directory and delete files in the directory when the directory reaches a certain size.
  * <p>
  * This class will invoke a background thread that will perform the monitoring duties.
  * The background thread will stay alive until the user kills the process.
+ * <p>
+ * Files are deleted in the order of an {@linkplain EvictionPolicy}, by default {@linkplain ModifiedTimeEvictionPolicy}.
+ * There is no access tracking here, so the access based policies only see the access time kept by the file system.
  *
  * @author Frederick Burkley
  */
@@ -48,14 +62,14 @@ public class CleanDirectory {
 	/**
 	 *
 	 */
-	private static void cleanDirectory(final File directory) {
+	private static void cleanDirectory(final File directory, final EvictionPolicy evictionPolicy) {
 		if (_logger.isLoggable(Level.FINER)) {
 			_logger.entering(_className, "cleanDirectory");
 		}
 
 		System.out.println(_className + ".cleanDirectory(): directory = " + directory.getAbsolutePath());
 
-		File files[] = sortedFileList(directory);
+		CacheEntry files[] = sortedFileList(directory, evictionPolicy);
 
 		System.out.println(_className + ".checkAndCleanDirectory(): --------------------");
 		System.out.println(_className + ".checkAndCleanDirectory(): FILE LIST AFTER SORT");
@@ -75,31 +89,46 @@ public class CleanDirectory {
 		}
 	}
 
-	private static void deleteFileList(File[] files) {
-		long fileSize;
+	/**
+	 * Delete the first files of the list, up to 25 MB, several at a time.
+	 */
+	private static void deleteFileList(CacheEntry[] files) {
 		long deletedBytes = 0;
 		long bytesToDelete = 25 * FileUtils.ONE_MB;
+		List<CacheEntry> victims = new ArrayList<CacheEntry>();
 
-		for (File file : files) {
-			fileSize = file.length();
-			System.out.println(_className + ".deleteFileList(): Attempting to delete " + file.getAbsolutePath());
-			file.delete();
-			System.out.println(_className + ".deleteFileList(): Deleted " + file.getAbsolutePath());
-			deletedBytes += fileSize;
-			fileSize = 0;
+		for (CacheEntry file : files) {
 			if (deletedBytes > bytesToDelete) {
 				break;
 			}
+			victims.add(file);
+			deletedBytes += file.getSize();
 		}
 
+		BatchDeleter batchDeleter = new BatchDeleter();
+		batchDeleter.setProgressListener(new DeleteProgressListener() {
 
+			@Override
+			public void onProgress(int filesDone, int filesTotal, long bytesFreed) {
+				System.out.println(_className + ".deleteFileList(): " + filesDone + " of " + filesTotal + " files, " + bytesFreed + " bytes freed");
+			}
+		});
+		DeleteResult result = batchDeleter.delete(victims);
+		batchDeleter.close();
+		System.out.println(_className + ".deleteFileList(): " + result);
+		for (File failure : result.getFailures()) {
+			System.out.println(_className + ".deleteFileList(): Unable to delete " + failure.getPath());
+		}
 	}
 
 
 	private static void deleteOldestFile(final File directory) {
 	}
 
-	private static File[] sortedFileList(File directory) {
+	/**
+	 * List the files that may be deleted, in the order of the eviction policy.
+	 */
+	private static CacheEntry[] sortedFileList(File directory, final EvictionPolicy evictionPolicy) {
 		File files[] = directory.listFiles(new FileFilter() {
 
 			@Override
@@ -112,20 +141,52 @@ public class CleanDirectory {
 				}
 			}
 		});
-		LastModifiedFileComparator comparator = new LastModifiedFileComparator();
-		files = comparator.sort(files);
-		return files;
+		if (files == null) {
+			return new CacheEntry[0];
+		}
+		// Each file is stat'ed once, and its priority computed once, rather than on every comparison.
+		final Map<File, Double> priorities = new HashMap<File, Double>(files.length * 2);
+		final Map<File, CacheEntry> entries = new HashMap<File, CacheEntry>(files.length * 2);
+		for (File file : files) {
+			try {
+				BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+				long lastModified = attrs.lastModifiedTime().toMillis();
+				CacheEntry entry = new CacheEntry(file, attrs.size(), lastModified, Math.max(lastModified, attrs.lastAccessTime().toMillis()), 0);
+				entries.put(file, entry);
+				priorities.put(file, evictionPolicy.getPriority(entry));
+			} catch (IOException ex) {
+				// The file was most likely deleted since it was listed; sort it first, deleting it is harmless.
+				entries.put(file, new CacheEntry(file, 0, 0));
+				priorities.put(file, Double.NEGATIVE_INFINITY);
+			}
+		}
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File file1, File file2) {
+				int ret = Double.compare(priorities.get(file1), priorities.get(file2));
+				if (ret == 0) {
+					ret = Long.compare(entries.get(file1).getLastAccessed(), entries.get(file2).getLastAccessed());
+				}
+				return ret;
+			}
+		});
+		CacheEntry sorted[] = new CacheEntry[files.length];
+		for (int i = 0; i < files.length; i++) {
+			sorted[i] = entries.get(files[i]);
+		}
+		return sorted;
 	}
 
 	/**
 	 *
 	 * @param files
 	 */
-	private static void printFileInfo(final File[] files) {
+	private static void printFileInfo(final CacheEntry[] files) {
 		Date date;
-		for (File file : files) {
-			date = new Date(file.lastModified());
-			System.out.println(_className + ".printFileInfo(): " + file.getName() + " " + date.toString());
+		for (CacheEntry file : files) {
+			date = new Date(file.getLastModified());
+			System.out.println(_className + ".printFileInfo(): " + file.getFile().getName() + " " + date.toString());
 		}
 
 	}
@@ -134,12 +195,15 @@ public class CleanDirectory {
 		// Command line options
 		Option helpOption = new Option("h", "help", false, "Monitor a directory and delete files in the directory when the directory reaches a certain size.");
 		Option fileOption = new Option("f", "file", true, "The name of the directory to monitor.  This argument is mandatory.");
+		Option evictionPolicyOption = new Option("e", "evict", true, "The eviction policy: " + EvictionPolicies.NAMES + ".  Defaults to MTIME.  This argument is optional.");
 		String directoryName = null;
+		EvictionPolicy evictionPolicy = new ModifiedTimeEvictionPolicy();
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
 		options.addOption(helpOption);
 		options.addOption(fileOption);
+		options.addOption(evictionPolicyOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -153,6 +217,14 @@ public class CleanDirectory {
 			if (commandLine.hasOption("f")) {
 				directoryName = commandLine.getOptionValue("f");
 			}
+			if (commandLine.hasOption("e")) {
+				try {
+					evictionPolicy = EvictionPolicies.forName(commandLine.getOptionValue("e").trim());
+				} catch (IllegalArgumentException ex) {
+					System.out.println(ex.getMessage());
+					System.exit(1);
+				}
+			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
 			System.exit(1);
@@ -166,6 +238,6 @@ public class CleanDirectory {
 
 		File file = new File(directoryName);
 
-		CleanDirectory.cleanDirectory(file);
+		CleanDirectory.cleanDirectory(file, evictionPolicy);
 	}
 }
\ No newline at end of file
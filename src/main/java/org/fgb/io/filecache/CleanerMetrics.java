@@ -0,0 +1,336 @@
+/*
+ * Class:   CleanerMetrics.java
+ * Born On: Oct, 2026
+ * Purpose: Count what a directory cleaner does, and expose it as an MBean.
+ */
+package org.fgb.io.filecache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fgb.io.filecache.util.LatencyHistogram;
+
+/**
+ * Class <code>CleanerMetrics</code> counts what a {@linkplain DirectoryCleaner} does, and reads its current state, for
+ * JMX.  The cleaner registers it as
+ * <code>org.fgb.io.filecache:type=DirectoryCleaner,directory=<i>directory</i></code> when it is started.
+ * <p>
+ * Recording is lock free, and nothing is allocated on the event thread.  The size and file count are read from the
+ * index when asked for.
+ * <p>
+ * The kernel event queue can not be observed, so how far events are behind is measured by the age of each file when
+ * its create event is handled (the event lag).  How far eviction is behind is measured from the first event that put
+ * the directory past a quota to the end of the eviction pass that brought it back (the eviction lag).
+ *
+ * @author Frederick Burkley
+ */
+public class CleanerMetrics implements CleanerMetricsMBean {
+
+	/**
+	 * How often, in seconds, the eviction rate is updated.
+	 */
+	static final long TICK_INTERVAL = 5;
+	/**
+	 * The eviction rate is averaged over about this many seconds.
+	 */
+	private static final double RATE_WINDOW = 60;
+	/**
+	 * The weight of the latest tick in the average eviction rate.
+	 */
+	private static final double RATE_ALPHA = 1 - Math.exp(-TICK_INTERVAL / RATE_WINDOW);
+	/**
+	 * The cleaner.
+	 */
+	private final DirectoryCleaner cleaner;
+	/**
+	 * The number of files evicted, the bytes they freed, and the files that could not be evicted.
+	 */
+	private final AtomicLong filesEvicted;
+	private final AtomicLong bytesFreed;
+	private final AtomicLong deleteFailures;
+	/**
+	 * The duration of the eviction passes that evicted files.
+	 */
+	private final LatencyHistogram evictionPasses;
+	/**
+	 * The time from the first event past a quota to the end of the next eviction pass.
+	 */
+	private final LatencyHistogram evictionLag;
+	/**
+	 * The number of file events handled, and the age of files when their create event is handled.
+	 */
+	private final AtomicLong eventCount;
+	private final LatencyHistogram eventLag;
+	/**
+	 * The number of times events were lost.
+	 */
+	private final AtomicLong resyncCount;
+	/**
+	 * The duration of the walks of the directory, and of the last one.
+	 */
+	private final LatencyHistogram scans;
+	private volatile long lastScanMillis;
+	/**
+	 * The time, from {@linkplain System#nanoTime()}, of the first event that put the directory past a quota since the
+	 * last eviction pass started, or 0.
+	 */
+	private final AtomicLong signalTime;
+	/**
+	 * The number of files evicted at the last tick.
+	 */
+	private long filesEvictedAtTick;
+	/**
+	 * The average number of files evicted per second.
+	 */
+	private volatile double evictionsPerSecond;
+
+	/**
+	 * Create the <code>CleanerMetrics</code> of a cleaner.
+	 *
+	 * @param cleaner The cleaner.
+	 */
+	CleanerMetrics(final DirectoryCleaner cleaner) {
+		this.cleaner = cleaner;
+		this.filesEvicted = new AtomicLong();
+		this.bytesFreed = new AtomicLong();
+		this.deleteFailures = new AtomicLong();
+		this.evictionPasses = new LatencyHistogram();
+		this.evictionLag = new LatencyHistogram();
+		this.eventCount = new AtomicLong();
+		this.eventLag = new LatencyHistogram();
+		this.resyncCount = new AtomicLong();
+		this.scans = new LatencyHistogram();
+		this.signalTime = new AtomicLong();
+	}
+
+	/**
+	 * Record a file event.
+	 *
+	 * @param lagMillis For a create event, the age of the file; otherwise a negative number.
+	 */
+	void recordEvent(final long lagMillis) {
+		this.eventCount.incrementAndGet();
+		if (lagMillis >= 0) {
+			this.eventLag.record(lagMillis);
+		}
+	}
+
+	/**
+	 * Record that events were lost.
+	 */
+	void recordResync() {
+		this.resyncCount.incrementAndGet();
+	}
+
+	/**
+	 * Record that an event put the directory past a quota.  Only the first such event before a pass counts.
+	 */
+	void recordSignal() {
+		long now = System.nanoTime();
+		this.signalTime.compareAndSet(0, now == 0 ? 1 : now);
+	}
+
+	/**
+	 * Start timing an eviction pass: the events that arrive from now on are handled by the next pass.
+	 *
+	 * @return The time of the first event that put the directory past a quota, or 0.
+	 */
+	long startPass() {
+		return this.signalTime.getAndSet(0);
+	}
+
+	/**
+	 * Record the end of an eviction pass.
+	 *
+	 * @param startNanos The time the pass started, from {@linkplain System#nanoTime()}.
+	 * @param signalNanos The value returned by {@linkplain #startPass()}.
+	 * @param evicted <code>true</code> if the pass evicted files.
+	 */
+	void recordPass(final long startNanos, final long signalNanos, final boolean evicted) {
+		long now = System.nanoTime();
+		if (evicted) {
+			this.evictionPasses.record(TimeUnit.NANOSECONDS.toMillis(now - startNanos));
+		}
+		if (signalNanos != 0) {
+			this.evictionLag.record(TimeUnit.NANOSECONDS.toMillis(now - signalNanos));
+		}
+	}
+
+	/**
+	 * Record the outcome of a batch of evictions.
+	 *
+	 * @param filesDeleted The number of files evicted.
+	 * @param bytes The number of bytes freed.
+	 * @param failures The number of files that could not be evicted.
+	 */
+	void recordEviction(final long filesDeleted, final long bytes, final long failures) {
+		this.filesEvicted.addAndGet(filesDeleted);
+		this.bytesFreed.addAndGet(bytes);
+		this.deleteFailures.addAndGet(failures);
+	}
+
+	/**
+	 * Record a walk of the directory.
+	 *
+	 * @param millis How long the walk took.
+	 */
+	void recordScan(final long millis) {
+		this.scans.record(millis);
+		this.lastScanMillis = millis;
+	}
+
+	/**
+	 * Update the eviction rate.  Called every {@value #TICK_INTERVAL} seconds, from one thread.
+	 */
+	void tick() {
+		long files = this.filesEvicted.get();
+		double rate = (double) (files - this.filesEvictedAtTick) / TICK_INTERVAL;
+		this.filesEvictedAtTick = files;
+		this.evictionsPerSecond += RATE_ALPHA * (rate - this.evictionsPerSecond);
+	}
+
+	@Override
+	public String getDirectory() {
+		return this.cleaner.getDirectory().getPath();
+	}
+
+	@Override
+	public long getSize() {
+		return this.cleaner.getSize();
+	}
+
+	@Override
+	public int getFileCount() {
+		return this.cleaner.getFileCount();
+	}
+
+	@Override
+	public long getHighWaterMark() {
+		return this.cleaner.getHighWaterMark();
+	}
+
+	@Override
+	public long getLowWaterMark() {
+		return this.cleaner.getLowWaterMark();
+	}
+
+	@Override
+	public boolean isAboveHighWaterMark() {
+		return this.cleaner.getSize() > this.cleaner.getHighWaterMark();
+	}
+
+	@Override
+	public boolean isEvictionPending() {
+		return this.cleaner.isEvictionPending();
+	}
+
+	@Override
+	public long getFilesEvicted() {
+		return this.filesEvicted.get();
+	}
+
+	@Override
+	public long getBytesFreed() {
+		return this.bytesFreed.get();
+	}
+
+	@Override
+	public long getDeleteFailures() {
+		return this.deleteFailures.get();
+	}
+
+	@Override
+	public double getEvictionsPerSecond() {
+		return this.evictionsPerSecond;
+	}
+
+	@Override
+	public long getEvictionPassCount() {
+		return this.evictionPasses.getCount();
+	}
+
+	@Override
+	public double getEvictionPassMeanMillis() {
+		return this.evictionPasses.getMean();
+	}
+
+	@Override
+	public long getEvictionPassP99Millis() {
+		return this.evictionPasses.getPercentile(99);
+	}
+
+	@Override
+	public long getEvictionPassMaxMillis() {
+		return this.evictionPasses.getMax();
+	}
+
+	@Override
+	public long[] getEvictionPassHistogram() {
+		return this.evictionPasses.getBuckets();
+	}
+
+	@Override
+	public long getEvictionLagP99Millis() {
+		return this.evictionLag.getPercentile(99);
+	}
+
+	@Override
+	public long getEvictionLagMaxMillis() {
+		return this.evictionLag.getMax();
+	}
+
+	@Override
+	public long[] getEvictionLagHistogram() {
+		return this.evictionLag.getBuckets();
+	}
+
+	@Override
+	public long getEventCount() {
+		return this.eventCount.get();
+	}
+
+	@Override
+	public long getEventLagP99Millis() {
+		return this.eventLag.getPercentile(99);
+	}
+
+	@Override
+	public long getEventLagMaxMillis() {
+		return this.eventLag.getMax();
+	}
+
+	@Override
+	public long getResyncCount() {
+		return this.resyncCount.get();
+	}
+
+	@Override
+	public long getScanCount() {
+		return this.scans.getCount();
+	}
+
+	@Override
+	public long getLastScanMillis() {
+		return this.lastScanMillis;
+	}
+
+	@Override
+	public long getScanMaxMillis() {
+		return this.scans.getMax();
+	}
+
+	@Override
+	public long getTrashPendingBytes() {
+		return this.cleaner.getTrashPendingBytes();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return this.cleaner.getFileCache().getAccessTracker().getHitCount();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return this.cleaner.getFileCache().getAccessTracker().getMissCount();
+	}
+}
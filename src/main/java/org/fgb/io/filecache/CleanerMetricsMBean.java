@@ -0,0 +1,164 @@
+/*
+ * Class:   CleanerMetricsMBean.java
+ * Born On: Oct, 2026
+ * Purpose: The management interface of the metrics of a directory cleaner.
+ */
+package org.fgb.io.filecache;
+
+/**
+ * The management interface of {@linkplain CleanerMetrics}: what a {@linkplain DirectoryCleaner} holds, and whether it
+ * keeps up with what is written to its directory.  Durations are in milliseconds; the histograms count durations in
+ * power of two buckets (see {@linkplain org.fgb.io.filecache.util.LatencyHistogram}).
+ *
+ * @author Frederick Burkley
+ */
+public interface CleanerMetricsMBean {
+
+	/**
+	 * @return The directory that is monitored.
+	 */
+	public String getDirectory();
+
+	/**
+	 * @return The total size of the files in the index, in bytes.
+	 */
+	public long getSize();
+
+	/**
+	 * @return The number of files in the index.
+	 */
+	public int getFileCount();
+
+	/**
+	 * @return The high water mark, in bytes.
+	 */
+	public long getHighWaterMark();
+
+	/**
+	 * @return The low water mark, in bytes.
+	 */
+	public long getLowWaterMark();
+
+	/**
+	 * @return <code>true</code> if the size is above the high water mark.
+	 */
+	public boolean isAboveHighWaterMark();
+
+	/**
+	 * @return <code>true</code> if an eviction pass is queued or running.
+	 */
+	public boolean isEvictionPending();
+
+	/**
+	 * @return The number of files evicted, by quota or by expiry.
+	 */
+	public long getFilesEvicted();
+
+	/**
+	 * @return The number of bytes freed by evictions.
+	 */
+	public long getBytesFreed();
+
+	/**
+	 * @return The number of files that could not be evicted.
+	 */
+	public long getDeleteFailures();
+
+	/**
+	 * @return The number of files evicted per second, averaged over about a minute.
+	 */
+	public double getEvictionsPerSecond();
+
+	/**
+	 * @return The number of eviction passes that evicted files.
+	 */
+	public long getEvictionPassCount();
+
+	/**
+	 * @return The mean duration of the eviction passes that evicted files.
+	 */
+	public double getEvictionPassMeanMillis();
+
+	/**
+	 * @return The 99th percentile of the duration of the eviction passes that evicted files.
+	 */
+	public long getEvictionPassP99Millis();
+
+	/**
+	 * @return The longest eviction pass.
+	 */
+	public long getEvictionPassMaxMillis();
+
+	/**
+	 * @return The histogram of the duration of the eviction passes that evicted files.
+	 */
+	public long[] getEvictionPassHistogram();
+
+	/**
+	 * @return The 99th percentile of the time from the event that put the directory past a quota to the end of the
+	 *   eviction pass that brought it back.
+	 */
+	public long getEvictionLagP99Millis();
+
+	/**
+	 * @return The longest time from the event that put the directory past a quota to the end of the eviction pass.
+	 */
+	public long getEvictionLagMaxMillis();
+
+	/**
+	 * @return The histogram of the time from the event that put the directory past a quota to the end of the eviction
+	 *   pass.
+	 */
+	public long[] getEvictionLagHistogram();
+
+	/**
+	 * @return The number of file events handled.
+	 */
+	public long getEventCount();
+
+	/**
+	 * @return The 99th percentile of the age of files when their create event is handled.  It grows when events queue
+	 *   up faster than they are handled.
+	 */
+	public long getEventLagP99Millis();
+
+	/**
+	 * @return The greatest age of a file when its create event was handled.
+	 */
+	public long getEventLagMaxMillis();
+
+	/**
+	 * @return The number of times events were lost and the index was resynchronised with the disk.
+	 */
+	public long getResyncCount();
+
+	/**
+	 * @return The number of walks of the directory: the initial load and every reconcile.
+	 */
+	public long getScanCount();
+
+	/**
+	 * @return The duration of the last walk of the directory.
+	 */
+	public long getLastScanMillis();
+
+	/**
+	 * @return The longest walk of the directory.
+	 */
+	public long getScanMaxMillis();
+
+	/**
+	 * @return The number of bytes waiting in the trash to be unlinked, or 0 if there is no trash.
+	 */
+	public long getTrashPendingBytes();
+
+	/**
+	 * @return The number of reads through the file cache that found their file.
+	 */
+	public long getCacheHits();
+
+	/**
+	 * @return The number of reads through the file cache that did not find their file.
+	 */
+	public long getCacheMisses();
+}
@@ -0,0 +1,27 @@
+/*
+ * Class:   DeleteProgressListener.java
+ * Born On: Oct, 2026
+ * Purpose: Receive progress reports while a batch of files is deleted.
+ */
+package org.fgb.io.filecache;
+
+/**
+ * A <code>DeleteProgressListener</code> receives progress reports from a {@linkplain BatchDeleter} while it deletes a
+ * batch of files.
+ * <p>
+ * Reports are made from the deleting threads, possibly concurrently, and not necessarily in order, so implementations
+ * must be thread safe and fast.
+ *
+ * @author Frederick Burkley
+ */
+public interface DeleteProgressListener {
+
+	/**
+	 * Called every {@linkplain BatchDeleter#PROGRESS_INTERVAL} files of a batch.
+	 *
+	 * @param filesDone The number of files of the batch that have been handled, whether they were deleted or not.
+	 * @param filesTotal The number of files in the batch.
+	 * @param bytesFreed The number of bytes freed so far.
+	 */
+	public void onProgress(int filesDone, int filesTotal, long bytesFreed);
+}
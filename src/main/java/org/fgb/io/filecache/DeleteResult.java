@@ -0,0 +1,109 @@
+/*
+ * Class:   DeleteResult.java
+ * Born On: Oct, 2026
+ * Purpose: The outcome of deleting a batch of files.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class <code>DeleteResult</code> is the outcome of deleting a batch of files with a {@linkplain BatchDeleter}.
+ * Instances are immutable.
+ *
+ * @author Frederick Burkley
+ */
+public class DeleteResult {
+
+	/**
+	 * The number of files deleted.
+	 */
+	private final int filesDeleted;
+	/**
+	 * The sum of the sizes of the files deleted.
+	 */
+	private final long bytesFreed;
+	/**
+	 * The number of files that were already gone.
+	 */
+	private final int filesMissing;
+	/**
+	 * The files that could not be deleted.
+	 */
+	private final List<File> failures;
+	/**
+	 * How long the batch took, in nanoseconds.
+	 */
+	private final long elapsedNanos;
+
+	/**
+	 * Create a <code>DeleteResult</code>.
+	 *
+	 * @param filesDeleted The number of files deleted.
+	 * @param bytesFreed The sum of the sizes of the files deleted, as tracked by the index.
+	 * @param filesMissing The number of files that were already gone.
+	 * @param failures The files that could not be deleted.
+	 * @param elapsedNanos How long the batch took, in nanoseconds.
+	 */
+	public DeleteResult(final int filesDeleted, final long bytesFreed, final int filesMissing, final List<File> failures, final long elapsedNanos) {
+		this.filesDeleted = filesDeleted;
+		this.bytesFreed = bytesFreed;
+		this.filesMissing = filesMissing;
+		this.failures = Collections.unmodifiableList(failures);
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Get the number of files deleted.
+	 *
+	 * @return The number of files deleted.
+	 */
+	public int getFilesDeleted() {
+		return this.filesDeleted;
+	}
+
+	/**
+	 * Get the sum of the sizes of the files deleted.
+	 *
+	 * @return The number of bytes freed.
+	 */
+	public long getBytesFreed() {
+		return this.bytesFreed;
+	}
+
+	/**
+	 * Get the number of files that were already gone when their turn came.  They count neither as deleted nor as
+	 * failures.
+	 *
+	 * @return The number of missing files.
+	 */
+	public int getFilesMissing() {
+		return this.filesMissing;
+	}
+
+	/**
+	 * Get the files that could not be deleted.
+	 *
+	 * @return The failed files, in no particular order.
+	 */
+	public List<File> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Get how long the batch took.
+	 *
+	 * @return The elapsed time, in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return this.elapsedNanos / 1000000L;
+	}
+
+	@Override
+	public String toString() {
+		return "Deleted " + this.filesDeleted + " files (" + this.bytesFreed + " bytes) in " + this.getElapsedMillis() + " ms, "
+				+ this.filesMissing + " missing, " + this.failures.size() + " failed";
+	}
+}
@@ -7,20 +7,64 @@ package org.fgb.io.filecache;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.ObjectName;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.comparator.LastModifiedFileComparator;
 import org.apache.commons.io.monitor.FileAlterationListener;
-import org.apache.commons.io.monitor.FileAlterationMonitor;
 import org.apache.commons.io.monitor.FileAlterationObserver;
 
+import org.fgb.io.filecache.impl.LeastRecentlyUsedEvictionPolicy;
+import org.fgb.io.filecache.impl.ModifiedTimeEvictionPolicy;
+import org.fgb.io.filecache.impl.WatchServiceDirectoryEventSource;
+import org.fgb.io.filecache.util.MBeans;
+
 /**
  * Class <code>DirectoryCleaner</code> will monitor a directory and delete files in the directory when the directory reaches a certain size.
  * <p>
  * This class will invoke a background thread that will perform the monitoring duties.
  * The background thread will stay alive until the user kills the process.
+ * <p>
+ * The event thread only keeps the index up to date and checks the quotas; files are deleted by an
+ * {@linkplain EvictionWorker} on a thread of its own, so a long eviction does not delay events.
+ * <p>
+ * By default, file system events come from a {@linkplain WatchServiceDirectoryEventSource}.
+ * Another {@linkplain DirectoryEventSource} can be passed to the constructor.
+ * <p>
+ * The index of the directory is persisted in a {@linkplain CacheManifest}.  On start, the cleaner loads the manifest
+ * (if there is one) instead of walking the directory, and reconciles it against the disk in the background.
+ * <p>
+ * The whole directory tree is cleaned: files are evicted in the order of the eviction policy whatever subdirectory they
+ * are in.  Subdirectories (for example the year/month/week directories made by {@linkplain
+ * org.fgb.io.filecache.util.DirectoryUtils#mkdir(File, int, int, int)}) can be given quotas of their own with
+ * {@linkplain #setSubtreeQuota(String, long, long)}.
+ * <p>
+ * Instead of (or as well as) a size quota, the cleaner can keep a percentage of the volume free, see
+ * {@linkplain #setFreeSpaceQuota(double, double)}.  Pass <code>Long.MAX_VALUE</code> as both water marks to clean on
+ * free space alone.
+ * <p>
+ * To clean many directories in one process, use a {@linkplain DirectoryCleanerService}, which shares one event source
+ * and one thread pool between all of its cleaners.
+ * <p>
+ * While it runs, the cleaner is registered on the platform MBean server; see {@linkplain CleanerMetrics}.
  *
  * @author Frederick Burkley
  */
@@ -35,21 +79,13 @@ public class DirectoryCleaner {
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
 	/**
-	 * An observer to observe file system events.
+	 * The source of file system events.
 	 */
-	private final FileAlterationObserver directoryAlterationObserver;
+	private final DirectoryEventSource directoryEventSource;
 	/**
 	 * A listener to listen for file system events.
 	 */
 	private final FileAlterationListener directoryAlterationListener;
-	/**
-	 * A runnable that spawns a monitoring thread triggering any registered FileAlterationObserver at a specified interval.
-	 */
-	private final FileAlterationMonitor directoryAlterationMonitor;
-	/**
-	 * The polling time (i.e. sleep time) for the FileAlterationMonitor
-	 */
-	private final int pollingTime;
 	/**
 	 * The maximum size of the directory.
 	 *
@@ -63,9 +99,167 @@ public class DirectoryCleaner {
 	 */
 	private static final float PERCENT_OF_MAXIMUM_DIRECTORY_SIZE = 0.25f;
 	/**
-	 *
+	 * The default high water mark.  Directory cleaning activity will kick in when the size of the directory exceeds the high water mark.
+	 */
+	public static final long DIRECTORY_HIGH_WATER_MARK = (long) (MAXIMUM_DIRECTORY_SIZE * PERCENT_OF_MAXIMUM_DIRECTORY_SIZE);
+	/**
+	 * By default, the low water mark is this fraction of the high water mark.
+	 */
+	private static final float PERCENT_OF_HIGH_WATER_MARK = 0.8f;
+	/**
+	 * The default low water mark.  Once cleaning has kicked in, files are deleted until the size of the directory is at or below the low water mark.
+	 */
+	public static final long DIRECTORY_LOW_WATER_MARK = (long) (DIRECTORY_HIGH_WATER_MARK * PERCENT_OF_HIGH_WATER_MARK);
+	/**
+	 * How often, in seconds, the running size of the directory is re-checked against the disk.
+	 */
+	private static final long RECONCILE_INTERVAL = 300;
+	/**
+	 * How often, in seconds, the changes buffered for the manifest journal are written.
+	 */
+	private static final long JOURNAL_FLUSH_INTERVAL = 1;
+	/**
+	 * How often, in seconds, the index is swept for files that the eviction policy says have expired.
+	 */
+	private static final long EXPIRY_INTERVAL = 60;
+	/**
+	 * How often, in seconds, the reads recorded by the {@linkplain FileCache} are moved into the index.
+	 */
+	private static final long ACCESS_DRAIN_INTERVAL = 1;
+	/**
+	 * How often, in seconds, the free space of the volume is checked when no file is being written.
+	 */
+	private static final long FREE_SPACE_CHECK_INTERVAL = 1;
+	/**
+	 * A quota on a subtree of the directory.
+	 */
+	private static class Quota {
+
+		private final long highWaterMark;
+		private final long lowWaterMark;
+
+		Quota(final long highWaterMark, final long lowWaterMark) {
+			this.highWaterMark = highWaterMark;
+			this.lowWaterMark = lowWaterMark;
+		}
+	}
+	/**
+	 * The files that may be deleted by the cleaner.
+	 */
+	private static final FileFilter _EVICTABLE_FILES = new FileFilter() {
+
+		@Override
+		public boolean accept(File pathname) {
+			String name = pathname.getName();
+			if (name.startsWith("FGB") && !name.endsWith(".lck")) {
+				return true;
+			} else {
+				return false;
+			}
+		}
+	};
+	/**
+	 * The directory to monitor.
+	 */
+	private final File directory;
+	/**
+	 * A running account of the files in the directory and of their total size.
+	 */
+	private final CacheIndex cacheIndex;
+	/**
+	 * The persistent copy of the index.
+	 */
+	private final CacheManifest cacheManifest;
+	/**
+	 * Records the reads made through {@linkplain #fileCache}.
+	 */
+	private final AccessTracker accessTracker;
+	/**
+	 * The read path of the directory.
+	 */
+	private final FileCache fileCache;
+	/**
+	 * Directory cleaning activity will kick in when the size of the directory exceeds the high water mark.
+	 */
+	private final long highWaterMark;
+	/**
+	 * Once cleaning has kicked in, files are deleted until the size of the directory is at or below the low water mark.
+	 */
+	private final long lowWaterMark;
+	/**
+	 * The quotas of subtrees of the directory, keyed by subdirectory.
+	 */
+	private final Map<File, Quota> subtreeQuotas;
+	/**
+	 * Keeps a percentage of the volume free, or <code>null</code>.
+	 */
+	private volatile FreeSpaceQuota freeSpaceQuota;
+	/**
+	 * Runs the periodic work of the cleaner: reconciling, journal flushes, expiry and access drains.
+	 */
+	private ScheduledExecutorService reconcileExecutor;
+	/**
+	 * <code>true</code> if the event source and the executor belong to a {@linkplain DirectoryCleanerService}, and are
+	 * shared with other cleaners.
+	 */
+	private final boolean managed;
+	/**
+	 * The periodic tasks of this cleaner, cancelled on stop.
+	 */
+	private final List<ScheduledFuture<?>> scheduledTasks;
+	/**
+	 * The periodic sweep for expired files, or <code>null</code> if it is not scheduled.  Guarded by
+	 * <code>scheduledTasks</code>.
+	 */
+	private ScheduledFuture<?> expiryTask;
+	/**
+	 * Runs the eviction passes: a thread of its own, or the shared eviction executor of a managed cleaner.
+	 */
+	private ExecutorService evictionExecutor;
+	/**
+	 * Deletes the victims of an eviction pass.
+	 */
+	private BatchDeleter batchDeleter;
+	/**
+	 * <code>true</code> if {@linkplain #batchDeleter} is shared with other cleaners.
+	 */
+	private boolean sharedBatchDeleter;
+	/**
+	 * The number of deletes in flight, for a deleter of our own.
+	 */
+	private int deleteParallelism;
+	/**
+	 * <code>true</code> if victims are renamed into a {@linkplain Trash} rather than deleted.
+	 */
+	private boolean trashEnabled;
+	/**
+	 * Runs the reaper of the trash, if it is shared with other cleaners, or <code>null</code>.
+	 */
+	private Executor reaperExecutor;
+	/**
+	 * The trash, or <code>null</code>.  Created when the cleaner is started.
+	 */
+	private Trash trash;
+	/**
+	 * Runs eviction passes off the event thread.
+	 */
+	private EvictionWorker evictionWorker;
+	/**
+	 * The subtrees that went past their quota since the last eviction pass.
+	 */
+	private final Set<File> subtreesOverQuota;
+	/**
+	 * Told when a file is created or grows, or <code>null</code>.
+	 */
+	private volatile Runnable growthListener;
+	/**
+	 * What the cleaner has done, for JMX.
+	 */
+	private final CleanerMetrics metrics;
+	/**
+	 * The name {@linkplain #metrics} is registered under, or <code>null</code>.
 	 */
-	private static final long DIRECTORY_HIGH_WATER_MARK = (long) (MAXIMUM_DIRECTORY_SIZE * PERCENT_OF_MAXIMUM_DIRECTORY_SIZE);
+	private ObjectName metricsName;
 
 	/**
 	 * Create a <code>DirectoryCleaner</code>.  A <code>DirectoryCleaner</code> will monitor a directory
@@ -74,15 +268,82 @@ public class DirectoryCleaner {
 	 * @param directoryName The directory to monitor.
 	 */
 	public DirectoryCleaner(final String directoryName) {
-		System.out.println(_className + ".DirectoryCleaner(): MAXIMUM_DIRECTORY_SIZE = " + MAXIMUM_DIRECTORY_SIZE);
-		System.out.println(_className + ".DirectoryCleaner(): DIRECTORY_HIGH_WATER_MARK = " + DIRECTORY_HIGH_WATER_MARK);
-		File directory = new File(directoryName);
-		this.pollingTime = 100;  // milliseconds
-		this.directoryAlterationObserver = new FileAlterationObserver(directory);
+		this(directoryName, DIRECTORY_HIGH_WATER_MARK, DIRECTORY_LOW_WATER_MARK);
+	}
+
+	/**
+	 * Create a <code>DirectoryCleaner</code>.  A <code>DirectoryCleaner</code> will monitor a directory
+	 * and delete files in the directory when the size of the directory exceeds the high water mark
+	 * <code>highWaterMark</code>.  Files are then deleted, in one batch, until the size of the directory
+	 * is at or below the low water mark <code>lowWaterMark</code>.
+	 *
+	 * @param directoryName The directory to monitor.
+	 * @param highWaterMark The high water mark, in bytes.
+	 * @param lowWaterMark The low water mark, in bytes.
+	 * @throws IllegalArgumentException If the low water mark is negative or greater than the high water mark.
+	 */
+	public DirectoryCleaner(final String directoryName, final long highWaterMark, final long lowWaterMark) throws IllegalArgumentException {
+		this(directoryName, highWaterMark, lowWaterMark, new WatchServiceDirectoryEventSource());
+	}
+
+	/**
+	 * Create a <code>DirectoryCleaner</code> that receives file system events from <code>directoryEventSource</code>.
+	 * The cleaner starts and stops the event source.
+	 *
+	 * @param directoryName The directory to monitor.
+	 * @param highWaterMark The high water mark, in bytes.
+	 * @param lowWaterMark The low water mark, in bytes.
+	 * @param directoryEventSource The source of file system events.
+	 * @throws IllegalArgumentException If the low water mark is negative or greater than the high water mark.
+	 */
+	public DirectoryCleaner(final String directoryName, final long highWaterMark, final long lowWaterMark, final DirectoryEventSource directoryEventSource) throws IllegalArgumentException {
+		this(directoryName, highWaterMark, lowWaterMark, directoryEventSource, null, null);
+	}
+
+	/**
+	 * Create a <code>DirectoryCleaner</code> that is managed by a {@linkplain DirectoryCleanerService}.  If
+	 * <code>executor</code> is not <code>null</code>, the event source and the executors are shared: the cleaner neither
+	 * starts nor stops them, and it registers no shutdown hook of its own.
+	 *
+	 * @param directoryName The directory to monitor.
+	 * @param highWaterMark The high water mark, in bytes.
+	 * @param lowWaterMark The low water mark, in bytes.
+	 * @param directoryEventSource The source of file system events.
+	 * @param executor The shared executor of the periodic work, or <code>null</code> for a cleaner that runs on its own.
+	 * @param evictionExecutor The shared executor of the eviction passes, so that they do not wait behind the periodic
+	 *   work.  Ignored if <code>executor</code> is <code>null</code>.
+	 * @throws IllegalArgumentException If the low water mark is negative or greater than the high water mark.
+	 */
+	DirectoryCleaner(final String directoryName, final long highWaterMark, final long lowWaterMark, final DirectoryEventSource directoryEventSource,
+			final ScheduledExecutorService executor, final ExecutorService evictionExecutor) throws IllegalArgumentException {
+		if (lowWaterMark < 0 || lowWaterMark > highWaterMark) {
+			throw new IllegalArgumentException(_className + ": The low water mark " + lowWaterMark
+					+ " must be between 0 and the high water mark " + highWaterMark + ".");
+		}
+		if (_logger.isLoggable(Level.FINE)) {
+			_logger.fine(directoryName + ": High water mark " + highWaterMark + " bytes, low water mark " + lowWaterMark + " bytes");
+		}
+		this.highWaterMark = highWaterMark;
+		this.lowWaterMark = lowWaterMark;
+		this.directory = new File(directoryName);
+		this.cacheIndex = new CacheIndex(this.directory, _EVICTABLE_FILES);
+		this.cacheManifest = new CacheManifest(this.directory);
+		this.cacheIndex.setManifest(this.cacheManifest);
+		this.accessTracker = new AccessTracker();
+		this.fileCache = new FileCache(this.directory, this.accessTracker);
+		this.directoryEventSource = directoryEventSource;
 		this.directoryAlterationListener = new MyFileAlterationListener();
-		this.directoryAlterationObserver.addListener(this.directoryAlterationListener);
-		this.directoryAlterationMonitor = new FileAlterationMonitor(this.pollingTime);
-		this.directoryAlterationMonitor.addObserver(this.directoryAlterationObserver);
+		this.reconcileExecutor = executor;
+		this.managed = executor != null;
+		this.evictionExecutor = this.managed ? evictionExecutor : null;
+		this.scheduledTasks = new ArrayList<ScheduledFuture<?>>();
+		this.subtreeQuotas = new ConcurrentHashMap<File, Quota>();
+		this.deleteParallelism = BatchDeleter.DEFAULT_PARALLELISM;
+		this.subtreesOverQuota = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+		this.metrics = new CleanerMetrics(this);
+		if (this.managed) {
+			return;
+		}
 		Runtime runtime = Runtime.getRuntime();
 		runtime.addShutdownHook(new Thread(new Runnable() {
 
@@ -98,6 +359,189 @@ public class DirectoryCleaner {
 
 	}
 
+	/**
+	 * Set the policy that decides which files are deleted first.  The default is {@linkplain ModifiedTimeEvictionPolicy}.
+	 * If the policy expires files (see {@linkplain EvictionPolicy#expires()}), the files that have expired are deleted
+	 * every {@value #EXPIRY_INTERVAL} seconds, whatever the size of the directory; otherwise there is no sweep.
+	 *
+	 * @param evictionPolicy The eviction policy.
+	 */
+	public void setEvictionPolicy(final EvictionPolicy evictionPolicy) {
+		this.cacheIndex.setEvictionPolicy(evictionPolicy);
+		if (evictionPolicy.expires()) {
+			this.scheduleExpiry();
+		}
+	}
+
+	/**
+	 * Give a subtree of the directory a quota of its own.  When the size of the subtree exceeds
+	 * <code>highWaterMark</code>, files under it are deleted, in the order of the eviction policy, until its size is at
+	 * or below <code>lowWaterMark</code>.  The quota of the whole directory still applies.
+	 *
+	 * @param subdirectoryName The root of the subtree, relative to the directory.
+	 * @param highWaterMark The high water mark of the subtree, in bytes.
+	 * @param lowWaterMark The low water mark of the subtree, in bytes.
+	 * @throws IllegalArgumentException If the low water mark is negative or greater than the high water mark.
+	 */
+	public void setSubtreeQuota(final String subdirectoryName, final long highWaterMark, final long lowWaterMark) throws IllegalArgumentException {
+		if (lowWaterMark < 0 || lowWaterMark > highWaterMark) {
+			throw new IllegalArgumentException(_className + ": The low water mark " + lowWaterMark
+					+ " must be between 0 and the high water mark " + highWaterMark + ".");
+		}
+		this.subtreeQuotas.put(new File(this.directory, subdirectoryName), new Quota(highWaterMark, lowWaterMark));
+	}
+
+	/**
+	 * Keep a percentage of the volume that holds the directory free.  When the usable space of the volume drops below
+	 * <code>minimumFreePercent</code>, files are deleted, in the order of the eviction policy, until it is back at
+	 * <code>targetFreePercent</code>.  The space is checked as files are written, and every
+	 * {@value #FREE_SPACE_CHECK_INTERVAL} seconds to catch space used by other processes.
+	 *
+	 * @param minimumFreePercent Cleaning kicks in when the usable space is below this percentage of the volume.
+	 * @param targetFreePercent The percentage of the volume to free once cleaning has kicked in.
+	 * @throws IOException If the volume can not be found.
+	 * @throws IllegalArgumentException If the percentages are not between 0 and 100, or the target is below the minimum.
+	 * @see FreeSpaceQuota
+	 */
+	public void setFreeSpaceQuota(final double minimumFreePercent, final double targetFreePercent) throws IOException {
+		this.freeSpaceQuota = FreeSpaceQuota.forDirectory(this.directory, minimumFreePercent, targetFreePercent);
+	}
+
+	/**
+	 * Set the number of files deleted at once when the cleaner evicts.  The default is
+	 * {@value BatchDeleter#DEFAULT_PARALLELISM}.  Must be called before the cleaner is started.
+	 *
+	 * @param deleteParallelism The number of deletes in flight.
+	 * @see BatchDeleter
+	 */
+	public void setDeleteParallelism(final int deleteParallelism) {
+		this.deleteParallelism = deleteParallelism;
+	}
+
+	/**
+	 * Evict files by renaming them into a trash directory on the same volume, and unlink them later on a low priority
+	 * thread, so that the time an eviction takes does not depend on the size of the files.  Must be called before the
+	 * cleaner is started.
+	 *
+	 * @param trashEnabled <code>true</code> to evict to the trash.
+	 * @see Trash
+	 */
+	public void setTrashEnabled(final boolean trashEnabled) {
+		this.trashEnabled = trashEnabled;
+	}
+
+	/**
+	 * Reap the trash on an executor that is shared with other cleaners, rather than on a thread of our own.
+	 *
+	 * @param reaperExecutor The shared executor.
+	 */
+	void setReaperExecutor(final Executor reaperExecutor) {
+		this.reaperExecutor = reaperExecutor;
+	}
+
+	/**
+	 * Use a deleter that is shared with other cleaners, rather than one of our own.  The cleaner does not close it.
+	 *
+	 * @param batchDeleter The shared deleter.
+	 */
+	void setBatchDeleter(final BatchDeleter batchDeleter) {
+		this.batchDeleter = batchDeleter;
+		this.sharedBatchDeleter = true;
+	}
+
+	/**
+	 * Get the directory that is monitored.
+	 *
+	 * @return The directory.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Get the size of the directory, from the index.
+	 *
+	 * @return The total size of the files in the directory, in bytes.
+	 */
+	public long getSize() {
+		return this.cacheIndex.getTotalSize();
+	}
+
+	/**
+	 * Get the number of files in the directory, from the index.
+	 *
+	 * @return The number of files in the directory.
+	 */
+	public int getFileCount() {
+		return this.cacheIndex.getFileCount();
+	}
+
+	/**
+	 * Get the high water mark.
+	 *
+	 * @return The high water mark, in bytes.
+	 */
+	public long getHighWaterMark() {
+		return this.highWaterMark;
+	}
+
+	/**
+	 * Get the low water mark.
+	 *
+	 * @return The low water mark, in bytes.
+	 */
+	public long getLowWaterMark() {
+		return this.lowWaterMark;
+	}
+
+	/**
+	 * Get the metrics of the cleaner.  They are also registered on the platform MBean server while the cleaner runs.
+	 *
+	 * @return The metrics.
+	 */
+	public CleanerMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Whether an eviction pass is queued or running.
+	 *
+	 * @return <code>true</code> if an eviction pass is queued or running.
+	 */
+	boolean isEvictionPending() {
+		EvictionWorker worker = this.evictionWorker;
+		return worker != null && worker.isBusy();
+	}
+
+	/**
+	 * Get the number of bytes waiting in the trash to be unlinked.
+	 *
+	 * @return The number of bytes, or 0 if there is no trash.
+	 */
+	long getTrashPendingBytes() {
+		Trash current = this.trash;
+		return current == null ? 0 : current.getPendingBytes();
+	}
+
+	/**
+	 * Set a listener that is told, on the event thread, whenever a file in the directory is created or changed.
+	 *
+	 * @param growthListener The listener, or <code>null</code>.
+	 */
+	void setGrowthListener(final Runnable growthListener) {
+		this.growthListener = growthListener;
+	}
+
+	/**
+	 * Get the read path of the directory.  Files read through it are tracked, so that eviction policies that depend on
+	 * accesses (see {@linkplain LeastRecentlyUsedEvictionPolicy}) work even if the volume is mounted <code>noatime</code>.
+	 *
+	 * @return The file cache.
+	 */
+	public FileCache getFileCache() {
+		return this.fileCache;
+	}
+
 	/**
 	 *
 	 * @param files
@@ -106,37 +550,379 @@ public class DirectoryCleaner {
 		Date date;
 		for (File file : files) {
 			date = new Date(file.lastModified());
-			System.out.println(_className + ".printFileInfo(): " + file.getName() + " " + date.toString());
+			_logger.fine(file.getName() + " " + date.toString());
 		}
 
 	}
 
 	/**
-	 * Start the <code>DirectoryMonitor</code>.
+	 * Start the <code>DirectoryCleaner</code>.
 	 *
 	 * @throws Exception If an <code>Exception</code> occurs.
 	 */
 	public void start() throws Exception {
-		System.out.println(_className + ".start()...");
-		this.directoryAlterationObserver.initialize();
-		this.directoryAlterationMonitor.start();
+		_logger.info("Starting " + this.directory);
+		final boolean loaded = this.loadIndex();
+		_logger.info(this.directory + ": " + this.cacheIndex.getFileCount() + " files, " + this.cacheIndex.getTotalSize() + " bytes");
+		this.cacheManifest.open();
+		if (!this.managed) {
+			this.reconcileExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, _className + ".reconcile");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			this.evictionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, _className + ".evict");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		if (!this.sharedBatchDeleter) {
+			this.batchDeleter = new BatchDeleter(this.deleteParallelism);
+		}
+		if (this.trashEnabled) {
+			final Trash newTrash = this.reaperExecutor == null ? new Trash(this.directory) : new Trash(this.directory, this.reaperExecutor);
+			newTrash.open();
+			if (this.freeSpaceQuota != null) {
+				this.freeSpaceQuota.setReclaimableSpace(new LongSupplier() {
+
+					@Override
+					public long getAsLong() {
+						return newTrash.getPendingBytes();
+					}
+				});
+			}
+			this.trash = newTrash;
+		}
+		this.evictionWorker = new EvictionWorker(this.evictionExecutor, new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.clean();
+			}
+		});
+		this.directoryEventSource.addDirectory(this.directory, this.directoryAlterationListener);
+		if (!this.managed) {
+			this.directoryEventSource.start();
+		}
+		this.reconcileExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				if (loaded) {
+					// The manifest may be out of date; check it now rather than at the first reconcile interval.
+					DirectoryCleaner.this.reconcile();
+				} else {
+					DirectoryCleaner.this.checkpoint();
+				}
+			}
+		});
+		this.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.reconcile();
+			}
+		}, RECONCILE_INTERVAL);
+		this.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.cacheManifest.flush();
+			}
+		}, JOURNAL_FLUSH_INTERVAL);
+		if (this.cacheIndex.getEvictionPolicy().expires()) {
+			this.scheduleExpiry();
+		}
+		this.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.accessTracker.drainTo(DirectoryCleaner.this.cacheIndex);
+			}
+		}, ACCESS_DRAIN_INTERVAL);
+		this.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.checkFreeSpace();
+			}
+		}, FREE_SPACE_CHECK_INTERVAL);
+		this.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleaner.this.metrics.tick();
+			}
+		}, CleanerMetrics.TICK_INTERVAL);
+		this.metricsName = MBeans.register(this.metrics, MBeans.DOMAIN + ":type=DirectoryCleaner,directory="
+				+ ObjectName.quote(this.directory.getAbsolutePath()));
+	}
+
+	/**
+	 * Run a task every <code>interval</code> seconds, until the cleaner is stopped.
+	 *
+	 * @param task The task.
+	 * @param interval The delay between runs, in seconds.
+	 */
+	private void schedule(final Runnable task, final long interval) {
+		synchronized (this.scheduledTasks) {
+			this.scheduledTasks.add(this.reconcileExecutor.scheduleWithFixedDelay(task, interval, interval, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Sweep the index for expired files every {@value #EXPIRY_INTERVAL} seconds, until the cleaner is stopped.  Does
+	 * nothing if the cleaner is not running, or if the sweep is already scheduled.
+	 */
+	private void scheduleExpiry() {
+		synchronized (this.scheduledTasks) {
+			// The other periodic tasks are scheduled whenever the cleaner runs.
+			if (this.scheduledTasks.isEmpty() || this.expiryTask != null) {
+				return;
+			}
+			this.expiryTask = this.reconcileExecutor.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					DirectoryCleaner.this.expire();
+				}
+			}, EXPIRY_INTERVAL, EXPIRY_INTERVAL, TimeUnit.SECONDS);
+			this.scheduledTasks.add(this.expiryTask);
+		}
+	}
+
+	/**
+	 * Seed the index from the manifest or, if there is no usable manifest, by walking the directory.
+	 *
+	 * @return <code>true</code> if the index was seeded from the manifest.
+	 */
+	private boolean loadIndex() throws IOException {
+		try {
+			Map<File, CacheEntry> entries = this.cacheManifest.load();
+			if (entries != null) {
+				this.cacheIndex.load(entries.values());
+				return true;
+			}
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, "Unable to read the manifest of " + this.directory + ", rebuilding it", ex);
+			this.cacheManifest.reset();
+		}
+		long startTime = System.currentTimeMillis();
+		this.cacheIndex.load();
+		this.metrics.recordScan(System.currentTimeMillis() - startTime);
+		return false;
+	}
+
+	/**
+	 * Re-check the running size of the directory against the disk, then write a new manifest snapshot.
+	 */
+	private void reconcile() {
+		long startTime = System.currentTimeMillis();
+		try {
+			this.cacheIndex.reconcile();
+			this.metrics.recordScan(System.currentTimeMillis() - startTime);
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, null, ex);
+		}
+		this.checkpoint();
+	}
+
+	/**
+	 * Write a new manifest snapshot.
+	 */
+	private void checkpoint() {
+		try {
+			this.cacheManifest.checkpoint(this.cacheIndex);
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, null, ex);
+		}
+	}
+
+	/**
+	 * Whether the directory, a subtree that holds <code>file</code>, or the volume is past its quota.  Subtrees that are
+	 * past their quota are remembered for the next eviction pass.  This only reads sizes from the index, and estimates
+	 * the free space from the last sample, so it is cheap enough for the event thread: O(depth).
+	 *
+	 * @param file The file that was created or changed.
+	 * @return <code>true</code> if an eviction pass is needed.
+	 */
+	private boolean isOverQuota(final File file) {
+		long sizeOfDirectory = this.cacheIndex.getTotalSize();
+		boolean overQuota = sizeOfDirectory > this.highWaterMark;
+		if (!this.subtreeQuotas.isEmpty()) {
+			for (File parent = file.getParentFile(); parent != null && !parent.equals(this.directory); parent = parent.getParentFile()) {
+				Quota quota = this.subtreeQuotas.get(parent);
+				if (quota != null && this.cacheIndex.getDirectorySize(parent) > quota.highWaterMark) {
+					this.subtreesOverQuota.add(parent);
+					overQuota = true;
+				}
+			}
+		}
+		FreeSpaceQuota quota = this.freeSpaceQuota;
+		if (quota != null && quota.isShortOfSpace(sizeOfDirectory)) {
+			overQuota = true;
+		}
+		return overQuota;
+	}
+
+	/**
+	 * An eviction pass, run by the {@linkplain EvictionWorker}.  Brings the subtrees that went past their quota, the
+	 * directory and the volume back within their quotas.  The files are taken from the index, in the order of the
+	 * eviction policy, so the directory is neither listed nor sorted.
+	 */
+	private void clean() {
+		if (_logger.isLoggable(Level.FINER)) {
+			_logger.entering(_className, "clean");
+		}
+		long signalTime = this.metrics.startPass();
+		long startTime = System.nanoTime();
+		long freed = 0;
+		Iterator<File> iterator = this.subtreesOverQuota.iterator();
+		while (iterator.hasNext()) {
+			File subdirectory = iterator.next();
+			iterator.remove();
+			Quota quota = this.subtreeQuotas.get(subdirectory);
+			long sizeOfSubtree = this.cacheIndex.getDirectorySize(subdirectory);
+			if (quota != null && sizeOfSubtree > quota.highWaterMark) {
+				freed += this.deleteFiles(this.cacheIndex.pollVictims(subdirectory, sizeOfSubtree - quota.lowWaterMark));
+			}
+		}
+		long sizeOfDirectory = this.cacheIndex.getTotalSize();
+		if (sizeOfDirectory > this.highWaterMark) {
+			freed += this.evict(sizeOfDirectory - this.lowWaterMark);
+		}
+		FreeSpaceQuota quota = this.freeSpaceQuota;
+		if (quota != null) {
+			long bytesToFree = quota.getBytesToFree(this.cacheIndex.getTotalSize());
+			if (bytesToFree > 0) {
+				freed += this.evict(bytesToFree);
+				quota.sample(this.cacheIndex.getTotalSize());
+			}
+		}
+		this.metrics.recordPass(startTime, signalTime, freed > 0);
+		if (freed > 0 && _logger.isLoggable(Level.FINE)) {
+			_logger.fine(this.directory + ": Freed " + freed + " bytes in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+		}
+		if (_logger.isLoggable(Level.FINER)) {
+			_logger.exiting(_className, "clean");
+		}
+	}
+
+	/**
+	 * Signal the eviction worker if the volume is short of space.  Run periodically, to catch space used by other
+	 * processes; this samples the volume.
+	 */
+	private void checkFreeSpace() {
+		FreeSpaceQuota quota = this.freeSpaceQuota;
+		if (quota != null && quota.getBytesToFree(this.cacheIndex.getTotalSize()) > 0) {
+			this.evictionWorker.signal();
+		}
+	}
+
+	/**
+	 * Delete the files that the eviction policy says have expired.
+	 */
+	private void expire() {
+		List<CacheEntry> expired = this.cacheIndex.pollExpired(System.currentTimeMillis());
+		if (!expired.isEmpty()) {
+			this.deleteFiles(expired);
+		}
+	}
+
+	/**
+	 * Delete files that were taken from the index.
+	 *
+	 * @param victims The files to delete.
+	 * @return The number of bytes freed.
+	 */
+	private long deleteFiles(final List<CacheEntry> victims) {
+		if (victims.isEmpty()) {
+			return 0;
+		}
+		long freed = 0;
+		List<CacheEntry> toDelete = victims;
+		if (this.trash != null) {
+			DeleteResult result = this.trash.moveToTrash(victims);
+			if (_logger.isLoggable(Level.FINE)) {
+				_logger.fine(this.directory + ": To the trash: " + result);
+			}
+			freed += result.getBytesFreed();
+			this.metrics.recordEviction(result.getFilesDeleted(), result.getBytesFreed(), 0);
+			toDelete = new ArrayList<CacheEntry>();
+			if (!result.getFailures().isEmpty()) {
+				Set<File> failures = new HashSet<File>(result.getFailures());
+				for (CacheEntry entry : victims) {
+					if (failures.contains(entry.getFile())) {
+						toDelete.add(entry);
+					}
+				}
+			}
+		}
+		if (!toDelete.isEmpty()) {
+			DeleteResult result = this.batchDeleter.delete(toDelete);
+			if (_logger.isLoggable(Level.FINE)) {
+				_logger.fine(this.directory + ": " + result);
+			}
+			freed += result.getBytesFreed();
+			this.metrics.recordEviction(result.getFilesDeleted(), result.getBytesFreed(), result.getFailures().size());
+		}
+		return freed;
+	}
 
+	/**
+	 * Delete files, in the order of the eviction policy, until at least <code>bytesToFree</code> bytes have been freed
+	 * or there is nothing left to evict.
+	 *
+	 * @param bytesToFree The number of bytes to free.
+	 * @return The number of bytes freed.
+	 */
+	long evict(final long bytesToFree) {
+		return this.deleteFiles(this.cacheIndex.pollVictims(bytesToFree));
 	}
 
 	/**
-	 * Stop the <code>DirectoryMonitor</code>.
+	 * Stop the <code>DirectoryCleaner</code>.
 	 *
 	 * @throws Exception If an <code>Exception</code> occurs.
 	 */
 	public void stop() throws Exception {
-		System.out.println(_className + ".stop()...");
-		this.directoryAlterationObserver.removeListener(this.directoryAlterationListener);
-		this.directoryAlterationObserver.destroy();
-		this.directoryAlterationMonitor.removeObserver(this.directoryAlterationObserver);
-		this.directoryAlterationMonitor.stop();
+		_logger.info("Stopping " + this.directory);
+		MBeans.unregister(this.metricsName);
+		this.metricsName = null;
+		synchronized (this.scheduledTasks) {
+			for (ScheduledFuture<?> task : this.scheduledTasks) {
+				task.cancel(false);
+			}
+			this.scheduledTasks.clear();
+			this.expiryTask = null;
+		}
+		if (!this.managed && this.reconcileExecutor != null) {
+			this.reconcileExecutor.shutdownNow();
+			this.evictionExecutor.shutdownNow();
+		}
+		this.directoryEventSource.removeDirectory(this.directory);
+		if (!this.sharedBatchDeleter && this.batchDeleter != null) {
+			this.batchDeleter.close();
+		}
+		if (this.trash != null) {
+			this.trash.close();
+		}
+		if (!this.managed) {
+			this.directoryEventSource.stop();
+		}
+		this.cacheManifest.close();
 	}
 
-	class MyFileAlterationListener implements FileAlterationListener {
+	class MyFileAlterationListener implements DirectoryResyncListener {
 
 		/**
 		 * The name of this class.
@@ -155,7 +941,9 @@ public class DirectoryCleaner {
 
 		@Override
 		public void onDirectoryChange(File file) {
-			System.out.println(this.getClass().getName() + ".onDirectoryChange(): file.getName()=" + file.getName());
+			if (_logger.isLoggable(Level.FINE)) {
+				_logger.fine("Directory changed: " + file);
+			}
 		}
 
 		@Override
@@ -166,34 +954,25 @@ public class DirectoryCleaner {
 		@Override
 		public void onFileCreate(File file) {
 //			System.out.println(this.getClass().getName() + ".onFileCreate(): file.getName()=" + file.getName());
-			if (!file.getName().endsWith(".lck")) {
-				File directory = file.getParentFile();
-				if (directory != null) {
-					try {
-						long sizeOfDirectory = FileUtils.sizeOfDirectory(directory); // Can throw IllegalArgumentException
-						if (sizeOfDirectory > DIRECTORY_HIGH_WATER_MARK) {
-							long startTime = System.currentTimeMillis();
-							do {
-								this.checkAndCleanDirectory(directory);
-							} while ((sizeOfDirectory = FileUtils.sizeOfDirectory(directory)) > DIRECTORY_HIGH_WATER_MARK);
-							long stopTime = System.currentTimeMillis();
-							System.out.println(this.getClass().getName() + ".onFileCreate(): Elapsed time = " + (stopTime - startTime));
-						}
-					} catch (IllegalArgumentException ie) {
-						System.out.println(_className + ": " + ie.getMessage());
-					}
-				}
-			}
+			CacheEntry entry = DirectoryCleaner.this.cacheIndex.add(file);
+			DirectoryCleaner.this.metrics.recordEvent(entry == null ? -1 : Math.max(System.currentTimeMillis() - entry.getLastModified(), 0));
+			this.checkQuotas(file);
 		}
 
 		@Override
 		public void onFileChange(File file) {
 //				System.out.println(this.getClass().getName() + ".onFileChange(): file.getName()=" + file.getName());
+			DirectoryCleaner.this.cacheIndex.update(file);
+			DirectoryCleaner.this.metrics.recordEvent(-1);
+			// With an event driven source, a file is usually created empty and then grows.
+			this.checkQuotas(file);
 		}
 
 		@Override
 		public void onFileDelete(File file) {
 //			System.out.println(this.getClass().getName() + ".onFileDelete(): file.getName()=" + file.getName());
+			DirectoryCleaner.this.cacheIndex.remove(file);
+			DirectoryCleaner.this.metrics.recordEvent(-1);
 		}
 
 		@Override
@@ -201,84 +980,35 @@ public class DirectoryCleaner {
 //				System.out.println(this.getClass().getName() + ".onStop()...");
 		}
 
-		/**
-		 *
-		 */
-		private void checkAndCleanDirectory(final File directory) {
-			StringBuilder msg = new StringBuilder();
-			if (_logger.isLoggable(Level.FINER)) {
-				_logger.entering(_className, "checkAndCleanDirectory");
-			}
-
-//			try {
-//				System.out.println(_className + ": Sleeping...");
-//				Thread.sleep(5000);
-//			} catch (InterruptedException ie) {
-//				ie.printStackTrace();
-//			}
-			File files[] = this.getListOfFiles(directory);
-//			File files[] = directory.listFiles(new FileFilter() {
-//
-//				@Override
-//				public boolean accept(File pathname) {
-//					String name = pathname.getName();
-//					if (name.startsWith("FGB") && !name.endsWith(".lck")) {
-//						return true;
-//					} else {
-//						return false;
-//					}
-//				}
-//			});
-//		System.out.println(_className + ".checkAndCleanDirectory(): -----------------------");
-//		System.out.println(_className + ".checkAndCleanDirectory(): FILE LIST PRIOR TO SORT");
-//		System.out.println(_className + ".checkAndCleanDirectory(): -----------------------");
-//		this.printFileInfo(files);
-			LastModifiedFileComparator comparator = new LastModifiedFileComparator();
-			files = comparator.sort(files);
-//		System.out.println(_className + ".checkAndCleanDirectory(): --------------------");
-//		System.out.println(_className + ".checkAndCleanDirectory(): FILE LIST AFTER SORT");
-//		System.out.println(_className + ".checkAndCleanDirectory(): --------------------");
-//		this.printFileInfo(files);
-
-
-			File fileToDelete = files[0];
-//		if (_logger.isLoggable(Level.FINE)) {
-			msg.append("Attempting to delete ").append(fileToDelete.getAbsolutePath());
-			_logger.fine(msg.toString());
-			msg.delete(0, msg.length());
-//		}
-			if (fileToDelete.delete()) {
-				msg.append("Successfully deleted ").append(fileToDelete.getAbsolutePath());
-				_logger.fine(msg.toString());
-				msg.delete(0, msg.length());
-			} else {
-				msg.append("Unable to delete ").append(fileToDelete.getAbsolutePath());
-				_logger.fine(msg.toString());
-				msg.delete(0, msg.length());
-			}
-
-			if (_logger.isLoggable(Level.FINER)) {
-				_logger.exiting(_className, "checkAndCleanDirectory");
-			}
-
-		}
-
-		private File[] getListOfFiles(final File directory) {
-			File files[] = directory.listFiles(new FileFilter() {
+		@Override
+		public void onResync(File directory) {
+			DirectoryCleaner.this.metrics.recordResync();
+			DirectoryCleaner.this.reconcileExecutor.execute(new Runnable() {
 
 				@Override
-				public boolean accept(File pathname) {
-					String name = pathname.getName();
-					if (name.startsWith("FGB") && !name.endsWith(".lck")) {
-						return true;
-					} else {
-						return false;
-					}
+				public void run() {
+					DirectoryCleaner.this.reconcile();
 				}
 			});
-			return files;
+		}
+
+		/**
+		 * Signal the eviction worker if the directory, one of its subtrees, or the volume has gone past its quota.
+		 * Nothing is deleted on the event thread.
+		 *
+		 * @param file The file that was created or changed.
+		 */
+		private void checkQuotas(final File file) {
+			if (!file.getName().endsWith(".lck")) {
+				if (DirectoryCleaner.this.isOverQuota(file)) {
+					DirectoryCleaner.this.metrics.recordSignal();
+					DirectoryCleaner.this.evictionWorker.signal();
+				}
+				Runnable listener = DirectoryCleaner.this.growthListener;
+				if (listener != null) {
+					listener.run();
+				}
+			}
 		}
 	}
 }
-
-
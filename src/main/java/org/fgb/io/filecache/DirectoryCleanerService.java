@@ -0,0 +1,424 @@
+/*
+ * Class:   DirectoryCleanerService.java
+ * Born On: Oct, 2026
+ * Purpose: Clean many directories in one process, on one event source and one thread pool.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.fgb.io.filecache.impl.WatchServiceDirectoryEventSource;
+
+/**
+ * Class <code>DirectoryCleanerService</code> cleans many directories (cache shards) in one process.
+ * <p>
+ * Each directory has its own {@linkplain DirectoryCleaner}, with its own quota (high and low water marks) and eviction
+ * policy, but all the cleaners share one {@linkplain DirectoryEventSource}, one small thread pool for their periodic
+ * work (reconciles, checkpoints, index loads), one thread pool for their eviction passes, one {@linkplain BatchDeleter}
+ * and one shutdown hook, so the cost of a shard is a few objects rather than a few threads.  Evictions have a pool of
+ * their own so that a shard that is over its quota is cleaned while other shards walk large trees.
+ * <p>
+ * The service can also enforce a global quota across all of its directories.  When the total size of the directories
+ * exceeds the global high water mark, every directory gives up its share of the excess, in proportion to its size, so
+ * that the total goes back to the global low water mark.  Each directory still evicts in the order of its own policy.
+ *
+ * @author Frederick Burkley
+ */
+public class DirectoryCleanerService {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = DirectoryCleanerService.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default number of threads in the shared pool.
+	 */
+	public static final int DEFAULT_THREADS = 2;
+	/**
+	 * The default number of threads in the eviction pool: the number of shards that can run an eviction pass at once.
+	 */
+	public static final int DEFAULT_EVICTION_THREADS = 4;
+	/**
+	 * How long, in seconds, stopping the service waits for running work to finish.
+	 */
+	private static final long STOP_TIMEOUT = 10;
+	/**
+	 * The source of file system events for every directory.
+	 */
+	private final DirectoryEventSource directoryEventSource;
+	/**
+	 * Runs the periodic work of every cleaner, and starts the cleaners.
+	 */
+	private final ScheduledExecutorService executor;
+	/**
+	 * Runs the eviction passes of every cleaner, and the global evictions.
+	 */
+	private final ExecutorService evictionExecutor;
+	/**
+	 * Deletes the victims of every cleaner.
+	 */
+	private final BatchDeleter batchDeleter;
+	/**
+	 * Reaps the trash of every cleaner that evicts to the trash, on one low priority thread.
+	 */
+	private final ExecutorService reaperExecutor;
+	/**
+	 * <code>true</code> if directories added from now on evict to the trash.
+	 */
+	private volatile boolean trashEnabled;
+	/**
+	 * The cleaners, keyed by directory.
+	 */
+	private final Map<File, DirectoryCleaner> cleaners;
+	/**
+	 * <code>true</code> while a global eviction is queued and has not started yet.
+	 */
+	private final AtomicBoolean globalEvictionPending;
+	/**
+	 * The global high water mark, in bytes, or <code>Long.MAX_VALUE</code> for no global quota.
+	 */
+	private volatile long globalHighWaterMark;
+	/**
+	 * The global low water mark, in bytes.
+	 */
+	private volatile long globalLowWaterMark;
+	/**
+	 * <code>true</code> once the service has been started.
+	 */
+	private boolean started;
+
+	/**
+	 * Create a <code>DirectoryCleanerService</code> that receives file system events from a
+	 * {@linkplain WatchServiceDirectoryEventSource}, and runs on {@value #DEFAULT_THREADS} threads and
+	 * {@value #DEFAULT_EVICTION_THREADS} eviction threads.
+	 */
+	public DirectoryCleanerService() {
+		this(new WatchServiceDirectoryEventSource(), DEFAULT_THREADS);
+	}
+
+	/**
+	 * Create a <code>DirectoryCleanerService</code>.  The service starts and stops the event source.
+	 *
+	 * @param directoryEventSource The source of file system events for every directory.
+	 * @param threads The number of threads in the shared pool.
+	 * @throws IllegalArgumentException If <code>threads</code> is not positive.
+	 * @see #DirectoryCleanerService(DirectoryEventSource, int, int, int)
+	 */
+	public DirectoryCleanerService(final DirectoryEventSource directoryEventSource, final int threads) throws IllegalArgumentException {
+		this(directoryEventSource, threads, BatchDeleter.DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Create a <code>DirectoryCleanerService</code>.  The service starts and stops the event source.
+	 *
+	 * @param directoryEventSource The source of file system events for every directory.
+	 * @param threads The number of threads in the shared pool.
+	 * @param deleteParallelism The number of files deleted at once by an eviction; see {@linkplain BatchDeleter}.
+	 * @throws IllegalArgumentException If <code>threads</code> or <code>deleteParallelism</code> is not positive.
+	 */
+	public DirectoryCleanerService(final DirectoryEventSource directoryEventSource, final int threads, final int deleteParallelism) throws IllegalArgumentException {
+		this(directoryEventSource, threads, deleteParallelism, DEFAULT_EVICTION_THREADS);
+	}
+
+	/**
+	 * Create a <code>DirectoryCleanerService</code>.  The service starts and stops the event source.
+	 *
+	 * @param directoryEventSource The source of file system events for every directory.
+	 * @param threads The number of threads in the shared pool, which runs the periodic work and starts the cleaners.
+	 * @param deleteParallelism The number of files deleted at once by an eviction; see {@linkplain BatchDeleter}.
+	 * @param evictionThreads The number of threads in the eviction pool: the number of shards that can run an eviction
+	 *   pass at once.  About the number of shards that are expected to be over quota at the same time.
+	 * @throws IllegalArgumentException If <code>threads</code>, <code>deleteParallelism</code> or
+	 *   <code>evictionThreads</code> is not positive.
+	 */
+	public DirectoryCleanerService(final DirectoryEventSource directoryEventSource, final int threads, final int deleteParallelism,
+			final int evictionThreads) throws IllegalArgumentException {
+		if (threads < 1) {
+			throw new IllegalArgumentException(_className + ": The number of threads " + threads + " must be positive.");
+		}
+		if (evictionThreads < 1) {
+			throw new IllegalArgumentException(_className + ": The number of eviction threads " + evictionThreads + " must be positive.");
+		}
+		this.directoryEventSource = directoryEventSource;
+		this.executor = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, _className + ".worker-" + this.count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.evictionExecutor = Executors.newFixedThreadPool(evictionThreads, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, _className + ".evict-" + this.count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.batchDeleter = new BatchDeleter(deleteParallelism);
+		this.reaperExecutor = Executors.newSingleThreadExecutor(Trash.newReaperThreadFactory());
+		this.cleaners = new ConcurrentHashMap<File, DirectoryCleaner>();
+		this.globalEvictionPending = new AtomicBoolean();
+		this.globalHighWaterMark = Long.MAX_VALUE;
+		this.globalLowWaterMark = Long.MAX_VALUE;
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					DirectoryCleanerService.this.stop();
+				} catch (Exception ex) {
+					_logger.log(Level.SEVERE, null, ex);
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Set a quota on the total size of all the directories.  There is no global quota by default.
+	 *
+	 * @param globalHighWaterMark The total size, in bytes, at which global cleaning kicks in.
+	 * @param globalLowWaterMark The total size, in bytes, that the directories are cleaned down to.
+	 * @throws IllegalArgumentException If the low water mark is negative or greater than the high water mark.
+	 */
+	public void setGlobalQuota(final long globalHighWaterMark, final long globalLowWaterMark) throws IllegalArgumentException {
+		if (globalLowWaterMark < 0 || globalLowWaterMark > globalHighWaterMark) {
+			throw new IllegalArgumentException(_className + ": The global low water mark " + globalLowWaterMark
+					+ " must be between 0 and the global high water mark " + globalHighWaterMark + ".");
+		}
+		this.globalLowWaterMark = globalLowWaterMark;
+		this.globalHighWaterMark = globalHighWaterMark;
+		this.checkGlobalQuota();
+	}
+
+	/**
+	 * Evict the files of directories added from now on by renaming them into a trash directory; see
+	 * {@linkplain DirectoryCleaner#setTrashEnabled(boolean)}.  The trashes of all the directories are reaped by one low
+	 * priority thread.
+	 *
+	 * @param trashEnabled <code>true</code> to evict to the trash.
+	 */
+	public void setTrashEnabled(final boolean trashEnabled) {
+		this.trashEnabled = trashEnabled;
+	}
+
+	/**
+	 * Add a directory to clean.  Directories may be added before or after the service is started.  Use the returned
+	 * cleaner to set the eviction policy of the directory; each directory needs its own policy instance.
+	 *
+	 * @param directoryName The directory to clean.
+	 * @param highWaterMark The high water mark of the directory, in bytes.
+	 * @param lowWaterMark The low water mark of the directory, in bytes.
+	 * @return The cleaner of the directory.
+	 * @throws IllegalArgumentException If the directory was already added, or if the low water mark is negative or
+	 *   greater than the high water mark.
+	 * @throws Exception If the service is started and the cleaner can not be started.
+	 */
+	public DirectoryCleaner addDirectory(final String directoryName, final long highWaterMark, final long lowWaterMark) throws Exception {
+		DirectoryCleaner cleaner = new DirectoryCleaner(directoryName, highWaterMark, lowWaterMark, this.directoryEventSource, this.executor,
+				this.evictionExecutor);
+		cleaner.setBatchDeleter(this.batchDeleter);
+		cleaner.setTrashEnabled(this.trashEnabled);
+		cleaner.setReaperExecutor(this.reaperExecutor);
+		cleaner.setGrowthListener(new Runnable() {
+
+			@Override
+			public void run() {
+				DirectoryCleanerService.this.checkGlobalQuota();
+			}
+		});
+		synchronized (this) {
+			if (this.cleaners.containsKey(cleaner.getDirectory())) {
+				throw new IllegalArgumentException(_className + ": The directory " + directoryName + " is already cleaned.");
+			}
+			this.cleaners.put(cleaner.getDirectory(), cleaner);
+			if (this.started) {
+				cleaner.start();
+			}
+		}
+		return cleaner;
+	}
+
+	/**
+	 * Stop cleaning a directory.
+	 *
+	 * @param directoryName The directory, as passed to {@linkplain #addDirectory(String, long, long)}.
+	 * @throws Exception If the cleaner can not be stopped.
+	 */
+	public synchronized void removeDirectory(final String directoryName) throws Exception {
+		DirectoryCleaner cleaner = this.cleaners.remove(new File(directoryName));
+		if (cleaner != null && this.started) {
+			cleaner.stop();
+		}
+	}
+
+	/**
+	 * Get the cleaners of the service.
+	 *
+	 * @return The cleaners, one per directory.
+	 */
+	public List<DirectoryCleaner> getCleaners() {
+		return new ArrayList<DirectoryCleaner>(this.cleaners.values());
+	}
+
+	/**
+	 * Get the pool that runs the periodic work of every cleaner.
+	 *
+	 * @return The shared scheduled pool.
+	 */
+	ScheduledExecutorService getScheduledExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Get the total size of all the directories, from their indexes.
+	 *
+	 * @return The total size, in bytes.
+	 */
+	public long getTotalSize() {
+		long totalSize = 0;
+		for (DirectoryCleaner cleaner : this.cleaners.values()) {
+			totalSize += cleaner.getSize();
+		}
+		return totalSize;
+	}
+
+	/**
+	 * Start the service.  The indexes of the directories are loaded in parallel on the shared pool.
+	 *
+	 * @throws Exception If a cleaner can not be started.
+	 */
+	public synchronized void start() throws Exception {
+		_logger.info("Starting " + this.cleaners.size() + " directories");
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (final DirectoryCleaner cleaner : this.cleaners.values()) {
+			futures.add(this.executor.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					cleaner.start();
+					return null;
+				}
+			}));
+		}
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				throw cause instanceof Exception ? (Exception) cause : ex;
+			}
+		}
+		this.directoryEventSource.start();
+		this.started = true;
+		this.checkGlobalQuota();
+	}
+
+	/**
+	 * Stop the service, and every cleaner.
+	 *
+	 * @throws Exception If an <code>Exception</code> occurs.
+	 */
+	public synchronized void stop() throws Exception {
+		if (!this.started) {
+			return;
+		}
+		_logger.info("Stopping " + this.cleaners.size() + " directories");
+		this.started = false;
+		this.directoryEventSource.stop();
+		// Let running checkpoints and evictions finish before the manifests are closed; periodic tasks are cancelled by
+		// the shutdown.
+		this.executor.shutdown();
+		this.evictionExecutor.shutdown();
+		if (!this.executor.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+			this.executor.shutdownNow();
+		}
+		if (!this.evictionExecutor.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+			this.evictionExecutor.shutdownNow();
+		}
+		for (DirectoryCleaner cleaner : this.cleaners.values()) {
+			try {
+				cleaner.stop();
+			} catch (Exception ex) {
+				_logger.log(Level.WARNING, "Unable to stop the cleaner of " + cleaner.getDirectory(), ex);
+			}
+		}
+		this.batchDeleter.close();
+		this.reaperExecutor.shutdownNow();
+	}
+
+	/**
+	 * Queue a global eviction if the directories are over the global quota.  Called on the event thread, so it only
+	 * sums the sizes of the directories.  Checks made while an eviction is queued are coalesced into it.
+	 */
+	private void checkGlobalQuota() {
+		if (this.getTotalSize() > this.globalHighWaterMark && this.globalEvictionPending.compareAndSet(false, true)) {
+			this.evictionExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					DirectoryCleanerService.this.globalEvictionPending.set(false);
+					DirectoryCleanerService.this.evictGlobally();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Bring the total size of the directories down to the global low water mark.  Each directory frees a share of the
+	 * excess that is proportional to its size.
+	 */
+	private void evictGlobally() {
+		List<DirectoryCleaner> shards = this.getCleaners();
+		long[] sizes = new long[shards.size()];
+		long totalSize = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = shards.get(i).getSize();
+			totalSize += sizes[i];
+		}
+		long bytesToFree = totalSize - this.globalLowWaterMark;
+		if (totalSize <= this.globalHighWaterMark || bytesToFree <= 0) {
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		long freed = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			if (sizes[i] > 0) {
+				// Round up, so that the shares add up to at least the excess.
+				long share = (long) Math.ceil((double) bytesToFree * sizes[i] / totalSize);
+				freed += shards.get(i).evict(share);
+			}
+		}
+		if (_logger.isLoggable(Level.FINE)) {
+			_logger.fine("Freed " + freed + " bytes across " + sizes.length + " directories in "
+					+ (System.currentTimeMillis() - startTime) + " ms");
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Class:   DirectoryEventSource.java
+ * Born On: Oct, 2026
+ * Purpose: A source of file system events for one or more directory trees.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.monitor.FileAlterationListener;
+
+/**
+ * A <code>DirectoryEventSource</code> delivers file system events for one or more directory trees to a
+ * {@linkplain FileAlterationListener}.
+ * <p>
+ * Events for every registered directory are delivered on a single background thread owned by the source, so a
+ * listener is never called concurrently with itself.  Implementations may not be able to tell whether an event
+ * was already delivered, so listeners should treat a create for a known file as a change, and a delete for an
+ * unknown file as a no-op.
+ * <p>
+ * If the source loses events (for example, the kernel event queue overflowed), listeners that implement
+ * {@linkplain DirectoryResyncListener} are told to resynchronise with the disk.
+ *
+ * @author Frederick Burkley
+ */
+public interface DirectoryEventSource {
+
+	/**
+	 * Start delivering events for the directory tree rooted at <code>directory</code> to <code>listener</code>.
+	 * Directories may be added before or after the source is started.
+	 *
+	 * @param directory The root of the directory tree to monitor.
+	 * @param listener The listener to deliver events to.
+	 * @throws IOException If the directory can not be monitored.
+	 */
+	public void addDirectory(File directory, FileAlterationListener listener) throws IOException;
+
+	/**
+	 * Stop delivering events for the directory tree rooted at <code>directory</code>.
+	 *
+	 * @param directory The root of the directory tree, as passed to {@linkplain #addDirectory(File, FileAlterationListener)}.
+	 */
+	public void removeDirectory(File directory);
+
+	/**
+	 * Start the background thread that delivers events.
+	 *
+	 * @throws Exception If an <code>Exception</code> occurs.
+	 */
+	public void start() throws Exception;
+
+	/**
+	 * Stop the background thread that delivers events.
+	 *
+	 * @throws Exception If an <code>Exception</code> occurs.
+	 */
+	public void stop() throws Exception;
+}
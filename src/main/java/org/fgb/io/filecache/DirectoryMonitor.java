@@ -8,14 +8,18 @@ import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.io.monitor.FileAlterationListener;
-import org.apache.commons.io.monitor.FileAlterationMonitor;
 import org.apache.commons.io.monitor.FileAlterationObserver;
 
+import org.fgb.io.filecache.impl.WatchServiceDirectoryEventSource;
+
 /**
  * Class <code>DirectoryMonitor</code> will monitor a directory for events of interest.
  * <p>
  * This class will invoke a background thread that will perform the monitoring duties.
  * The background thread will stay alive until the user kills the process.
+ * <p>
+ * By default, file system events come from a {@linkplain WatchServiceDirectoryEventSource}.
+ * Another {@linkplain DirectoryEventSource} can be passed to the constructor.
  *
  * @author Frederick Burkley
  */
@@ -29,21 +33,17 @@ public class DirectoryMonitor {
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
 	/**
-	 * An observer to observe file system events.
+	 * The directory to monitor.
 	 */
-	private final FileAlterationObserver directoryAlterationObserver;
+	private final File directory;
 	/**
-	 * A listener to listen for file system events.
+	 * The source of file system events.
 	 */
-	private final FileAlterationListener directoryAlterationListener;
+	private final DirectoryEventSource directoryEventSource;
 	/**
-	 * A runnable that spawns a monitoring thread triggering any registered FileAlterationObserver at a specified interval.
-	 */
-	private final FileAlterationMonitor directoryAlterationMonitor;
-	/**
-	 * The polling time (i.e. sleep time) for the FileAlterationMonitor
+	 * A listener to listen for file system events.
 	 */
-	private final int pollingTime;
+	private final FileAlterationListener directoryAlterationListener;
 
 	/**
 	 * Create a <code>DirectoryMonitor</code>.  A <code>DirectoryMonitor</code> will monitor a directory for events of interest.
@@ -51,9 +51,19 @@ public class DirectoryMonitor {
 	 * @param directoryName The directory to monitor.
 	 */
 	public DirectoryMonitor(final String directoryName) {
-		File directory = new File(directoryName);
-		this.pollingTime = 100;  // milliseconds
-		this.directoryAlterationObserver = new FileAlterationObserver(directory);
+		this(directoryName, new WatchServiceDirectoryEventSource());
+	}
+
+	/**
+	 * Create a <code>DirectoryMonitor</code> that receives file system events from <code>directoryEventSource</code>.
+	 * The monitor starts and stops the event source.
+	 *
+	 * @param directoryName The directory to monitor.
+	 * @param directoryEventSource The source of file system events.
+	 */
+	public DirectoryMonitor(final String directoryName, final DirectoryEventSource directoryEventSource) {
+		this.directory = new File(directoryName);
+		this.directoryEventSource = directoryEventSource;
 		this.directoryAlterationListener = new FileAlterationListener() {
 
 			@Override
@@ -96,9 +106,6 @@ public class DirectoryMonitor {
 //				System.out.println(this.getClass().getName() + ".onStop()...");
 			}
 		};
-		this.directoryAlterationObserver.addListener(this.directoryAlterationListener);
-		this.directoryAlterationMonitor = new FileAlterationMonitor(this.pollingTime);
-		this.directoryAlterationMonitor.addObserver(this.directoryAlterationObserver);
 		Runtime runtime = Runtime.getRuntime();
 		runtime.addShutdownHook(new Thread(new Runnable() {
 
@@ -122,8 +129,8 @@ public class DirectoryMonitor {
 	 */
 	public void start() throws Exception {
 		System.out.println(_className + ".start()...");
-		this.directoryAlterationObserver.initialize();
-		this.directoryAlterationMonitor.start();
+		this.directoryEventSource.addDirectory(this.directory, this.directoryAlterationListener);
+		this.directoryEventSource.start();
 
 	}
 
@@ -134,10 +141,8 @@ public class DirectoryMonitor {
 	 */
 	public void stop() throws Exception {
 		System.out.println(_className + ".stop()...");
-		this.directoryAlterationObserver.removeListener(this.directoryAlterationListener);
-		this.directoryAlterationObserver.destroy();
-		this.directoryAlterationMonitor.removeObserver(this.directoryAlterationObserver);
-		this.directoryAlterationMonitor.stop();
+		this.directoryEventSource.removeDirectory(this.directory);
+		this.directoryEventSource.stop();
 	}
 
 }
\ No newline at end of file
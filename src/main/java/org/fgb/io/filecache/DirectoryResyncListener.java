@@ -0,0 +1,27 @@
+/*
+ * Class:   DirectoryResyncListener.java
+ * Born On: Oct, 2026
+ * Purpose: A listener that can resynchronise with the disk when events were lost.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import org.apache.commons.io.monitor.FileAlterationListener;
+
+/**
+ * A <code>DirectoryResyncListener</code> is a {@linkplain FileAlterationListener} that can resynchronise its view of
+ * a directory tree with the disk when a {@linkplain DirectoryEventSource} has lost events.
+ *
+ * @author Frederick Burkley
+ */
+public interface DirectoryResyncListener extends FileAlterationListener {
+
+	/**
+	 * Events were lost for the directory tree rooted at <code>directory</code>.  The listener should rescan the tree.
+	 * <p>
+	 * This is called on the event thread of the source, so a long rescan should be handed off to another thread.
+	 *
+	 * @param directory The root of the directory tree.
+	 */
+	public void onResync(File directory);
+}
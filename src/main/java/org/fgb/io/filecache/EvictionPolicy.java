@@ -0,0 +1,58 @@
+/*
+ * Class:   EvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Decide the order in which the files of a cache are evicted.
+ */
+package org.fgb.io.filecache;
+
+/**
+ * An <code>EvictionPolicy</code> decides the order in which the files of a cache are evicted.
+ * <p>
+ * The policy gives each {@linkplain CacheEntry} a priority when the entry is put in the {@linkplain CacheIndex}; files with
+ * the lowest priority are evicted first.  The priority is a snapshot: it is only recomputed when the entry changes
+ * (the file is written, or accessed through the cache), so a policy whose priorities drift with time must build the
+ * drift into the priorities it hands out, as GreedyDual-Size does with its inflation value.
+ * <p>
+ * The index calls the policy while holding its lock, so implementations need no locking of their own, and must be fast.
+ * An instance serves a single index.
+ *
+ * @author Frederick Burkley
+ */
+public interface EvictionPolicy {
+
+	/**
+	 * Get the priority of an entry.  Entries with a lower priority are evicted first.  Ties are broken on the last
+	 * access time, then on the path.
+	 *
+	 * @param entry The entry.
+	 * @return The priority of the entry.
+	 */
+	public double getPriority(CacheEntry entry);
+
+	/**
+	 * Called when an entry is taken from the index for eviction.
+	 *
+	 * @param entry The entry.
+	 * @param priority The priority the entry had.
+	 */
+	public void onEvict(CacheEntry entry, double priority);
+
+	/**
+	 * Whether this policy ever expires entries.  If it does not, the index does not keep entries in expiry order, and
+	 * the {@linkplain DirectoryCleaner} does not sweep for expired files.
+	 *
+	 * @return <code>true</code> if {@linkplain #getExpiryTime(CacheEntry)} may return a time other than
+	 *   <code>Long.MAX_VALUE</code>.
+	 */
+	public boolean expires();
+
+	/**
+	 * Get the time at which an entry expires, and should be evicted whatever the size of the cache.  Like the priority,
+	 * this is a snapshot taken when the entry is put in the index.
+	 *
+	 * @param entry The entry.
+	 * @return The time after which the entry has expired, in milliseconds since the epoch, or <code>Long.MAX_VALUE</code>
+	 *   if it never expires.
+	 */
+	public long getExpiryTime(CacheEntry entry);
+}
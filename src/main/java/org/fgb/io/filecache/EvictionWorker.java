@@ -0,0 +1,149 @@
+/*
+ * Class:   EvictionWorker.java
+ * Born On: Oct, 2026
+ * Purpose: Run eviction passes off the event thread, coalescing the requests that arrive while a pass runs.
+ */
+package org.fgb.io.filecache;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>EvictionWorker</code> runs eviction passes on an {@linkplain Executor}, so that the thread that delivers
+ * file system events only updates the index and signals the worker, and event latency does not depend on how long an
+ * eviction takes.
+ * <p>
+ * Signals are coalesced: a signal while no pass is queued or running queues one; any number of signals while a pass
+ * runs cause exactly one more pass once it ends.  Passes of one worker never run concurrently, even on a pool with
+ * several threads, so one pool can serve the workers of many directories.
+ * <p>
+ * A pass must evaluate the state of the cache itself (it is not told why it was signalled), and should leave the
+ * cache within its quotas.
+ *
+ * @author Frederick Burkley
+ */
+public class EvictionWorker {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = EvictionWorker.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * No pass is queued or running.
+	 */
+	private static final int IDLE = 0;
+	/**
+	 * A pass is queued or running, and no signal arrived since it started.
+	 */
+	private static final int RUNNING = 1;
+	/**
+	 * A pass is running, and a signal arrived since it started.
+	 */
+	private static final int RUNNING_SIGNALLED = 2;
+	/**
+	 * Runs the passes.
+	 */
+	private final Executor executor;
+	/**
+	 * The eviction pass.
+	 */
+	private final Runnable pass;
+	/**
+	 * One of {@linkplain #IDLE}, {@linkplain #RUNNING} or {@linkplain #RUNNING_SIGNALLED}.
+	 */
+	private final AtomicInteger state;
+	/**
+	 * The number of passes that have completed.
+	 */
+	private final AtomicLong passCount;
+	/**
+	 * Runs passes until no signal arrived during the last one.
+	 */
+	private final Runnable drain;
+
+	/**
+	 * Create an <code>EvictionWorker</code>.
+	 *
+	 * @param executor Runs the passes.
+	 * @param pass The eviction pass.
+	 */
+	public EvictionWorker(final Executor executor, final Runnable pass) {
+		this.executor = executor;
+		this.pass = pass;
+		this.state = new AtomicInteger(IDLE);
+		this.passCount = new AtomicLong();
+		this.drain = new Runnable() {
+
+			@Override
+			public void run() {
+				EvictionWorker.this.drain();
+			}
+		};
+	}
+
+	/**
+	 * Ask for an eviction pass.  This never blocks, and may be called from any thread.
+	 */
+	public void signal() {
+		while (true) {
+			int current = this.state.get();
+			if (current == RUNNING_SIGNALLED) {
+				return;
+			}
+			if (current == RUNNING) {
+				if (this.state.compareAndSet(RUNNING, RUNNING_SIGNALLED)) {
+					return;
+				}
+			} else if (this.state.compareAndSet(IDLE, RUNNING)) {
+				try {
+					this.executor.execute(this.drain);
+				} catch (RejectedExecutionException ex) {
+					// The executor is shut down; so is the cleaner.
+					this.state.set(IDLE);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Whether a pass is queued or running.
+	 *
+	 * @return <code>true</code> if a pass is queued or running.
+	 */
+	public boolean isBusy() {
+		return this.state.get() != IDLE;
+	}
+
+	/**
+	 * Get the number of passes that have completed.
+	 *
+	 * @return The number of passes.
+	 */
+	public long getPassCount() {
+		return this.passCount.get();
+	}
+
+	/**
+	 * Run passes until no signal arrived during the last one.
+	 */
+	private void drain() {
+		do {
+			this.state.set(RUNNING);
+			try {
+				this.pass.run();
+			} catch (RuntimeException ex) {
+				_logger.log(Level.SEVERE, "Eviction pass failed", ex);
+			}
+			this.passCount.incrementAndGet();
+		} while (!this.state.compareAndSet(RUNNING, IDLE));
+	}
+}
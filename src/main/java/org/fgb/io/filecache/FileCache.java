@@ -0,0 +1,127 @@
+/*
+ * Class:   FileCache.java
+ * Born On: Oct, 2026
+ * Purpose: The read path of a cache directory.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class <code>FileCache</code> is the read path of a cache directory.  Readers open cached files by key (the path of the
+ * file relative to the cache directory) and every hit is recorded by an {@linkplain AccessTracker}, so that the
+ * eviction policy knows which files are actually used, even on volumes mounted <code>noatime</code>.
+ * <p>
+ * A <code>FileCache</code> is obtained from {@linkplain DirectoryCleaner#getFileCache()}, which drains the recorded
+ * accesses into its index.  This class is thread safe.
+ *
+ * @author Frederick Burkley
+ */
+public class FileCache {
+
+	/**
+	 * The root directory of the cache, as the index names it.
+	 */
+	private final File directory;
+	/**
+	 * The absolute, normalized root directory of the cache, that keys are checked against.
+	 */
+	private final Path root;
+	/**
+	 * Records hits and misses.
+	 */
+	private final AccessTracker accessTracker;
+
+	/**
+	 * Create a <code>FileCache</code> for the directory <code>directory</code>.
+	 *
+	 * @param directory The root directory of the cache.
+	 * @param accessTracker Records hits and misses.
+	 */
+	public FileCache(final File directory, final AccessTracker accessTracker) {
+		this.directory = directory;
+		this.root = directory.toPath().toAbsolutePath().normalize();
+		this.accessTracker = accessTracker;
+	}
+
+	/**
+	 * Open a cached file for reading, and record the access.
+	 *
+	 * @param key The path of the file, relative to the cache directory.
+	 * @return A stream to read the file.  The caller must close it.
+	 * @throws NoSuchFileException If the file is not in the cache.
+	 * @throws IOException If the file can not be opened.
+	 * @throws IllegalArgumentException If the key does not name a file inside the cache directory.
+	 */
+	public InputStream open(final String key) throws IOException {
+		File file = this.resolve(key);
+		InputStream inputStream;
+		try {
+			inputStream = Files.newInputStream(file.toPath());
+		} catch (NoSuchFileException ex) {
+			this.accessTracker.recordMiss(file);
+			throw ex;
+		}
+		this.accessTracker.recordHit(file);
+		return inputStream;
+	}
+
+	/**
+	 * Open a cached file for reading as a channel, and record the access.  Use this to map the file, or to send it with
+	 * {@linkplain FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+	 *
+	 * @param key The path of the file, relative to the cache directory.
+	 * @return A channel to read the file.  The caller must close it.
+	 * @throws NoSuchFileException If the file is not in the cache.
+	 * @throws IOException If the file can not be opened.
+	 * @throws IllegalArgumentException If the key does not name a file inside the cache directory.
+	 */
+	public FileChannel openChannel(final String key) throws IOException {
+		File file = this.resolve(key);
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		} catch (NoSuchFileException ex) {
+			this.accessTracker.recordMiss(file);
+			throw ex;
+		}
+		this.accessTracker.recordHit(file);
+		return channel;
+	}
+
+	/**
+	 * Get the file for a key, without opening it or recording an access.
+	 *
+	 * @param key The path of the file, relative to the cache directory.
+	 * @return The file.
+	 * @throws IllegalArgumentException If the key does not name a file inside the cache directory.
+	 */
+	public File resolve(final String key) throws IllegalArgumentException {
+		Path path = this.root.resolve(key).normalize();
+		if (!path.startsWith(this.root) || path.equals(this.root)) {
+			throw new IllegalArgumentException("The key " + key + " is outside the cache directory " + this.root);
+		}
+		// Name the file the way the index does, under the directory as it was given.
+		File file = new File(this.directory, this.root.relativize(path).toString());
+		if (CacheManifest.isInternalFile(this.directory, file)) {
+			throw new IllegalArgumentException("The key " + key + " names a file of the cache itself");
+		}
+		return file;
+	}
+
+	/**
+	 * Get the tracker that records the accesses of this cache.
+	 *
+	 * @return The access tracker.
+	 */
+	public AccessTracker getAccessTracker() {
+		return this.accessTracker;
+	}
+}
@@ -14,4 +14,19 @@ public interface FileGenerator {
 	public void setBenchmark(boolean benchmark);
 	public void enableZipCompression(boolean compress);
 	public void enableGZipCompression(boolean compress);
+	/**
+	 * Set the number of threads used for gzip compression.  With more than one thread the output is compressed in
+	 * independent blocks, which are written as concatenated gzip members.  Ignored unless gzip compression is enabled.
+	 *
+	 * @param numberOfThreads The number of compression threads.  The default is 1.
+	 */
+	public void setCompressionThreads(int numberOfThreads);
+	/**
+	 * Write the numbers as binary little-endian float32 columns instead of tab separated text, so that readers need
+	 * not parse them; see {@linkplain org.fgb.io.filecache.util.ColumnarFloatFile}.  A value takes 4 bytes instead of
+	 * about 10.  Compression still applies, but only an uncompressed file can be memory-mapped by the reader.
+	 *
+	 * @param binary <code>true</code> for binary columns.  The default is text.
+	 */
+	public void enableBinaryOutput(boolean binary);
 }
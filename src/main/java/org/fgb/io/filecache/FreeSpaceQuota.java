@@ -0,0 +1,219 @@
+/*
+ * Class:   FreeSpaceQuota.java
+ * Born On: Oct, 2026
+ * Purpose: Decide how much to evict to keep a percentage of a volume free.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>FreeSpaceQuota</code> decides how much a cache must evict to keep a percentage of its volume free.
+ * <p>
+ * When the usable space of the volume drops below the minimum free percentage, the cache should evict until the usable
+ * space is back at the target free percentage.  The space comes from the {@linkplain FileStore} of the volume, which
+ * reads it with a single system call (<code>statvfs</code> on Linux), rather than from forking <code>df</code>.
+ * <p>
+ * Even so, the volume is not sampled on every check.  Between samples, the usable space is estimated from the last
+ * sample and from how much the cache has grown since, as tracked by its {@linkplain CacheIndex}, so that a burst of
+ * ingest is seen as it happens rather than at the next sample.  The volume is sampled again before any eviction, since
+ * other processes may have freed (or used) space in the meantime.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Frederick Burkley
+ */
+public class FreeSpaceQuota {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = FreeSpaceQuota.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default time, in milliseconds, between two samples of the volume.
+	 */
+	public static final long DEFAULT_SAMPLE_INTERVAL = 100;
+	/**
+	 * The volume.
+	 */
+	private final FileStore fileStore;
+	/**
+	 * Cleaning kicks in when the usable space is below this fraction of the volume.
+	 */
+	private final double minimumFreeFraction;
+	/**
+	 * Once cleaning has kicked in, files are evicted until the usable space is at least this fraction of the volume.
+	 */
+	private final double targetFreeFraction;
+	/**
+	 * The time, in milliseconds, between two samples of the volume.
+	 */
+	private long sampleInterval;
+	/**
+	 * Space that is being reclaimed, and counts as free, or <code>null</code>.
+	 */
+	private LongSupplier reclaimableSpace;
+	/**
+	 * The size of the volume at the last sample.
+	 */
+	private long totalSpace;
+	/**
+	 * The usable space of the volume at the last sample.
+	 */
+	private long sampledUsableSpace;
+	/**
+	 * The size of the cache at the last sample.
+	 */
+	private long sampledCacheSize;
+	/**
+	 * The time of the last sample, from {@linkplain System#nanoTime()}, or <code>Long.MIN_VALUE</code> if the volume has
+	 * never been sampled.
+	 */
+	private long sampleTime;
+
+	/**
+	 * Create a <code>FreeSpaceQuota</code> for the volume that holds <code>directory</code>.
+	 *
+	 * @param directory A directory on the volume.
+	 * @param minimumFreePercent Cleaning kicks in when the usable space is below this percentage of the volume.
+	 * @param targetFreePercent Once cleaning has kicked in, files are evicted until the usable space is at least this
+	 *   percentage of the volume.
+	 * @return The quota.
+	 * @throws IOException If the volume can not be found.
+	 * @throws IllegalArgumentException If the percentages are not between 0 and 100, or the target is below the minimum.
+	 */
+	public static FreeSpaceQuota forDirectory(final File directory, final double minimumFreePercent, final double targetFreePercent) throws IOException {
+		return new FreeSpaceQuota(Files.getFileStore(directory.toPath()), minimumFreePercent, targetFreePercent);
+	}
+
+	/**
+	 * Create a <code>FreeSpaceQuota</code> for a volume.
+	 *
+	 * @param fileStore The volume.
+	 * @param minimumFreePercent Cleaning kicks in when the usable space is below this percentage of the volume.
+	 * @param targetFreePercent Once cleaning has kicked in, files are evicted until the usable space is at least this
+	 *   percentage of the volume.
+	 * @throws IllegalArgumentException If the percentages are not between 0 and 100, or the target is below the minimum.
+	 */
+	public FreeSpaceQuota(final FileStore fileStore, final double minimumFreePercent, final double targetFreePercent) throws IllegalArgumentException {
+		if (minimumFreePercent < 0 || targetFreePercent < minimumFreePercent || targetFreePercent > 100) {
+			throw new IllegalArgumentException(_className + ": The target free percentage " + targetFreePercent
+					+ " must be between the minimum free percentage " + minimumFreePercent + " and 100, and the minimum must not be negative.");
+		}
+		this.fileStore = fileStore;
+		this.minimumFreeFraction = minimumFreePercent / 100;
+		this.targetFreeFraction = targetFreePercent / 100;
+		this.sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+		this.sampleTime = Long.MIN_VALUE;
+	}
+
+	/**
+	 * Set the time between two samples of the volume.  The default is {@value #DEFAULT_SAMPLE_INTERVAL} ms.
+	 *
+	 * @param sampleInterval The time between two samples, in milliseconds.
+	 */
+	public synchronized void setSampleInterval(final long sampleInterval) {
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * Count space that is being reclaimed as free; for example, files waiting in a {@linkplain Trash} to be unlinked.
+	 * Otherwise the quota would keep evicting until the reclaimed space shows on the volume.
+	 *
+	 * @param reclaimableSpace Gives the number of bytes being reclaimed, or <code>null</code>.
+	 */
+	public synchronized void setReclaimableSpace(final LongSupplier reclaimableSpace) {
+		this.reclaimableSpace = reclaimableSpace;
+	}
+
+	/**
+	 * Get the number of bytes the cache must evict to bring the volume back to the target free percentage.
+	 *
+	 * @param cacheSize The current size of the cache, in bytes.
+	 * @return The number of bytes to evict, or 0 if the volume has at least the minimum free percentage.
+	 */
+	public synchronized long getBytesToFree(final long cacheSize) {
+		long now = System.nanoTime();
+		if (this.sampleTime == Long.MIN_VALUE || now - this.sampleTime >= this.sampleInterval * 1000000L) {
+			this.sample(cacheSize, now);
+		}
+		if (this.getUsableSpace(cacheSize) >= this.minimumFreeFraction * this.totalSpace) {
+			return 0;
+		}
+		if (this.sampleTime != now) {
+			// The estimate says the volume is short of space; check it before evicting.
+			this.sample(cacheSize, now);
+			if (this.getUsableSpace(cacheSize) >= this.minimumFreeFraction * this.totalSpace) {
+				return 0;
+			}
+		}
+		return (long) Math.ceil(this.targetFreeFraction * this.totalSpace) - this.getUsableSpace(cacheSize);
+	}
+
+	/**
+	 * Whether the volume looks short of space, from the estimate alone.  This never samples the volume, so it is
+	 * cheap enough to call on every event; a <code>true</code> answer should be confirmed with
+	 * {@linkplain #getBytesToFree(long)}.
+	 *
+	 * @param cacheSize The current size of the cache, in bytes.
+	 * @return <code>true</code> if the estimated usable space is below the minimum free percentage.
+	 */
+	public synchronized boolean isShortOfSpace(final long cacheSize) {
+		return this.getUsableSpace(cacheSize) < this.minimumFreeFraction * this.totalSpace;
+	}
+
+	/**
+	 * Get the estimated usable space of the volume.
+	 *
+	 * @param cacheSize The current size of the cache, in bytes.
+	 * @return The usable space at the last sample, less what the cache has grown since.
+	 */
+	public synchronized long getUsableSpace(final long cacheSize) {
+		return this.sampledUsableSpace - (cacheSize - this.sampledCacheSize);
+	}
+
+	/**
+	 * Get the size of the volume, as of the last sample.
+	 *
+	 * @return The size of the volume, in bytes.
+	 */
+	public synchronized long getTotalSpace() {
+		return this.totalSpace;
+	}
+
+	/**
+	 * Sample the volume now, for example after an eviction.
+	 *
+	 * @param cacheSize The current size of the cache, in bytes.
+	 */
+	public synchronized void sample(final long cacheSize) {
+		this.sample(cacheSize, System.nanoTime());
+	}
+
+	/**
+	 * Read the usable and total space of the volume.  If they can not be read, the previous sample is kept.
+	 */
+	private void sample(final long cacheSize, final long now) {
+		try {
+			this.sampledUsableSpace = this.fileStore.getUsableSpace();
+			if (this.reclaimableSpace != null) {
+				this.sampledUsableSpace += this.reclaimableSpace.getAsLong();
+			}
+			this.totalSpace = this.fileStore.getTotalSpace();
+			this.sampledCacheSize = cacheSize;
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, "Unable to read the free space of " + this.fileStore, ex);
+		}
+		this.sampleTime = now;
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Class:   Trash.java
+ * Born On: Oct, 2026
+ * Purpose: Evict files by renaming them into a trash directory, and unlink them in the background.
+ */
+package org.fgb.io.filecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>Trash</code> evicts files by renaming them into a trash directory inside the cache, and unlinks them later
+ * on a low priority thread (the reaper).
+ * <p>
+ * On some file systems, unlinking a large file blocks while its extents are freed.  A rename within a volume is O(1)
+ * whatever the size of the file, so eviction latency no longer depends on file size.  The files leave the
+ * {@linkplain CacheIndex} as soon as they are renamed, so size quotas see the space as available at once; free space
+ * quotas should count {@linkplain #getPendingBytes()} as free (see
+ * {@linkplain FreeSpaceQuota#setReclaimableSpace(java.util.function.LongSupplier)}).
+ * <p>
+ * The trash directory is named {@value #TRASH_DIRECTORY_NAME}, so it is an internal file of the cache (see
+ * {@linkplain CacheManifest#isInternalFile(File, File)}) and is neither indexed nor readable through the
+ * {@linkplain FileCache}.  Files left in the trash by a previous run are reaped when the trash is opened.
+ *
+ * @author Frederick Burkley
+ */
+public class Trash {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = Trash.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The name of the trash directory, inside the root directory of the cache.
+	 */
+	public static final String TRASH_DIRECTORY_NAME = CacheManifest.INTERNAL_FILE_PREFIX + ".trash";
+	/**
+	 * The trash directory.
+	 */
+	private final File trashDirectory;
+	/**
+	 * Runs the reaper, if it is ours, or <code>null</code>.
+	 */
+	private final ExecutorService ownReaperExecutor;
+	/**
+	 * Runs the reaper.
+	 */
+	private final EvictionWorker reaper;
+	/**
+	 * Makes the names of trashed files unique.  Starts from the clock, so that names do not collide with files left
+	 * by a previous run.
+	 */
+	private final AtomicLong sequence;
+	/**
+	 * The sum of the sizes of the files in the trash.
+	 */
+	private final AtomicLong pendingBytes;
+	/**
+	 * The size each file in the trash added to {@linkplain #pendingBytes}, by path in the trash.  The reaper subtracts
+	 * exactly that, so a size in the index that has gone stale does not leave the sum drifting.
+	 */
+	private final Map<Path, Long> trashedSizes;
+	/**
+	 * The number of files the reaper has unlinked.
+	 */
+	private final AtomicLong reapedFiles;
+
+	/**
+	 * Create a <code>Trash</code> for the cache directory <code>directory</code>, with a reaper thread of its own.
+	 *
+	 * @param directory The root directory of the cache.
+	 */
+	public Trash(final File directory) {
+		this(directory, Executors.newSingleThreadExecutor(newReaperThreadFactory()), true);
+	}
+
+	/**
+	 * Create a <code>Trash</code> for the cache directory <code>directory</code>, whose reaper runs on a shared
+	 * executor.  Use {@linkplain #newReaperThreadFactory()} to give the executor low priority threads.
+	 *
+	 * @param directory The root directory of the cache.
+	 * @param reaperExecutor Runs the reaper.  It is not shut down by {@linkplain #close()}.
+	 */
+	public Trash(final File directory, final Executor reaperExecutor) {
+		this(directory, reaperExecutor, false);
+	}
+
+	private Trash(final File directory, final Executor reaperExecutor, final boolean ownExecutor) {
+		this.trashDirectory = new File(directory, TRASH_DIRECTORY_NAME);
+		this.ownReaperExecutor = ownExecutor ? (ExecutorService) reaperExecutor : null;
+		this.reaper = new EvictionWorker(reaperExecutor, new Runnable() {
+
+			@Override
+			public void run() {
+				Trash.this.reap();
+			}
+		});
+		this.sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+		this.pendingBytes = new AtomicLong();
+		this.trashedSizes = new ConcurrentHashMap<Path, Long>();
+		this.reapedFiles = new AtomicLong();
+	}
+
+	/**
+	 * Create a factory for reaper threads: daemon threads of minimum priority, so that unlinking competes as little as
+	 * possible with ingest and reads.
+	 *
+	 * @return The thread factory.
+	 */
+	public static ThreadFactory newReaperThreadFactory() {
+		return new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, _className + ".reaper");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Create the trash directory if needed, and reap the files left in it by a previous run.
+	 *
+	 * @throws IOException If the trash directory can not be created.
+	 */
+	public void open() throws IOException {
+		Files.createDirectories(this.trashDirectory.toPath());
+		long leftOver = 0;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.trashDirectory.toPath())) {
+			for (Path path : stream) {
+				long size = path.toFile().length();
+				this.pendingBytes.addAndGet(size);
+				this.trashedSizes.put(path, size);
+				leftOver += size;
+			}
+		}
+		if (leftOver > 0) {
+			this.reaper.signal();
+		}
+	}
+
+	/**
+	 * Move files into the trash.  Files that can not be renamed (they are gone, or the rename failed) are reported as
+	 * missing or failed; the caller should delete the failed ones some other way.
+	 *
+	 * @param victims The files to evict.
+	 * @return The outcome of the batch.  The files moved count as deleted.
+	 */
+	public DeleteResult moveToTrash(final List<CacheEntry> victims) {
+		long startTime = System.nanoTime();
+		int moved = 0;
+		int missing = 0;
+		long bytesMoved = 0;
+		List<File> failures = new ArrayList<File>();
+		Path trashPath = this.trashDirectory.toPath();
+		for (CacheEntry entry : victims) {
+			File file = entry.getFile();
+			Path target = trashPath.resolve(this.sequence.getAndIncrement() + "-" + file.getName());
+			// Counted before the rename, so that a reaper already running can not subtract it first.
+			this.trashedSizes.put(target, entry.getSize());
+			this.pendingBytes.addAndGet(entry.getSize());
+			try {
+				Files.move(file.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+				moved++;
+				bytesMoved += entry.getSize();
+			} catch (NoSuchFileException ex) {
+				this.untrash(target);
+				missing++;
+			} catch (IOException ex) {
+				this.untrash(target);
+				failures.add(file);
+				if (_logger.isLoggable(Level.FINE)) {
+					_logger.fine("Unable to move " + file + " to the trash: " + ex);
+				}
+			}
+		}
+		if (moved > 0) {
+			this.reaper.signal();
+		}
+		return new DeleteResult(moved, bytesMoved, missing, failures, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Get the sum of the sizes of the files in the trash: space that is free as far as the cache is concerned, but
+	 * not yet free on the volume.
+	 *
+	 * @return The number of bytes waiting to be unlinked.
+	 */
+	public long getPendingBytes() {
+		return this.pendingBytes.get();
+	}
+
+	/**
+	 * Get the number of files the reaper has unlinked.
+	 *
+	 * @return The number of files reaped.
+	 */
+	public long getReapedFileCount() {
+		return this.reapedFiles.get();
+	}
+
+	/**
+	 * Whether the reaper is running or about to run.
+	 *
+	 * @return <code>true</code> if the reaper is busy.
+	 */
+	public boolean isReaping() {
+		return this.reaper.isBusy();
+	}
+
+	/**
+	 * Get the trash directory.
+	 *
+	 * @return The trash directory.
+	 */
+	public File getTrashDirectory() {
+		return this.trashDirectory;
+	}
+
+	/**
+	 * Stop the reaper thread, if it is ours.  Files still in the trash are reaped when the trash is next opened.
+	 */
+	public void close() {
+		if (this.ownReaperExecutor != null) {
+			this.ownReaperExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Stop counting a file as in the trash: subtract the size it added to the pending bytes, if any.
+	 *
+	 * @param path The path of the file in the trash.
+	 */
+	private void untrash(final Path path) {
+		Long size = this.trashedSizes.remove(path);
+		if (size != null) {
+			this.pendingBytes.addAndGet(-size);
+		}
+	}
+
+	/**
+	 * Unlink every file in the trash, one at a time.
+	 */
+	private void reap() {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.trashDirectory.toPath())) {
+			for (Path path : stream) {
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				try {
+					Files.delete(path);
+					this.untrash(path);
+					this.reapedFiles.incrementAndGet();
+				} catch (NoSuchFileException ex) {
+					this.untrash(path);
+				} catch (IOException ex) {
+					_logger.log(Level.WARNING, "Unable to reap " + path, ex);
+				}
+			}
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, "Unable to list " + this.trashDirectory, ex);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package org.fgb.io.filecache.client;
+
+/**
+ * Class <code>CacheBuildReport</code> summarises a bulk run of the {@linkplain CacheBuilder}.
+ *
+ * @author Frederick Burkley
+ *
+ */
+public class CacheBuildReport {
+	/**
+	 * The number of files that were written.
+	 */
+	private final int numberOfFiles;
+	/**
+	 * The number of files that could not be written.
+	 */
+	private final int numberOfFailures;
+	/**
+	 * The number of bytes that were written.
+	 */
+	private final long numberOfBytes;
+	/**
+	 * The wall clock time of the run, in milliseconds.
+	 */
+	private final long elapsedTime;
+	/**
+	 * The number of threads that wrote files.
+	 */
+	private final int numberOfThreads;
+
+	/**
+	 * Create a <code>CacheBuildReport</code>.
+	 *
+	 * @param numberOfFiles The number of files that were written.
+	 * @param numberOfFailures The number of files that could not be written.
+	 * @param numberOfBytes The number of bytes that were written.
+	 * @param elapsedTime The wall clock time of the run, in milliseconds.
+	 * @param numberOfThreads The number of threads that wrote files.
+	 */
+	public CacheBuildReport(final int numberOfFiles, final int numberOfFailures, final long numberOfBytes, final long elapsedTime, final int numberOfThreads) {
+		this.numberOfFiles = numberOfFiles;
+		this.numberOfFailures = numberOfFailures;
+		this.numberOfBytes = numberOfBytes;
+		this.elapsedTime = elapsedTime;
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	public int getNumberOfFiles() {
+		return this.numberOfFiles;
+	}
+
+	public int getNumberOfFailures() {
+		return this.numberOfFailures;
+	}
+
+	public long getNumberOfBytes() {
+		return this.numberOfBytes;
+	}
+
+	public long getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	public int getNumberOfThreads() {
+		return this.numberOfThreads;
+	}
+
+	/**
+	 * Get the aggregate write rate.
+	 *
+	 * @return The aggregate write rate, in megabytes per second.
+	 */
+	public double getMegabytesPerSecond() {
+		return (this.numberOfBytes / (1024.0 * 1024.0)) / this.getElapsedSeconds();
+	}
+
+	/**
+	 * Get the aggregate file creation rate.
+	 *
+	 * @return The aggregate file creation rate, in files per second.
+	 */
+	public double getFilesPerSecond() {
+		return this.numberOfFiles / this.getElapsedSeconds();
+	}
+
+	private double getElapsedSeconds() {
+		return Math.max(this.elapsedTime, 1) / 1000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d files (%d failed), %d bytes in %d ms on %d threads: %.1f MB/s, %.1f files/s",
+				this.numberOfFiles, this.numberOfFailures, this.numberOfBytes, this.elapsedTime, this.numberOfThreads,
+				this.getMegabytesPerSecond(), this.getFilesPerSecond());
+	}
+}
@@ -1,9 +1,16 @@
 package org.fgb.io.filecache.client;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +21,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
+import org.apache.commons.io.FileUtils;
 
 import org.fgb.io.filecache.FileGenerator;
 import org.fgb.io.filecache.impl.FileSizeFileGenerator;
@@ -23,6 +31,9 @@ import org.fgb.io.filecache.util.FileSize;
 
 /**
  * Class <code>CacheBuilder</code> will write files to a directory on the file system.
+ * <p>
+ * The <code>populateCache</code> methods pre-warm a directory with many files, generated concurrently on
+ * the threads of this builder, and return a {@linkplain CacheBuildReport} with the aggregate throughput.
  * 
  * @author Frederick Burkley
  *
@@ -36,10 +47,26 @@ public class CacheBuilder {
 	 * JDK logger.
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The number of fields per line in the generated files.
+	 */
+	private static final short _NUMBER_OF_FIELDS_PER_LINE = 24;
+	/**
+	 * The smallest file generated when file sizes are randomized.
+	 */
+	private static final long _MINIMUM_RANDOM_FILE_SIZE = FileUtils.ONE_KB;
 	/**
 	 * An executor service to execute threads.
 	 */
 	private final ExecutorService executor;
+	/**
+	 * The number of threads of the executor service.
+	 */
+	private final int numberOfThreads;
+	/**
+	 * The write buffer of each thread of the executor service, shared by the generators that run on the thread.
+	 */
+	private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(FileSizeFileGenerator.DEFAULT_BUFFER_SIZE));
 	/**
 	 * The size of the file to generate. Either <code>fileSize</code> or
 	 * <code>numberOfLines</code> will be specified, but not both.
@@ -56,8 +83,18 @@ public class CacheBuilder {
 	 * Default Constructor.
 	 */
 	public CacheBuilder() {
+		this(1);
+	}
+
+	/**
+	 * Create a <code>CacheBuilder</code> that generates files on <code>numberOfThreads</code> threads.
+	 *
+	 * @param numberOfThreads The number of threads.
+	 */
+	public CacheBuilder(final int numberOfThreads) {
 		super();
-		this.executor = Executors.newSingleThreadExecutor();
+		this.numberOfThreads = numberOfThreads;
+		this.executor = Executors.newFixedThreadPool(numberOfThreads);
 //		Runtime.getRuntime().addShutdownHook(new Thread() {
 //		    public void run() {
 //		    	CacheBuilder.this.executor.shutdown();
@@ -66,9 +103,8 @@ public class CacheBuilder {
 	}
 
 	public void buildCache(final String directoryName, final long numberOfLines) {
-		short numberOfFieldsPerLine = 24;
 		String fileName = FileNameGenerator.getHopefullyUniqueFileName(directoryName, "txt");
-		FileGenerator generator = new LineCountFileGenerator(fileName, numberOfLines, numberOfFieldsPerLine);
+		FileGenerator generator = new LineCountFileGenerator(fileName, numberOfLines, _NUMBER_OF_FIELDS_PER_LINE);
 		try {
 			generator.generateFile();
 		} catch (IOException e) {
@@ -78,9 +114,8 @@ public class CacheBuilder {
 
 	public void buildCache(final String directoryName, final FileSize fileSize) {
 		Runnable task = () -> {
-			short numberOfFieldsPerLine = 24;
 			String fileName = FileNameGenerator.getHopefullyUniqueFileName(directoryName, ".txt");
-			FileGenerator generator = new FileSizeFileGenerator(fileName, fileSize.getFileSize(), numberOfFieldsPerLine);
+			FileGenerator generator = new FileSizeFileGenerator(fileName, fileSize.getFileSize(), _NUMBER_OF_FIELDS_PER_LINE);
 			try {
 				generator.generateFile();
 			} catch (IOException e) {
@@ -90,6 +125,163 @@ public class CacheBuilder {
 		Future f = this.executor.submit(task);
 	}
 
+	/**
+	 * Populate a directory with files of a given size, generating the files concurrently.
+	 * <p>
+	 * Files are generated until <code>numberOfFiles</code> files have been written, or until the planned
+	 * sizes add up to <code>totalSize</code> bytes, whichever comes first.  At least one of the two limits must be positive.
+	 *
+	 * @param directoryName The directory to populate.
+	 * @param fileSize The size of each file or, if <code>random</code> is <code>true</code>, the maximum size of each file.
+	 * @param random If <code>true</code>, file sizes are uniformly distributed between 1 KB and <code>fileSize</code>.
+	 * @param numberOfFiles The number of files to generate.  Ignored if not positive.
+	 * @param totalSize The total number of bytes to generate.  Ignored if not positive.
+	 * @return A report of the run.
+	 * @throws IllegalArgumentException If neither limit is positive, or if the file size is not positive.
+	 */
+	public CacheBuildReport populateCache(final String directoryName, final FileSize fileSize, final boolean random, final int numberOfFiles, final long totalSize) throws IllegalArgumentException {
+		if (numberOfFiles <= 0 && totalSize <= 0) {
+			throw new IllegalArgumentException(_className + ": Either the number of files or the total size must be specified.");
+		}
+		final long maximumSize = fileSize.getFileSize();
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException(_className + ": The file size must be positive: " + maximumSize + " bytes.");
+		}
+		Run run = new Run(directoryName);
+		try {
+			int plannedFiles = 0;
+			long plannedSize = 0;
+			while ((numberOfFiles <= 0 || plannedFiles < numberOfFiles) && (totalSize <= 0 || plannedSize < totalSize)) {
+				long size = maximumSize;
+				if (random && maximumSize > _MINIMUM_RANDOM_FILE_SIZE) {
+					size = ThreadLocalRandom.current().nextLong(_MINIMUM_RANDOM_FILE_SIZE, maximumSize + 1);
+				}
+				if (totalSize > 0) {
+					size = Math.min(size, totalSize - plannedSize);
+				}
+				if (size <= 0) {
+					break;
+				}
+				plannedFiles++;
+				plannedSize += size;
+				final String fileName = FileNameGenerator.getHopefullyUniqueFileName(directoryName, ".txt");
+				final long generatedSize = size;
+				run.submit(() -> {
+					// Created on the worker thread, so that it can borrow the write buffer of the thread.
+					FileSizeFileGenerator generator = new FileSizeFileGenerator(fileName, generatedSize, _NUMBER_OF_FIELDS_PER_LINE);
+					generator.setBuffer(this.buffers.get());
+					generator.generateFile();
+					return new File(fileName).length();
+				});
+			}
+			run.finish();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return run.getReport();
+	}
+
+	/**
+	 * Populate a directory with files of a given number of lines, generating the files concurrently.
+	 *
+	 * @param directoryName The directory to populate.
+	 * @param numberOfLines The number of lines in each file or, if <code>random</code> is <code>true</code>, the maximum number of lines in each file.
+	 * @param random If <code>true</code>, the number of lines is uniformly distributed between 1 and <code>numberOfLines</code>.
+	 * @param numberOfFiles The number of files to generate.
+	 * @return A report of the run.
+	 */
+	public CacheBuildReport populateCache(final String directoryName, final long numberOfLines, final boolean random, final int numberOfFiles) {
+		Run run = new Run(directoryName);
+		try {
+			for (int i = 0; i < numberOfFiles; i++) {
+				long lines = numberOfLines;
+				if (random && numberOfLines > 1) {
+					lines = ThreadLocalRandom.current().nextLong(1, numberOfLines + 1);
+				}
+				final String fileName = FileNameGenerator.getHopefullyUniqueFileName(directoryName, ".txt");
+				final FileGenerator generator = new LineCountFileGenerator(fileName, lines, _NUMBER_OF_FIELDS_PER_LINE);
+				run.submit(() -> {
+					generator.generateFile();
+					return new File(fileName).length();
+				});
+			}
+			run.finish();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return run.getReport();
+	}
+
+	/**
+	 * A run of the <code>populateCache</code> methods.  Tasks are submitted to the executor as they are planned, and
+	 * at most two per thread are in flight, so a large run is never held in memory as a list of tasks.
+	 */
+	private class Run {
+		/**
+		 * The tasks in flight, in order of completion.
+		 */
+		private final CompletionService<Long> completionService;
+		/**
+		 * The most tasks in flight.
+		 */
+		private final int maximumInFlight;
+		/**
+		 * The number of tasks in flight.
+		 */
+		private int inFlight;
+		private int files;
+		private int failures;
+		private long bytes;
+		private final long startTime;
+
+		Run(final String directoryName) {
+			this.completionService = new ExecutorCompletionService<Long>(CacheBuilder.this.executor);
+			this.maximumInFlight = 2 * CacheBuilder.this.numberOfThreads;
+			new File(directoryName).mkdirs();
+			this.startTime = System.currentTimeMillis();
+		}
+
+		/**
+		 * Submit a task that generates a file and returns its size, waiting for a task to complete if too many are in flight.
+		 */
+		void submit(final Callable<Long> task) throws InterruptedException {
+			if (this.inFlight >= this.maximumInFlight) {
+				this.collect();
+			}
+			this.completionService.submit(task);
+			this.inFlight++;
+		}
+
+		/**
+		 * Wait for the tasks in flight.
+		 */
+		void finish() throws InterruptedException {
+			while (this.inFlight > 0) {
+				this.collect();
+			}
+		}
+
+		/**
+		 * Wait for the next task to complete, and count it.
+		 */
+		private void collect() throws InterruptedException {
+			Future<Long> future = this.completionService.take();
+			this.inFlight--;
+			try {
+				this.bytes += future.get();
+				this.files++;
+			} catch (ExecutionException e) {
+				this.failures++;
+				_logger.logp(Level.SEVERE, _className, "populateCache", e.getCause().toString());
+			}
+		}
+
+		CacheBuildReport getReport() {
+			return new CacheBuildReport(this.files, this.failures, this.bytes, System.currentTimeMillis() - this.startTime,
+					CacheBuilder.this.numberOfThreads);
+		}
+	}
+
 
 	public void shutdown() {
     	this.executor.shutdown();
@@ -129,9 +321,19 @@ public class CacheBuilder {
 				"Randomize the files that are generated.  Works in conjunction with either the \"-n\" or the \"-s\" command line argument (but not both).");
 		Option sizeOption = new Option("s", "size", true,
 				"The approximate size of the file to generate.  Valid units are \"K\" and \"M\".  For example, \"20M\" will specify a file that is approximately 20 Megabytes in size.  Can work in conjunction with the \"-r\" command line option; if the \"-r\" option is specified, then the \"-s\" option will specify the maximum size of the files that are generated.  This option is optional.");
+		Option countOption = new Option("c", "count", true,
+				"The number of files to generate.  Defaults to 1 unless \"-b\" is specified.  This option is optional.");
+		Option budgetOption = new Option("b", "budget", true,
+				"The total size of the files to generate, for example \"4096M\".  Only valid with the \"-s\" option.  If \"-c\" is also specified, generation stops at whichever limit is reached first.  This option is optional.");
+		Option threadsOption = new Option("t", "threads", true,
+				"The number of threads that generate files.  Defaults to the number of available processors.  This option is optional.");
 		String directoryName = null;
 		String numberOfLines = null;
 		String fileSize = null;
+		String numberOfFiles = null;
+		String budget = null;
+		String numberOfThreads = null;
+		boolean random = false;
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
@@ -140,6 +342,9 @@ public class CacheBuilder {
 		options.addOption(numberOfLinesOption);
 		options.addOption(randomOption);
 		options.addOption(sizeOption);
+		options.addOption(countOption);
+		options.addOption(budgetOption);
+		options.addOption(threadsOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -157,11 +362,20 @@ public class CacheBuilder {
 				numberOfLines = commandLine.getOptionValue("n").trim();
 			}
 			if (commandLine.hasOption("r")) {
-				System.out.println(_className + ": The command line option \"-r\" is not supported at this time.");
+				random = true;
 			}
 			if (commandLine.hasOption("s")) {
 				fileSize = commandLine.getOptionValue("s").trim();
 			}
+			if (commandLine.hasOption("c")) {
+				numberOfFiles = commandLine.getOptionValue("c").trim();
+			}
+			if (commandLine.hasOption("b")) {
+				budget = commandLine.getOptionValue("b").trim();
+			}
+			if (commandLine.hasOption("t")) {
+				numberOfThreads = commandLine.getOptionValue("t").trim();
+			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
 			System.exit(1);
@@ -188,18 +402,32 @@ public class CacheBuilder {
 		// }
 		// }
 
-		CacheBuilder cacheBuilder = new CacheBuilder();
-		if (numberOfLines != null) {
-			cacheBuilder.buildCache(directoryName, Short.parseShort(numberOfLines));
-		} else {
-			FileSize size = null;
-			try {
-				size = new FileSize(fileSize);
-			} catch (IllegalArgumentException ex) {
-				System.out.println(ex.getMessage());
+		if (budget != null && fileSize == null) {
+			formatter.printHelp(_className, options);
+			System.exit(1);
+		}
+
+		CacheBuilder cacheBuilder = null;
+		CacheBuildReport report = null;
+		try {
+			int threads = numberOfThreads != null ? Integer.parseInt(numberOfThreads) : Runtime.getRuntime().availableProcessors();
+			int files = numberOfFiles != null ? Integer.parseInt(numberOfFiles) : (budget != null ? 0 : 1);
+			cacheBuilder = new CacheBuilder(threads);
+			if (numberOfLines != null) {
+				report = cacheBuilder.populateCache(directoryName, Long.parseLong(numberOfLines), random, files);
+			} else {
+				long totalSize = budget != null ? new FileSize(budget).getFileSize() : 0;
+				report = cacheBuilder.populateCache(directoryName, new FileSize(fileSize), random, files, totalSize);
+			}
+		} catch (IllegalArgumentException ex) {
+			// Includes NumberFormatException
+			System.out.println(ex.getMessage());
+			if (cacheBuilder != null) {
+				cacheBuilder.shutdown();
 			}
-			cacheBuilder.buildCache(directoryName, size);
+			System.exit(1);
 		}
+		System.out.println(_className + ": " + report);
 		cacheBuilder.shutdown();
 	}
 
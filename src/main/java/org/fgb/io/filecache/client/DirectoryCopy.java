@@ -5,7 +5,11 @@
 package org.fgb.io.filecache.client;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -17,8 +21,14 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.FileUtils;
 
+import org.fgb.io.filecache.util.SyncMode;
+
 /**
- * Does not seem to work for some strange reason.
+ * Copy the contents of one directory into another with {@linkplain FileUtils#copyDirectory(File, File, FileFilter, boolean)}.
+ * Last modified times are preserved.
+ * <p>
+ * By default every file is copied.  With {@linkplain #setSyncMode(SyncMode)} the files whose destination is already
+ * up to date are skipped.
  * 
  * @author burkley
  */
@@ -26,11 +36,15 @@ public class DirectoryCopy {
 	/**
 	 * The name of this class.
 	 */
-	private static final String _className = RecursiveCopy.class.getName();
+	private static final String _className = DirectoryCopy.class.getName();
 	/**
 	 * JDK logger.
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * Decides which files are copied.
+	 */
+	private SyncMode syncMode = SyncMode.ALWAYS;
 
 	/**
 	 *
@@ -38,12 +52,71 @@ public class DirectoryCopy {
 	public DirectoryCopy() {
 	}
 
+	/**
+	 * Set the mode that decides which files are copied.  The default is {@linkplain SyncMode#ALWAYS}.
+	 *
+	 * @param syncMode The sync mode.
+	 */
+	public void setSyncMode(final SyncMode syncMode) {
+		this.syncMode = syncMode;
+	}
+
+	/**
+	 * Copy the contents of <code>readPath</code> into <code>writePath</code>.
+	 *
+	 * @param readPath The directory to copy from.
+	 * @param writePath The directory to copy to.  Created if necessary.
+	 * @throws IOException If the copy fails.
+	 */
 	public void copy(final File readPath, final File writePath) throws IOException {
 		StringBuilder msg = new StringBuilder();
 		msg.append("Copy from ").append(readPath.getAbsolutePath());
 		msg.append(" to ").append(writePath);
 		System.out.println(msg.toString());
-		FileUtils.copyDirectory(writePath, readPath);
+		if (this.syncMode == SyncMode.ALWAYS) {
+			FileUtils.copyDirectory(readPath, writePath);
+		} else {
+			FileUtils.copyDirectory(readPath, writePath, new SyncFilter(readPath.toPath(), writePath.toPath(), this.syncMode), true);
+		}
+	}
+
+	/**
+	 * Accepts every directory, and the files that {@linkplain SyncMode#needsCopy} says have to be copied.
+	 */
+	private static class SyncFilter implements FileFilter {
+
+		private final Path readRoot;
+		private final Path writeRoot;
+		private final SyncMode syncMode;
+
+		SyncFilter(final Path readRoot, final Path writeRoot, final SyncMode syncMode) {
+			this.readRoot = readRoot;
+			this.writeRoot = writeRoot;
+			this.syncMode = syncMode;
+		}
+
+		@Override
+		public boolean accept(final File file) {
+			Path source = file.toPath();
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+				if (attributes.isDirectory()) {
+					return true;
+				}
+				Path destination = this.writeRoot.resolve(this.readRoot.relativize(source));
+				if (this.syncMode.needsCopy(source, attributes, destination)) {
+					return true;
+				}
+				if (this.syncMode == SyncMode.CHECKSUM) {
+					// Same content; align the time so that a later size and time sync skips it too.
+					Files.setLastModifiedTime(destination, attributes.lastModifiedTime());
+				}
+				return false;
+			} catch (IOException ex) {
+				// Let the copy report the problem.
+				return true;
+			}
+		}
 	}
 
 	/**
@@ -55,14 +128,17 @@ public class DirectoryCopy {
 		Option helpOption = new Option("h", "help", false, "Recursively walk a file system.");
 		Option readPathOption = new Option("r", "read", true, "The root directory of the file system to walk.  This argument is mandatory.");
 		Option writePathOption = new Option("w", "write", true, "The root directory of the file system to write.  This argument is mandatory.");
+		Option syncOption = new Option("s", "sync", true, "Only copy the files that changed: ALWAYS, SIZE_AND_MTIME or CHECKSUM.  Defaults to ALWAYS.  This argument is optional.");
 		String readPathName = null;
 		String writePathName = null;
+		SyncMode syncMode = SyncMode.ALWAYS;
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
 		options.addOption(helpOption);
 		options.addOption(readPathOption);
 		options.addOption(writePathOption);
+		options.addOption(syncOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -79,6 +155,15 @@ public class DirectoryCopy {
 			if (commandLine.hasOption("w")) {
 				writePathName = commandLine.getOptionValue("w");
 			}
+			if (commandLine.hasOption("s")) {
+				try {
+					syncMode = SyncMode.valueOf(commandLine.getOptionValue("s").toUpperCase());
+				} catch (IllegalArgumentException ex) {
+					msg.append(ex.toString()).append("  Defaulting the sync mode to ").append(SyncMode.ALWAYS).append(".\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
 			System.exit(1);
@@ -95,6 +180,7 @@ public class DirectoryCopy {
 		}
 
 		DirectoryCopy dc = new DirectoryCopy();
+		dc.setSyncMode(syncMode);
 		File readPathFile = new File(readPathName);
 		File writePathFile = new File(writePathName);
 		try {
@@ -1,14 +1,28 @@
 /*
  * Class:   RecursiveCopy.java
  * Born On: Jan, 2012
- * Purpose: Recursively copy a file system, excluding all hidden files.
+ * Purpose: Recursively copy a file system, excluding all hidden directories.
  */
 package org.fgb.io.filecache.client;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
-import java.util.Collection;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -18,13 +32,22 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
-import org.apache.commons.io.DirectoryWalker;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.HiddenFileFilter;
-import org.apache.commons.io.filefilter.IOFileFilter;
+
+import org.fgb.io.filecache.util.Copy;
+import org.fgb.io.filecache.util.SyncMode;
 
 /**
- * Recursively copy a file system, excluding all hidden files.
+ * Recursively copy a file system, excluding all hidden directories.
+ * <p>
+ * The copy runs in two phases on a {@linkplain ForkJoinPool}.  First the tree is discovered, one task per directory,
+ * and the destination directories are created.  Then the files are copied, largest first, by one worker per thread
+ * of the pool, so that a few large files do not end up at the tail of the copy.  Files are copied with
+ * {@linkplain Copy#copy(File, File)}, and keep their last modified time.
+ * <p>
+ * The read root is copied into the write root, i.e. <code>copy(a/b, c)</code> creates <code>c/b</code>.
+ * <p>
+ * By default every file is copied.  With {@linkplain #setSyncMode(SyncMode)} the discovery phase skips the files
+ * whose destination is already up to date, so re-synchronising a mostly unchanged tree only costs a walk.
  * <p>
  * @author Frederick Burkley
  */
@@ -39,27 +62,55 @@ public class RecursiveCopy {
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
 	/**
-	 * The directory walker will recursively walk the file system.
+	 * Orders files largest first.
 	 */
-	private RecursiveCopier recursiveCopier;
+	private static final Comparator<FileCopy> _LARGEST_FIRST = new Comparator<FileCopy>() {
+
+		@Override
+		public int compare(FileCopy fileCopy1, FileCopy fileCopy2) {
+			return Long.compare(fileCopy2.size, fileCopy1.size);
+		}
+	};
 	/**
-	 * The path to read from.
+	 * The number of threads that discover and copy files.
 	 */
-	private File readPath;
+	private final int parallelism;
 	/**
-	 * The path to write the file tree to.
+	 * The file copy engine.
 	 */
-	private File writePath;
+	private final Copy fileCopier;
 	/**
-	 * Boolean to indicate whether the <code>readPath</code> is absolute.
+	 * Decides which files are copied.
 	 */
-	private boolean readPathIsAbsolute;
+	private SyncMode syncMode = SyncMode.ALWAYS;
 
 	/**
-	 * Recursively copy a file system, excluding all hidden files.
+	 * Recursively copy a file system, excluding all hidden directories, with one thread per processor.
 	 */
 	public RecursiveCopy() {
-		this.recursiveCopier = new RecursiveCopier(HiddenFileFilter.VISIBLE, null, -1);
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Recursively copy a file system, excluding all hidden directories.
+	 *
+	 * @param parallelism The number of threads that discover and copy files.
+	 */
+	public RecursiveCopy(final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism can not be less than 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		this.fileCopier = new Copy();
+	}
+
+	/**
+	 * Set the mode that decides which files are copied.  The default is {@linkplain SyncMode#ALWAYS}.
+	 *
+	 * @param syncMode The sync mode.
+	 */
+	public void setSyncMode(final SyncMode syncMode) {
+		this.syncMode = syncMode;
 	}
 
 	/**
@@ -68,97 +119,150 @@ public class RecursiveCopy {
 	 * @param writePath The root directory of the file system to write to.
 	 */
 	public void copy(final File readPath, final File writePath) throws IOException {
-		this.readPath = readPath;
-		this.writePath = writePath;
-		if (this.readPath.getPath().startsWith(".")) {
-			this.readPathIsAbsolute = false;
-		} else {
-			this.readPathIsAbsolute = true;
+		// The roots are resolved once; every other path is derived from them.
+		Path readRoot = readPath.getCanonicalFile().toPath();
+		Path writeRoot = writePath.getCanonicalFile().toPath();
+		Path readRootName = readRoot.getFileName();
+		Path destinationRoot = readRootName == null ? writeRoot : writeRoot.resolve(readRootName);
+		ConcurrentLinkedQueue<FileCopy> files = new ConcurrentLinkedQueue<FileCopy>();
+		AtomicInteger skipped = new AtomicInteger();
+		long startTime = System.currentTimeMillis();
+
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		try {
+			pool.invoke(new DirectoryTask(readRoot, destinationRoot, files, this.syncMode, skipped));
+
+			FileCopy[] copies = files.toArray(new FileCopy[files.size()]);
+			Arrays.sort(copies, _LARGEST_FIRST);
+			AtomicInteger next = new AtomicInteger();
+			List<CopyTask> tasks = new ArrayList<CopyTask>(this.parallelism);
+			for (int i = 0; i < this.parallelism; i++) {
+				tasks.add(new CopyTask(copies, next));
+			}
+			pool.invoke(new RecursiveAction() {
+
+				@Override
+				protected void compute() {
+					ForkJoinTask.invokeAll(tasks);
+				}
+			});
+
+			if (_logger.isLoggable(Level.FINE)) {
+				long bytes = 0;
+				for (FileCopy copy : copies) {
+					bytes += copy.size;
+				}
+				_logger.fine("Copied " + copies.length + " files (" + bytes + " bytes, " + skipped.get() + " up to date) from " + readRoot
+						+ " to " + destinationRoot + " in " + (System.currentTimeMillis() - startTime) + " milliseconds on " + this.parallelism + " threads");
+			}
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		} finally {
+			pool.shutdown();
 		}
-		System.out.println(_className + ".copy(): this.readPathIsAbsolute=" + this.readPathIsAbsolute);
-		this.recursiveCopier.invoke();
 	}
 
 	/**
-	 * Class <code>RecursiveCopier</code> will recursively copy a directory tree.  Hidden files will not be copied.
+	 * A file to copy.
 	 */
-	class RecursiveCopier extends DirectoryWalker {
+	private static class FileCopy {
 
-		public RecursiveCopier(IOFileFilter directoryFilter, IOFileFilter fileFilter, int depthLimit) {
-			super(directoryFilter, fileFilter, depthLimit);
-		}
+		private final Path source;
+		private final Path destination;
+		private final long size;
+		private final FileTime lastModifiedTime;
 
-		public RecursiveCopier(FileFilter filter, int depthLimit) {
-			super(filter, depthLimit);
+		FileCopy(final Path source, final Path destination, final BasicFileAttributes attributes) {
+			this.source = source;
+			this.destination = destination;
+			this.size = attributes.size();
+			this.lastModifiedTime = attributes.lastModifiedTime();
 		}
+	}
 
-		public RecursiveCopier() {
-		}
+	/**
+	 * Create the destination of one directory, queue the files that need copying, and fork a task for each visible
+	 * subdirectory.
+	 */
+	private static class DirectoryTask extends RecursiveAction {
 
-		public void invoke() throws IOException {
-			super.walk(RecursiveCopy.this.readPath, null);
-		}
+		private static final long serialVersionUID = 1L;
+		private final Path source;
+		private final Path destination;
+		private final Queue<FileCopy> files;
+		private final SyncMode syncMode;
+		private final AtomicInteger skipped;
 
-		@Override
-		protected void handleDirectoryEnd(File directory, int depth, Collection results) throws IOException {
-//			System.out.println(this.getClass().getName() + ".handleDirectoryEnd(): dir = " + directory.getName());
-			super.handleDirectoryEnd(directory, depth, results);
+		DirectoryTask(final Path source, final Path destination, final Queue<FileCopy> files, final SyncMode syncMode,
+				final AtomicInteger skipped) {
+			this.source = source;
+			this.destination = destination;
+			this.files = files;
+			this.syncMode = syncMode;
+			this.skipped = skipped;
 		}
 
 		@Override
-		protected void handleDirectoryStart(File directory, int depth, Collection results) throws IOException {
-//			System.out.println(this.getClass().getName() + ".handleDirectoryStart(): dir = " + directory.getName());
-			super.handleDirectoryStart(directory, depth, results);
+		protected void compute() {
+			List<DirectoryTask> subdirectories = new ArrayList<DirectoryTask>();
+			try {
+				Files.createDirectories(this.destination);
+				try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.source)) {
+					for (Path child : stream) {
+						BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class);
+						Path destinationChild = this.destination.resolve(child.getFileName().toString());
+						if (attributes.isDirectory()) {
+							if (!Files.isHidden(child)) {
+								subdirectories.add(new DirectoryTask(child, destinationChild, this.files, this.syncMode, this.skipped));
+							}
+						} else if (attributes.isRegularFile()) {
+							if (this.syncMode.needsCopy(child, attributes, destinationChild)) {
+								this.files.add(new FileCopy(child, destinationChild, attributes));
+							} else {
+								if (this.syncMode == SyncMode.CHECKSUM) {
+									// Same content; align the time so that a later size and time sync skips it too.
+									Files.setLastModifiedTime(destinationChild, attributes.lastModifiedTime());
+								}
+								this.skipped.incrementAndGet();
+							}
+						}
+					}
+				}
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			ForkJoinTask.invokeAll(subdirectories);
 		}
+	}
 
-		@Override
-		protected boolean handleDirectory(File directory, int depth, Collection results) throws IOException {
-//			System.out.println(this.getClass().getName() + ".handleDirectory(): directory.getAbsolutePath() = " + directory.getAbsolutePath());
-			boolean ret = this.createDestinationDirectory(directory);
-			return ret;
-		}
+	/**
+	 * Copy files from a list sorted largest first, taking the next file from a shared index until the list is exhausted.
+	 */
+	private class CopyTask extends RecursiveAction {
 
-		@Override
-		protected void handleFile(File file, int depth, Collection results) throws IOException {
-			// Get the root of the directory that is to be read.
-			String readFile = file.getCanonicalPath().substring(RecursiveCopy.this.readPath.getCanonicalFile().getParent().length() + 1);
-
-			// The root of the directory that is to be read will be appended to the directory that is to be written.
-			StringBuilder writeFile = new StringBuilder(RecursiveCopy.this.writePath.getCanonicalPath());
-			writeFile.append(File.separator);
-			writeFile.append(readFile);
-
-//			System.out.println(this.getClass().getName() + ".handleFile():  readFile = >" + readFile + "<");
-//			System.out.println(this.getClass().getName() + ".handleFile(): writeFile = >" + writeFile + "<");
-			FileUtils.copyFile(file, new File(writeFile.toString()));
-			return;
+		private static final long serialVersionUID = 1L;
+		private final FileCopy[] copies;
+		private final AtomicInteger next;
+
+		CopyTask(final FileCopy[] copies, final AtomicInteger next) {
+			this.copies = copies;
+			this.next = next;
 		}
 
-		/**
-		 * Create the destination directory.
-		 *
-		 * @param directory The directory that is to be read.
-		 * @return <code>true</code> if the destination directory was created, else <code>false</code>.
-		 * @throws IOException If an <code>IOException</code> occurs during processing.
-		 */
-		private boolean createDestinationDirectory(final File directory) throws IOException {
-//			System.out.println("START: directory.getCanonicalPath()=" + directory.getCanonicalPath());
-//			System.out.println("     :  readPath.getCanonicalPath()=" + RecursiveCopy.this.readPath.getCanonicalPath());
-			String readDir = directory.getCanonicalPath().substring(RecursiveCopy.this.readPath.getCanonicalFile().getParent().length() + 1);
-			StringBuilder writeDir = new StringBuilder(RecursiveCopy.this.writePath.getCanonicalPath());
-			writeDir.append(File.separator);
-			writeDir.append(readDir);
-//			System.out.println(this.getClass().getName() + ".createDestinationDirectory1(): readDir = >" + readDir + "<");
-//			System.out.println(this.getClass().getName() + ".createDestinationDirectory1(): writeDir = >" + writeDir.toString() + "<");
-
-			boolean ret = false;
-			File file = new File(writeDir.toString());
-			if (file.exists() && file.canWrite() && file.canExecute()) {
-				ret = true;
-			} else {
-				ret = file.mkdirs();
+		@Override
+		protected void compute() {
+			int index;
+			while ((index = this.next.getAndIncrement()) < this.copies.length) {
+				FileCopy copy = this.copies[index];
+				try {
+					RecursiveCopy.this.fileCopier.copy(copy.source.toFile(), copy.destination.toFile());
+					Files.setLastModifiedTime(copy.destination, copy.lastModifiedTime);
+				} catch (IOException ex) {
+					// Stop the other workers too.
+					this.next.set(this.copies.length);
+					throw new UncheckedIOException(ex);
+				}
 			}
-			return true;
 		}
 	}
 
@@ -169,17 +273,23 @@ public class RecursiveCopy {
 	 */
 	public static void main(String[] args) {
 		// Command line options
-		Option helpOption = new Option("h", "help", false, "Recursively copy a file system, excluding all hidden files.");
+		Option helpOption = new Option("h", "help", false, "Recursively copy a file system, excluding all hidden directories.");
 		Option readPathOption = new Option("r", "read", true, "The root directory of the file system to read from.  This argument is mandatory.");
 		Option writePathOption = new Option("w", "write", true, "The root directory of the file system to write to.  This argument is mandatory.");
+		Option parallelismOption = new Option("p", "parallelism", true, "The number of threads that copy files.  Defaults to the number of processors.  This argument is optional.");
+		Option syncOption = new Option("s", "sync", true, "Only copy the files that changed: ALWAYS, SIZE_AND_MTIME or CHECKSUM.  Defaults to ALWAYS.  This argument is optional.");
 		String readPathName = null;
 		String writePathName = null;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		SyncMode syncMode = SyncMode.ALWAYS;
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
 		options.addOption(helpOption);
 		options.addOption(readPathOption);
 		options.addOption(writePathOption);
+		options.addOption(parallelismOption);
+		options.addOption(syncOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -196,6 +306,30 @@ public class RecursiveCopy {
 			if (commandLine.hasOption("w")) {
 				writePathName = commandLine.getOptionValue("w");
 			}
+			if (commandLine.hasOption("p")) {
+				try {
+					parallelism = Integer.parseInt(commandLine.getOptionValue("p"));
+					if (parallelism < 1) {
+						msg.append("The parallelism can not be less than 1.  Defaulting the parallelism to ").append(Runtime.getRuntime().availableProcessors()).append(".\n");
+						_logger.log(Level.WARNING, msg.toString());
+						msg.delete(0, msg.length());
+						parallelism = Runtime.getRuntime().availableProcessors();
+					}
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Defaulting the parallelism to ").append(Runtime.getRuntime().availableProcessors()).append(".\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
+			if (commandLine.hasOption("s")) {
+				try {
+					syncMode = SyncMode.valueOf(commandLine.getOptionValue("s").toUpperCase());
+				} catch (IllegalArgumentException ex) {
+					msg.append(ex.toString()).append("  Defaulting the sync mode to ").append(SyncMode.ALWAYS).append(".\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
 			System.exit(1);
@@ -211,7 +345,8 @@ public class RecursiveCopy {
 			System.exit(1);
 		}
 
-		RecursiveCopy fs = new RecursiveCopy();
+		RecursiveCopy fs = new RecursiveCopy(parallelism);
+		fs.setSyncMode(syncMode);
 		File readPathFile = new File(readPathName);
 		File writePathFile = new File(writePathName);
 		System.out.println(_className + "File.separator=" + File.separator);
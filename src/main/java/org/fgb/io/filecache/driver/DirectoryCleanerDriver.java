@@ -5,7 +5,17 @@
  */
 package org.fgb.io.filecache.driver;
 
+import org.fgb.io.filecache.BatchDeleter;
+import org.fgb.io.filecache.DirectoryEventSource;
 import org.fgb.io.filecache.DirectoryCleaner;
+import org.fgb.io.filecache.DirectoryCleanerService;
+import org.fgb.io.filecache.EvictionPolicy;
+import org.fgb.io.filecache.impl.EvictionPolicies;
+import org.fgb.io.filecache.impl.PollingDirectoryEventSource;
+import org.fgb.io.filecache.impl.TimeToLiveEvictionPolicy;
+import org.fgb.io.filecache.impl.WatchServiceDirectoryEventSource;
+import org.fgb.io.filecache.util.FileSize;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -30,6 +40,10 @@ public class DirectoryCleanerDriver {
 	 * JDK logger.
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * By default, the target free percentage is this many points above the minimum free percentage.
+	 */
+	private static final double DEFAULT_FREE_SPACE_HYSTERESIS = 5;
 
 	/**
 	 * Bootstrap.
@@ -38,13 +52,47 @@ public class DirectoryCleanerDriver {
 	public static void main(String[] args) {
 		// Command line options
 		Option helpOption = new Option("h", "help", false, "Monitor a directory and delete files in the directory when the directory reaches a certain size.");
-		Option fileOption = new Option("f", "file", true, "The name of the directory to monitor.  This argument is mandatory.");
-		String directoryName = null;
+		Option fileOption = new Option("f", "file", true, "The name of the directory to monitor.  Repeat the option to monitor several directories on one shared thread pool; each directory gets the quota given by \"-m\" and \"-l\".  This argument is mandatory.");
+		Option pollOption = new Option("p", "poll", false, "Poll the directory for changes instead of using the file system watch service.  Use this on file systems that do not support change notification.  This argument is optional.");
+		Option highWaterMarkOption = new Option("m", "highMark", true, "The size of the directory at which cleaning kicks in, for example \"256M\".  Valid units are \"K\" and \"M\".  Must be specified together with \"-l\".  This argument is optional.");
+		Option lowWaterMarkOption = new Option("l", "lowMark", true, "The size the directory is cleaned down to once cleaning has kicked in, for example \"200M\".  Valid units are \"K\" and \"M\".  Must be specified together with \"-m\".  This argument is optional.");
+		Option evictionPolicyOption = new Option("e", "evict", true, "The eviction policy: " + EvictionPolicies.NAMES + ".  Defaults to MTIME.  This argument is optional.");
+		Option globalHighWaterMarkOption = new Option("M", "globalHighMark", true, "The total size of all the directories at which cleaning kicks in, for example \"4096M\".  Each directory gives up a share of the excess in proportion to its size.  Must be specified together with \"-L\".  This argument is optional.");
+		Option globalLowWaterMarkOption = new Option("L", "globalLowMark", true, "The total size all the directories are cleaned down to once global cleaning has kicked in.  Must be specified together with \"-M\".  This argument is optional.");
+		Option threadsOption = new Option("n", "threads", true, "The number of threads shared by the cleaners of several directories.  Defaults to " + DirectoryCleanerService.DEFAULT_THREADS + ".  This argument is optional.");
+		Option freeSpaceOption = new Option("F", "freeSpace", true, "Keep a percentage of the volume free, as \"minimum[:target]\", for example \"10:15\": cleaning kicks in when less than 10% of the volume is free, and frees space until 15% is.  The target defaults to the minimum plus " + DEFAULT_FREE_SPACE_HYSTERESIS + ".  Without \"-m\" and \"-l\", the directory is cleaned on free space alone.  Only valid with a single directory.  This argument is optional.");
+		Option deletesOption = new Option("d", "deletes", true, "The number of files deleted at once when cleaning.  Defaults to " + BatchDeleter.DEFAULT_PARALLELISM + ".  This argument is optional.");
+		Option trashOption = new Option("r", "trash", false, "Evict files by renaming them into a trash directory in the monitored directory, and unlink them in the background on a low priority thread.  This argument is optional.");
+		Option timeToLiveOption = new Option("t", "ttl", true, "Delete files this many seconds after they were last written, whatever the size of the directory.  This argument is optional.");
+		String[] directoryNames = null;
+		boolean poll = false;
+		String evictionPolicyName = null;
+		long timeToLive = 0;
+		String highWaterMark = null;
+		String lowWaterMark = null;
+		String globalHighWaterMark = null;
+		String globalLowWaterMark = null;
+		int threads = DirectoryCleanerService.DEFAULT_THREADS;
+		int deleteParallelism = BatchDeleter.DEFAULT_PARALLELISM;
+		boolean trash = false;
+		double minimumFreePercent = -1;
+		double targetFreePercent = -1;
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
 		options.addOption(helpOption);
 		options.addOption(fileOption);
+		options.addOption(pollOption);
+		options.addOption(highWaterMarkOption);
+		options.addOption(lowWaterMarkOption);
+		options.addOption(evictionPolicyOption);
+		options.addOption(globalHighWaterMarkOption);
+		options.addOption(globalLowWaterMarkOption);
+		options.addOption(threadsOption);
+		options.addOption(freeSpaceOption);
+		options.addOption(deletesOption);
+		options.addOption(trashOption);
+		options.addOption(timeToLiveOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -56,7 +104,71 @@ public class DirectoryCleanerDriver {
 				System.exit(0);
 			}
 			if (commandLine.hasOption("f")) {
-				directoryName = commandLine.getOptionValue("f");
+				directoryNames = commandLine.getOptionValues("f");
+			}
+			if (commandLine.hasOption("p")) {
+				poll = true;
+			}
+			if (commandLine.hasOption("m")) {
+				highWaterMark = commandLine.getOptionValue("m").trim();
+			}
+			if (commandLine.hasOption("l")) {
+				lowWaterMark = commandLine.getOptionValue("l").trim();
+			}
+			if (commandLine.hasOption("M")) {
+				globalHighWaterMark = commandLine.getOptionValue("M").trim();
+			}
+			if (commandLine.hasOption("L")) {
+				globalLowWaterMark = commandLine.getOptionValue("L").trim();
+			}
+			if (commandLine.hasOption("n")) {
+				try {
+					threads = Integer.parseInt(commandLine.getOptionValue("n").trim());
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Using ").append(threads).append(" threads.\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
+			if (commandLine.hasOption("r")) {
+				trash = true;
+			}
+			if (commandLine.hasOption("d")) {
+				try {
+					deleteParallelism = Integer.parseInt(commandLine.getOptionValue("d").trim());
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Deleting ").append(deleteParallelism).append(" files at once.\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
+			if (commandLine.hasOption("F")) {
+				String[] percents = commandLine.getOptionValue("F").trim().split(":");
+				try {
+					minimumFreePercent = Double.parseDouble(percents[0]);
+					targetFreePercent = percents.length > 1 ? Double.parseDouble(percents[1]) : minimumFreePercent + DEFAULT_FREE_SPACE_HYSTERESIS;
+				} catch (NumberFormatException ex) {
+					System.out.println(ex.getMessage());
+					System.exit(1);
+				}
+			}
+			if (commandLine.hasOption("e")) {
+				evictionPolicyName = commandLine.getOptionValue("e").trim();
+				try {
+					EvictionPolicies.forName(evictionPolicyName);
+				} catch (IllegalArgumentException ex) {
+					System.out.println(ex.getMessage());
+					System.exit(1);
+				}
+			}
+			if (commandLine.hasOption("t")) {
+				try {
+					timeToLive = Long.parseLong(commandLine.getOptionValue("t").trim());
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Files will not expire.\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
 			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
@@ -64,17 +176,81 @@ public class DirectoryCleanerDriver {
 		}
 
 		// Check for necessary command line args
-		if (directoryName == null) {
+		if (directoryNames == null) {
+			formatter.printHelp(_className, options);
+			System.exit(1);
+		}
+
+		if (highWaterMark == null ^ lowWaterMark == null || globalHighWaterMark == null ^ globalLowWaterMark == null
+				|| (minimumFreePercent >= 0 && (directoryNames.length > 1 || globalHighWaterMark != null))) {
 			formatter.printHelp(_className, options);
 			System.exit(1);
 		}
+		long high = DirectoryCleaner.DIRECTORY_HIGH_WATER_MARK;
+		long low = DirectoryCleaner.DIRECTORY_LOW_WATER_MARK;
+		if (highWaterMark != null) {
+			high = new FileSize(highWaterMark).getFileSize();
+			low = new FileSize(lowWaterMark).getFileSize();
+		} else if (minimumFreePercent >= 0) {
+			high = Long.MAX_VALUE;
+			low = Long.MAX_VALUE;
+		}
+
+		DirectoryEventSource eventSource;
+		if (poll) {
+			eventSource = new PollingDirectoryEventSource();
+		} else {
+			eventSource = new WatchServiceDirectoryEventSource();
+		}
 
-		DirectoryCleaner monitor = new DirectoryCleaner(directoryName);
 		try {
-			monitor.start();
+			if (directoryNames.length == 1 && globalHighWaterMark == null) {
+				DirectoryCleaner monitor = new DirectoryCleaner(directoryNames[0], high, low, eventSource);
+				setEvictionPolicy(monitor, evictionPolicyName, timeToLive);
+				monitor.setDeleteParallelism(deleteParallelism);
+				monitor.setTrashEnabled(trash);
+				if (minimumFreePercent >= 0) {
+					monitor.setFreeSpaceQuota(minimumFreePercent, targetFreePercent);
+				}
+				monitor.start();
+			} else {
+				// One eviction thread per directory, up to the default.
+				DirectoryCleanerService service = new DirectoryCleanerService(eventSource, threads, deleteParallelism,
+						Math.min(directoryNames.length, DirectoryCleanerService.DEFAULT_EVICTION_THREADS));
+				service.setTrashEnabled(trash);
+				if (globalHighWaterMark != null) {
+					service.setGlobalQuota(new FileSize(globalHighWaterMark).getFileSize(), new FileSize(globalLowWaterMark).getFileSize());
+				}
+				for (String directoryName : directoryNames) {
+					setEvictionPolicy(service.addDirectory(directoryName, high, low), evictionPolicyName, timeToLive);
+				}
+				service.start();
+			}
+		} catch (IllegalArgumentException ex) {
+			System.out.println(ex.getMessage());
+			System.exit(1);
 		} catch (Exception ex) {
 			_logger.log(Level.SEVERE, null, ex);
-		} finally {
+		}
+	}
+
+	/**
+	 * Give a cleaner its own instance of the eviction policy.
+	 *
+	 * @param cleaner The cleaner.
+	 * @param evictionPolicyName The name of the eviction policy, or <code>null</code> for the default.
+	 * @param timeToLive The time to live of files, in seconds, or 0 if files do not expire.  It replaces the time to live
+	 * of a <code>TTL</code> policy.
+	 */
+	private static void setEvictionPolicy(final DirectoryCleaner cleaner, final String evictionPolicyName, final long timeToLive) {
+		EvictionPolicy evictionPolicy = evictionPolicyName == null ? null : EvictionPolicies.forName(evictionPolicyName);
+		if (timeToLive > 0) {
+			evictionPolicy = evictionPolicy == null || evictionPolicy instanceof TimeToLiveEvictionPolicy
+					? new TimeToLiveEvictionPolicy(TimeUnit.SECONDS.toMillis(timeToLive))
+					: new TimeToLiveEvictionPolicy(TimeUnit.SECONDS.toMillis(timeToLive), evictionPolicy);
+		}
+		if (evictionPolicy != null) {
+			cleaner.setEvictionPolicy(evictionPolicy);
 		}
 	}
 
@@ -5,7 +5,10 @@
  */
 package org.fgb.io.filecache.driver;
 
+import org.fgb.io.filecache.DirectoryEventSource;
 import org.fgb.io.filecache.DirectoryMonitor;
+import org.fgb.io.filecache.impl.PollingDirectoryEventSource;
+import org.fgb.io.filecache.impl.WatchServiceDirectoryEventSource;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -39,12 +42,15 @@ public class DirectoryMonitorDriver {
 		// Command line options
 		Option helpOption = new Option("h", "help", false, "Monitor a directory for events of interest.");
 		Option fileOption = new Option("f", "file", true, "The name of the directory to monitor.  This argument is mandatory.");
+		Option pollOption = new Option("p", "poll", false, "Poll the directory for changes instead of using the file system watch service.  Use this on file systems that do not support change notification.  This argument is optional.");
 		String directoryName = null;
+		boolean poll = false;
 		StringBuilder msg = new StringBuilder();
 
 		Options options = new Options();
 		options.addOption(helpOption);
 		options.addOption(fileOption);
+		options.addOption(pollOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -58,6 +64,9 @@ public class DirectoryMonitorDriver {
 			if (commandLine.hasOption("f")) {
 				directoryName = commandLine.getOptionValue("f");
 			}
+			if (commandLine.hasOption("p")) {
+				poll = true;
+			}
 		} catch (ParseException pe) {
 			_logger.log(Level.SEVERE, null, pe);
 			System.exit(1);
@@ -69,7 +78,14 @@ public class DirectoryMonitorDriver {
 			System.exit(1);
 		}
 
-		DirectoryMonitor monitor = new DirectoryMonitor(directoryName);
+		DirectoryEventSource eventSource;
+		if (poll) {
+			eventSource = new PollingDirectoryEventSource();
+		} else {
+			eventSource = new WatchServiceDirectoryEventSource();
+		}
+
+		DirectoryMonitor monitor = new DirectoryMonitor(directoryName, eventSource);
 		try {
 			monitor.start();
 		} catch (Exception ex) {
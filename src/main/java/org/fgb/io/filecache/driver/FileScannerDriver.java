@@ -0,0 +1,132 @@
+/*
+ * Class:   FileScannerDriver
+ * Born On: Oct, 2026
+ * Purpose: Summarise a generated file, column by column.
+ */
+package org.fgb.io.filecache.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+import org.fgb.io.filecache.util.ColumnStatistics;
+import org.fgb.io.filecache.util.ParallelFileScanner;
+
+
+/**
+ * Summarise a generated text file: the number of lines, and the count, minimum, maximum, sum and mean of each column.
+ *
+ * @author Frederick Burkley
+ */
+public class FileScannerDriver {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = FileScannerDriver.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+
+	/**
+	 * Create a <code>FileScannerDriver</code>.
+	 */
+	public FileScannerDriver() {
+	}
+
+
+	/**
+	 * Bootstrap.
+	 * @param args The command line arguments.
+	 */
+	public static void main(String[] args) {
+		// Command line options
+		Option helpOption = new Option("h", "help", false, "Summarise a generated file, column by column.");
+		Option fileOption = new Option("f", "file", true, "The name of the file to scan.  It must not be compressed.  This argument is mandatory.");
+		Option benchmarkOption = new Option("b", "benchmark", false, "Enable benchmarking.  This argument is optional.");
+		Option threadsOption = new Option("t", "threads", true, "The number of parsing threads.  The default is the number of processors.  This argument is optional.");
+		String fileName = null;
+		boolean benchmark = false;
+		int threads = 0;
+		StringBuilder msg = new StringBuilder();
+
+		Options options = new Options();
+		options.addOption(helpOption);
+		options.addOption(fileOption);
+		options.addOption(benchmarkOption);
+		options.addOption(threadsOption);
+
+		HelpFormatter formatter = new HelpFormatter();
+		CommandLineParser parser = new PosixParser();
+
+		try {
+			CommandLine commandLine = parser.parse(options, args);
+			if (commandLine.hasOption("h")) {
+				formatter.printHelp(_className, options);
+				System.exit(0);
+			}
+			if (commandLine.hasOption("f")) {
+				fileName = commandLine.getOptionValue("f");
+			}
+			if (commandLine.hasOption("b")) {
+				benchmark = true;
+			}
+			if (commandLine.hasOption("t")) {
+				try {
+					threads = Integer.parseInt(commandLine.getOptionValue("t"));
+					if (threads < 1) {
+						msg.append("The number of parsing threads can not be less than 1.  Defaulting to the number of processors.\n");
+						_logger.log(Level.WARNING, msg.toString());
+						msg.delete(0, msg.length());
+						threads = 0;
+					}
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Defaulting to the number of processors.\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
+		} catch (ParseException pe) {
+			pe.printStackTrace();
+			System.exit(1);
+		}
+
+		// Check for necessary command line args
+		if (fileName == null) {
+			formatter.printHelp(_className, options);
+			System.exit(1);
+		}
+
+		ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+		ParallelFileScanner scanner = new ParallelFileScanner(new File(fileName));
+		scanner.setForkJoinPool(pool);
+		try {
+			long startTime = System.currentTimeMillis();
+			ColumnStatistics statistics = scanner.scan();
+			long stopTime = System.currentTimeMillis();
+			System.out.print(statistics);
+			if (benchmark) {
+				long bytes = new File(fileName).length();
+				System.out.println(_className + ".main(): Elapsed Time = " + (stopTime - startTime) + " milliseconds, "
+						+ (bytes / 1048576.0) / Math.max(stopTime - startTime, 1) * 1000 + " MB/s");
+			}
+		} catch (IOException ex) {
+			_logger.log(Level.SEVERE, null, ex);
+			System.exit(1);
+		} finally {
+			if (pool != ForkJoinPool.commonPool()) {
+				pool.shutdown();
+			}
+		}
+	}
+}
@@ -65,12 +65,16 @@ public class SampleFileGeneratorDriver {
 		Option zipOption = new Option("z", "zip", false, "Zip compress the output file.  This argument is optional.");
 		Option gZipOption = new Option("g", "gzip", false, "GZip compress the output file.  This argument is optional.");
 //		Option gZipOption = new Option("g", "gzip", false, "Uncompressed output followed by explicit copy with GZip compression.  This argument is optional.");
+		Option threadsOption = new Option("t", "threads", true, "The number of GZip compression threads.  More than one compresses in parallel blocks.  This argument is optional.");
+		Option binaryOption = new Option("B", "binary", false, "Write binary little-endian float32 columns instead of text.  This argument is optional.");
 		String fileName = null;
 		int numberOfLines = _DEFAULT_NUMBER_OF_LINES;
 		short numberOfFieldsPerLine;
 		boolean benchmark = false;
 		boolean zipCompress = false;
 		boolean gzipCompress = false;
+		int compressionThreads = 1;
+		boolean binary = false;
 		int loopCount = _DEFAULT_LOOP_COUNT;
 		StringBuilder msg = new StringBuilder();
 
@@ -82,6 +86,8 @@ public class SampleFileGeneratorDriver {
 		options.addOption(lineCountOption);
 		options.addOption(zipOption);
 		options.addOption(gZipOption);
+		options.addOption(threadsOption);
+		options.addOption(binaryOption);
 
 		HelpFormatter formatter = new HelpFormatter();
 		CommandLineParser parser = new PosixParser();
@@ -137,6 +143,24 @@ public class SampleFileGeneratorDriver {
 			if (commandLine.hasOption("g")) {
 				gzipCompress = true;
 			}
+			if (commandLine.hasOption("B")) {
+				binary = true;
+			}
+			if (commandLine.hasOption("t")) {
+				try {
+					compressionThreads = Integer.parseInt(commandLine.getOptionValue("t"));
+					if (compressionThreads < 1) {
+						msg.append("The number of compression threads can not be less than 1.  Defaulting the number of compression threads to 1.\n");
+						_logger.log(Level.WARNING, msg.toString());
+						msg.delete(0, msg.length());
+						compressionThreads = 1;
+					}
+				} catch (NumberFormatException ex) {
+					msg.append(ex.toString()).append("  Defaulting the number of compression threads to 1.\n");
+					_logger.log(Level.WARNING, msg.toString());
+					msg.delete(0, msg.length());
+				}
+			}
 		} catch (ParseException pe) {
 			pe.printStackTrace();
 			System.exit(1);
@@ -153,6 +177,8 @@ public class SampleFileGeneratorDriver {
 		generator.setBenchmark(benchmark);
 		generator.enableZipCompression(zipCompress);
 		generator.enableGZipCompression(gzipCompress);
+		generator.setCompressionThreads(compressionThreads);
+		generator.enableBinaryOutput(binary);
 		try {
 			for (int i = 0; i < loopCount; i++) {
 				generator.generateFile();
@@ -0,0 +1,80 @@
+/*
+ * Class:   ColumnarOutput
+ * Born On: Oct, 2026
+ * Purpose: Write the binary columnar output of the file generators.
+ */
+package org.fgb.io.filecache.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+import org.fgb.io.filecache.util.ColumnarFloatFile;
+import org.fgb.io.filecache.util.RandomLineHelper;
+
+/**
+ * Class <code>ColumnarOutput</code> writes the binary output shared by the {@linkplain org.fgb.io.filecache.FileGenerator}
+ * implementations: the numbers of {@linkplain RandomLineHelper} as a {@linkplain ColumnarFloatFile}.  The values are
+ * independent, so each column is generated in turn and the file is written front to back.
+ *
+ * @author Frederick Burkley
+ */
+final class ColumnarOutput {
+
+	private ColumnarOutput() {
+	}
+
+	/**
+	 * Get the number of rows that make a file of about <code>fileSize</code> bytes.
+	 *
+	 * @param fileSize The target size of the file, in bytes.
+	 * @param fieldCount The number of fields per row.
+	 * @return The smallest number of rows, at least 1, that makes the file at least <code>fileSize</code> bytes long.
+	 */
+	static long getRowCount(final long fileSize, final int fieldCount) {
+		long rowSize = (long) Math.max(fieldCount, 1) * Float.BYTES;
+		long dataSize = Math.max(fileSize - ColumnarFloatFile.HEADER_SIZE, 0);
+		return Math.max((dataSize + rowSize - 1) / rowSize, 1);
+	}
+
+	/**
+	 * Write a columnar file.
+	 *
+	 * @param channel The channel to write to.
+	 * @param buffer The write buffer, cleared.  Must hold at least {@value ColumnarFloatFile#HEADER_SIZE} bytes.  Its
+	 *   byte order is changed.
+	 * @param randomLineHelper Generates the values.
+	 * @param rowCount The number of rows.
+	 * @return The number of bytes written.
+	 * @throws IOException If the channel can not be written.
+	 */
+	static long write(final WritableByteChannel channel, final ByteBuffer buffer, final RandomLineHelper randomLineHelper,
+			final long rowCount) throws IOException {
+		int fieldCount = randomLineHelper.getNumberOfFieldsPerLine();
+		long bytesWritten = ColumnarFloatFile.HEADER_SIZE + (long) fieldCount * rowCount * Float.BYTES;
+		ColumnarFloatFile.putHeader(buffer, fieldCount, rowCount);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		for (int field = 0; field < fieldCount; field++) {
+			for (long row = 0; row < rowCount; row++) {
+				if (buffer.remaining() < Float.BYTES) {
+					write(channel, buffer);
+				}
+				buffer.putFloat(randomLineHelper.nextFloat());
+			}
+		}
+		write(channel, buffer);
+		return bytesWritten;
+	}
+
+	/**
+	 * Write the content of the buffer to the channel, and clear the buffer.
+	 */
+	private static void write(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
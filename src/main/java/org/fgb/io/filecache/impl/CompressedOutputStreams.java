@@ -0,0 +1,77 @@
+/*
+ * Class:   CompressedOutputStreams
+ * Born On: Oct, 2026
+ * Purpose: Wrap the output of a file generator for zip or gzip compression.
+ */
+package org.fgb.io.filecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.fgb.io.filecache.util.ParallelGZIPOutputStream;
+
+/**
+ * Class <code>CompressedOutputStreams</code> holds the compression rules shared by the {@linkplain org.fgb.io.filecache.FileGenerator}
+ * implementations, so that every generator names and compresses its output the same way.
+ * <p>
+ * Zip takes precedence over gzip when both are enabled.  A zip file holds a single entry named after the uncompressed file.
+ *
+ * @author Frederick Burkley
+ */
+final class CompressedOutputStreams {
+
+	/**
+	 * The size of the buffer of a single threaded gzip stream.
+	 */
+	private static final int _GZIP_BUFFER_SIZE = 64 * 1024;
+
+	private CompressedOutputStreams() {
+	}
+
+	/**
+	 * Get the name of the file that is actually written.
+	 *
+	 * @param fileName The name of the uncompressed file.
+	 * @param zipCompress Whether zip compression is enabled.
+	 * @param gzipCompress Whether gzip compression is enabled.
+	 * @return <code>fileName</code> with <code>.zip</code> or <code>.gz</code> appended, as appropriate.
+	 */
+	static String getOutputFileName(final String fileName, final boolean zipCompress, final boolean gzipCompress) {
+		if (zipCompress) {
+			return fileName + ".zip";
+		} else if (gzipCompress) {
+			return fileName + ".gz";
+		}
+		return fileName;
+	}
+
+	/**
+	 * Wrap a stream for compression.  Closing the returned stream finishes the compressed data and closes <code>out</code>.
+	 *
+	 * @param out The stream to the output file.
+	 * @param fileName The name of the uncompressed file.  Used to name the zip entry.
+	 * @param zipCompress Whether zip compression is enabled.
+	 * @param gzipCompress Whether gzip compression is enabled.
+	 * @param compressionThreads The number of gzip compression threads.  More than one selects {@linkplain ParallelGZIPOutputStream}.
+	 * @return The compressing stream, or <code>out</code> if compression is disabled.
+	 * @throws IOException If the compression header can not be written.
+	 */
+	static OutputStream wrap(final OutputStream out, final String fileName, final boolean zipCompress, final boolean gzipCompress,
+			final int compressionThreads) throws IOException {
+		if (zipCompress) {
+			ZipOutputStream zipOutputStream = new ZipOutputStream(out);
+			zipOutputStream.putNextEntry(new ZipEntry(new File(fileName).getName()));
+			return zipOutputStream;
+		} else if (gzipCompress) {
+			if (compressionThreads > 1) {
+				return new ParallelGZIPOutputStream(out, compressionThreads);
+			}
+			return new GZIPOutputStream(out, _GZIP_BUFFER_SIZE);
+		}
+		return out;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Class:   EvictionPolicies.java
+ * Born On: Oct, 2026
+ * Purpose: Create eviction policies by name.
+ */
+package org.fgb.io.filecache.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>EvictionPolicies</code> creates the {@linkplain EvictionPolicy} implementations by name, for command lines.
+ *
+ * @author Frederick Burkley
+ */
+public final class EvictionPolicies {
+
+	/**
+	 * The names understood by {@linkplain #forName(String)}.
+	 */
+	public static final String NAMES = "MTIME, LRU, LFU, LARGEST, GDS or TTL[:seconds]";
+	/**
+	 * The time to live of <code>TTL</code> when the name does not give one, in seconds: one day.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.DAYS.toSeconds(1);
+
+	/**
+	 * Prevent instances.
+	 */
+	private EvictionPolicies() {
+	}
+
+	/**
+	 * Create a policy by name.  <code>TTL</code> expires files {@value #DEFAULT_TIME_TO_LIVE} seconds after they were
+	 * last written, and <code>TTL:</code><i>seconds</i> after the given number of seconds; files that have not expired
+	 * are evicted oldest first.
+	 *
+	 * @param name One of {@value #NAMES}, in any case.
+	 * @return A new policy.
+	 * @throws IllegalArgumentException If the name is unknown, or the time to live is not a positive number of seconds.
+	 */
+	public static EvictionPolicy forName(final String name) throws IllegalArgumentException {
+		String upperCaseName = name.toUpperCase();
+		if (upperCaseName.startsWith("TTL:")) {
+			return timeToLive(name.substring("TTL:".length()).trim());
+		}
+		switch (upperCaseName) {
+		case "MTIME":
+			return new ModifiedTimeEvictionPolicy();
+		case "LRU":
+			return new LeastRecentlyUsedEvictionPolicy();
+		case "LFU":
+			return new LeastFrequentlyUsedEvictionPolicy();
+		case "LARGEST":
+			return new LargestFirstEvictionPolicy();
+		case "GDS":
+			return new GreedyDualSizeEvictionPolicy();
+		case "TTL":
+			return new TimeToLiveEvictionPolicy(TimeUnit.SECONDS.toMillis(DEFAULT_TIME_TO_LIVE));
+		default:
+			throw new IllegalArgumentException("Unknown eviction policy " + name + ", expected one of " + NAMES);
+		}
+	}
+
+	/**
+	 * Create a {@linkplain TimeToLiveEvictionPolicy} from the time to live part of its name.
+	 *
+	 * @param seconds The time to live, in seconds.
+	 * @return A new policy.
+	 * @throws IllegalArgumentException If the time to live is not a positive number of seconds.
+	 */
+	private static EvictionPolicy timeToLive(final String seconds) throws IllegalArgumentException {
+		long timeToLive;
+		try {
+			timeToLive = Long.parseLong(seconds);
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid time to live " + seconds + ", expected a number of seconds", ex);
+		}
+		if (timeToLive <= 0) {
+			throw new IllegalArgumentException("Invalid time to live " + seconds + ", expected a positive number of seconds");
+		}
+		return new TimeToLiveEvictionPolicy(TimeUnit.SECONDS.toMillis(timeToLive));
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Class:   GreedyDualSizeEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Evict files by GreedyDual-Size-Frequency, trading off size, popularity and recency.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>GreedyDualSizeEvictionPolicy</code> evicts files by GreedyDual-Size-Frequency (Cherkasova, 1998).
+ * <p>
+ * A file gets the priority <code>H = L + (accesses + 1) / size</code>, where <code>L</code> is the priority of the last
+ * file evicted.  Small, popular files are kept, which maximises the number of hits per byte of cache.  Since
+ * <code>L</code> only grows, a file that is not used again is eventually overtaken by the files that are, so the
+ * policy ages without a clock.
+ *
+ * @author Frederick Burkley
+ */
+public class GreedyDualSizeEvictionPolicy implements EvictionPolicy {
+
+	/**
+	 * The inflation value: the priority of the last file evicted.
+	 */
+	private double inflation;
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return this.inflation + (entry.getAccessCount() + 1.0) / Math.max(entry.getSize(), 1);
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+		this.inflation = Math.max(this.inflation, priority);
+	}
+
+	@Override
+	public boolean expires() {
+		return false;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		return Long.MAX_VALUE;
+	}
+}
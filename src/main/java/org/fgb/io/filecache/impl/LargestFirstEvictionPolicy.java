@@ -0,0 +1,37 @@
+/*
+ * Class:   LargestFirstEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Evict the largest files first.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>LargestFirstEvictionPolicy</code> evicts the largest files first, so that the fewest files are deleted to
+ * free a given number of bytes.  Among files of the same size, the least recently used goes first.
+ *
+ * @author Frederick Burkley
+ */
+public class LargestFirstEvictionPolicy implements EvictionPolicy {
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return -entry.getSize();
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+	}
+
+	@Override
+	public boolean expires() {
+		return false;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		return Long.MAX_VALUE;
+	}
+}
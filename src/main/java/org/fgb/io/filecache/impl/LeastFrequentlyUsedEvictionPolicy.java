@@ -0,0 +1,41 @@
+/*
+ * Class:   LeastFrequentlyUsedEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Evict the files that were used least often.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>LeastFrequentlyUsedEvictionPolicy</code> evicts the files that were accessed through the cache the fewest
+ * times.  Among files with the same number of accesses, the least recently used goes first.
+ * <p>
+ * The access counts come from the access hooks of the cache; without them every file has a count of zero and this
+ * policy behaves like {@linkplain LeastRecentlyUsedEvictionPolicy}.  Counts never decay, so a file that was popular
+ * long ago can outlive files that are popular now.
+ *
+ * @author Frederick Burkley
+ */
+public class LeastFrequentlyUsedEvictionPolicy implements EvictionPolicy {
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return entry.getAccessCount();
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+	}
+
+	@Override
+	public boolean expires() {
+		return false;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		return Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Class:   LeastRecentlyUsedEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Evict the files that were used longest ago.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>LeastRecentlyUsedEvictionPolicy</code> evicts the files that were used longest ago.
+ * <p>
+ * A file is used when it is written, or read.  The last read is the later of the access time recorded by the file
+ * system (which is not maintained on volumes mounted <code>noatime</code>) and the last access through the cache.
+ *
+ * @author Frederick Burkley
+ */
+public class LeastRecentlyUsedEvictionPolicy implements EvictionPolicy {
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return Math.max(entry.getLastAccessed(), entry.getLastModified());
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+	}
+
+	@Override
+	public boolean expires() {
+		return false;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		return Long.MAX_VALUE;
+	}
+}
@@ -9,11 +9,13 @@ import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.GZIPOutputStream;
 
 import org.fgb.io.filecache.FileGenerator;
 import org.fgb.io.filecache.util.RandomLineHelper;
@@ -54,6 +56,14 @@ public class LineCountFileGenerator implements FileGenerator {
 	 * Flag to enable gzip compression.
 	 */
 	private boolean gzipCompress;
+	/**
+	 * The number of gzip compression threads.
+	 */
+	private int compressionThreads = 1;
+	/**
+	 * Flag to write binary columns instead of text.
+	 */
+	private boolean binary;
 	/**
 	 * 
 	 */
@@ -70,6 +80,10 @@ public class LineCountFileGenerator implements FileGenerator {
 	 * The default number of times to generate the output file.  The user can override this on the command line.
 	 */
 	private static final int _DEFAULT_LOOP_COUNT = 1;
+	/**
+	 * Lines are formatted into a buffer of this size, and the buffer is written when the next line might not fit.
+	 */
+	private static final int _BUFFER_SIZE = 64 * 1024;
 
 	/**
 	 * Create a <code>LineCountFileGenerator</code>.
@@ -85,18 +99,32 @@ public class LineCountFileGenerator implements FileGenerator {
 	 */
 	@Override
 	public void generateFile() throws IOException {
-		String line;
-		OutputStream outputStream;
+		int maximumLineLength = this.randomLineHelper.getMaximumLineLength();
+		byte[] buffer = new byte[Math.max(_BUFFER_SIZE, maximumLineLength)];
+		int position = 0;
+		int length;
+		boolean finest = _logger.isLoggable(Level.FINEST);
 		long startTime = System.currentTimeMillis();
 
-		outputStream = this.openOutputStream(this.fileName);
-		for (long lineNumber = 0; lineNumber < this.numberOfLinesInFile; lineNumber++) {
-			line = this.randomLineHelper.getLine();
-			outputStream.write(line.getBytes());
-			_logger.log(Level.FINEST, line);
+		try (OutputStream outputStream = this.openOutputStream(this.fileName)) {
+			if (this.binary) {
+				// One row per line.
+				ColumnarOutput.write(Channels.newChannel(outputStream), ByteBuffer.wrap(buffer), this.randomLineHelper, this.numberOfLinesInFile);
+			} else {
+				for (long lineNumber = 0; lineNumber < this.numberOfLinesInFile; lineNumber++) {
+					if (position + maximumLineLength > buffer.length) {
+						outputStream.write(buffer, 0, position);
+						position = 0;
+					}
+					length = this.randomLineHelper.getLine(buffer, position);
+					if (finest) {
+						_logger.log(Level.FINEST, new String(buffer, position, length, StandardCharsets.US_ASCII));
+					}
+					position += length;
+				}
+				outputStream.write(buffer, 0, position);
+			}
 		}
-
-		this.closeOutputStream(outputStream);
 //		Copy copy = new Copy();
 //		File inputFile = new File(this.fileName);
 //		File outputFile = new File(this.fileName + ".gz");
@@ -109,28 +137,22 @@ public class LineCountFileGenerator implements FileGenerator {
 	}
 
 	/**
+	 * Open the output file, compressing if enabled.  Closing the returned stream finishes the compressed data and
+	 * closes the file.
 	 *
-	 * @param fileName
-	 * @return
-	 * @throws IOException
+	 * @param fileName The name of the uncompressed file.
+	 * @return The stream to write the lines to.
+	 * @throws IOException If the file can not be opened, or the compression header can not be written.
 	 */
 	private OutputStream openOutputStream(String fileName) throws IOException {
-		OutputStream outputStream;
-		if (this.gzipCompress) {
-			outputStream = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(fileName+".gz")));
-		} else {
-			outputStream = new BufferedOutputStream(new FileOutputStream(fileName));
+		String outputFileName = CompressedOutputStreams.getOutputFileName(fileName, this.zipCompress, this.gzipCompress);
+		OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFileName));
+		try {
+			return CompressedOutputStreams.wrap(outputStream, fileName, this.zipCompress, this.gzipCompress, this.compressionThreads);
+		} catch (IOException | RuntimeException ex) {
+			outputStream.close();
+			throw ex;
 		}
-		return outputStream;
-	}
-
-	/**
-	 *
-	 * @param outputStream
-	 */
-	private void closeOutputStream(OutputStream outputStream) throws IOException {
-		outputStream.flush();
-		outputStream.close();
 	}
 
 	@Override
@@ -149,4 +171,14 @@ public class LineCountFileGenerator implements FileGenerator {
 		this.gzipCompress = compress;
 	}
 
+	@Override
+	public void setCompressionThreads(final int numberOfThreads) {
+		this.compressionThreads = numberOfThreads;
+	}
+
+	@Override
+	public void enableBinaryOutput(final boolean binary) {
+		this.binary = binary;
+	}
+
 }
@@ -0,0 +1,37 @@
+/*
+ * Class:   ModifiedTimeEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Evict the files that were written longest ago.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>ModifiedTimeEvictionPolicy</code> evicts the files that were written longest ago (first in, first out).
+ * Reads do not matter.  This is the default policy.
+ *
+ * @author Frederick Burkley
+ */
+public class ModifiedTimeEvictionPolicy implements EvictionPolicy {
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return entry.getLastModified();
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+	}
+
+	@Override
+	public boolean expires() {
+		return false;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		return Long.MAX_VALUE;
+	}
+}
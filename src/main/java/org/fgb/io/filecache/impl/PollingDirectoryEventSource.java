@@ -0,0 +1,120 @@
+/*
+ * Class:   PollingDirectoryEventSource.java
+ * Born On: Oct, 2026
+ * Purpose: Deliver file system events by periodically polling the directory trees.
+ */
+package org.fgb.io.filecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.monitor.FileAlterationListener;
+import org.apache.commons.io.monitor.FileAlterationMonitor;
+import org.apache.commons.io.monitor.FileAlterationObserver;
+
+import org.fgb.io.filecache.DirectoryEventSource;
+
+/**
+ * Class <code>PollingDirectoryEventSource</code> delivers file system events by periodically re-listing the directory trees
+ * with a commons-io {@linkplain FileAlterationMonitor}.
+ * <p>
+ * Every poll lists and stats every file in every tree, even when nothing changed, so this source is meant as a fallback
+ * for file systems where {@linkplain WatchServiceDirectoryEventSource} does not work (for example, some network file systems).
+ *
+ * @author Frederick Burkley
+ */
+public class PollingDirectoryEventSource implements DirectoryEventSource {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = PollingDirectoryEventSource.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default polling time, in milliseconds.
+	 */
+	public static final long DEFAULT_POLLING_TIME = 100;
+	/**
+	 * A runnable that spawns a monitoring thread triggering any registered FileAlterationObserver at a specified interval.
+	 */
+	private final FileAlterationMonitor directoryAlterationMonitor;
+	/**
+	 * An observer for each monitored directory.
+	 */
+	private final Map<File, FileAlterationObserver> observers;
+	/**
+	 * Whether the monitor has been started.
+	 */
+	private volatile boolean started;
+
+	/**
+	 * Create a <code>PollingDirectoryEventSource</code> that polls every {@value #DEFAULT_POLLING_TIME} milliseconds.
+	 */
+	public PollingDirectoryEventSource() {
+		this(DEFAULT_POLLING_TIME);
+	}
+
+	/**
+	 * Create a <code>PollingDirectoryEventSource</code>.
+	 *
+	 * @param pollingTime The polling time (i.e. sleep time), in milliseconds.
+	 */
+	public PollingDirectoryEventSource(final long pollingTime) {
+		this.directoryAlterationMonitor = new FileAlterationMonitor(pollingTime);
+		this.observers = new ConcurrentHashMap<File, FileAlterationObserver>();
+	}
+
+	@Override
+	public void addDirectory(final File directory, final FileAlterationListener listener) throws IOException {
+		FileAlterationObserver observer = new FileAlterationObserver(directory);
+		observer.addListener(listener);
+		if (this.started) {
+			try {
+				observer.initialize();
+			} catch (Exception ex) {
+				throw new IOException(ex);
+			}
+		}
+		this.observers.put(directory, observer);
+		this.directoryAlterationMonitor.addObserver(observer);
+	}
+
+	@Override
+	public void removeDirectory(final File directory) {
+		FileAlterationObserver observer = this.observers.remove(directory);
+		if (observer != null) {
+			this.directoryAlterationMonitor.removeObserver(observer);
+			try {
+				observer.destroy();
+			} catch (Exception ex) {
+				_logger.log(Level.WARNING, null, ex);
+			}
+		}
+	}
+
+	@Override
+	public void start() throws Exception {
+		for (FileAlterationObserver observer : this.observers.values()) {
+			observer.initialize();
+		}
+		this.started = true;
+		this.directoryAlterationMonitor.start();
+	}
+
+	@Override
+	public void stop() throws Exception {
+		if (this.started) {
+			this.started = false;
+			this.directoryAlterationMonitor.stop();
+		}
+		for (File directory : this.observers.keySet()) {
+			this.removeDirectory(directory);
+		}
+	}
+}
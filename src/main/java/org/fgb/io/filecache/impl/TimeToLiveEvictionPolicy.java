@@ -0,0 +1,73 @@
+/*
+ * Class:   TimeToLiveEvictionPolicy.java
+ * Born On: Oct, 2026
+ * Purpose: Expire files a fixed time after they were written.
+ */
+package org.fgb.io.filecache.impl;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+/**
+ * Class <code>TimeToLiveEvictionPolicy</code> expires files a fixed time after they were written, whatever the size of the
+ * cache.  When the cache is over its size limit before files expire, the files are evicted in the order of another
+ * policy (by default, {@linkplain ModifiedTimeEvictionPolicy}).
+ *
+ * @author Frederick Burkley
+ */
+public class TimeToLiveEvictionPolicy implements EvictionPolicy {
+
+	/**
+	 * How long a file lives after it was last written, in milliseconds.
+	 */
+	private final long timeToLive;
+	/**
+	 * Orders the files that have not expired.
+	 */
+	private final EvictionPolicy delegate;
+
+	/**
+	 * Create a <code>TimeToLiveEvictionPolicy</code> that evicts the oldest files first.
+	 *
+	 * @param timeToLive How long a file lives after it was last written, in milliseconds.
+	 */
+	public TimeToLiveEvictionPolicy(final long timeToLive) {
+		this(timeToLive, new ModifiedTimeEvictionPolicy());
+	}
+
+	/**
+	 * Create a <code>TimeToLiveEvictionPolicy</code>.
+	 *
+	 * @param timeToLive How long a file lives after it was last written, in milliseconds.
+	 * @param delegate Orders the files that have not expired.
+	 */
+	public TimeToLiveEvictionPolicy(final long timeToLive, final EvictionPolicy delegate) {
+		this.timeToLive = timeToLive;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public double getPriority(final CacheEntry entry) {
+		return this.delegate.getPriority(entry);
+	}
+
+	@Override
+	public void onEvict(final CacheEntry entry, final double priority) {
+		this.delegate.onEvict(entry, priority);
+	}
+
+	@Override
+	public boolean expires() {
+		return true;
+	}
+
+	@Override
+	public long getExpiryTime(final CacheEntry entry) {
+		long expiryTime = entry.getLastModified() + this.timeToLive;
+		if (expiryTime < entry.getLastModified()) {
+			// Overflow: a time to live too long to ever end.
+			expiryTime = Long.MAX_VALUE;
+		}
+		return Math.min(expiryTime, this.delegate.getExpiryTime(entry));
+	}
+}
@@ -0,0 +1,413 @@
+/*
+ * Class:   WatchServiceDirectoryEventSource.java
+ * Born On: Oct, 2026
+ * Purpose: Deliver file system events from the native file system watch service (inotify on Linux).
+ */
+package org.fgb.io.filecache.impl;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import org.apache.commons.io.monitor.FileAlterationListener;
+
+import org.fgb.io.filecache.DirectoryEventSource;
+import org.fgb.io.filecache.DirectoryResyncListener;
+import org.fgb.io.filecache.util.MBeans;
+
+/**
+ * Class <code>WatchServiceDirectoryEventSource</code> delivers file system events from a {@linkplain WatchService}.
+ * On Linux the watch service is backed by inotify, so an idle directory tree costs nothing to monitor, and events
+ * are delivered as soon as the kernel reports them rather than at the next poll.
+ * <p>
+ * A watch service only watches single directories, so every directory in each tree is registered, and directories
+ * created later are registered as their create event arrives.  Files that appear in a new directory before it is
+ * registered are reported as created when the directory is registered.
+ * <p>
+ * If the kernel event queue overflows, events are lost.  The source then re-registers the tree and calls
+ * {@linkplain DirectoryResyncListener#onResync(File)} on listeners that support it.
+ * <p>
+ * {@linkplain FileAlterationListener#onStart} and {@linkplain FileAlterationListener#onStop} are never called, since there
+ * is no polling cycle.
+ * <p>
+ * While it runs, the source is registered on the platform MBean server as
+ * <code>org.fgb.io.filecache:type=WatchServiceDirectoryEventSource,id=<i>id</i></code>.
+ *
+ * @author Frederick Burkley
+ */
+public class WatchServiceDirectoryEventSource implements DirectoryEventSource, WatchServiceDirectoryEventSourceMBean {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = WatchServiceDirectoryEventSource.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The root of a monitored tree and the listener for it.
+	 */
+	private static class Root {
+
+		private final File directory;
+		private final FileAlterationListener listener;
+		private boolean resyncPending;
+
+		Root(final File directory, final FileAlterationListener listener) {
+			this.directory = directory;
+			this.listener = listener;
+		}
+	}
+	/**
+	 * The watch service.  Created when the source is started.
+	 */
+	private volatile WatchService watchService;
+	/**
+	 * The monitored trees, keyed by root directory.
+	 */
+	private final Map<File, Root> roots;
+	/**
+	 * The registered directories, keyed by watch key.
+	 */
+	private final Map<WatchKey, Path> directories;
+	/**
+	 * The tree each registered directory belongs to.
+	 */
+	private final Map<Path, Root> directoryRoots;
+	/**
+	 * The thread that delivers events.
+	 */
+	private Thread eventThread;
+	/**
+	 * The name the source is registered under, or <code>null</code>.
+	 */
+	private ObjectName objectName;
+	/**
+	 * Counts of the events delivered.  Only written by the event thread.
+	 */
+	private volatile long eventCount;
+	private volatile int lastBacklog;
+	private volatile int maxBacklog;
+	private volatile long overflowCount;
+
+	/**
+	 * Create a <code>WatchServiceDirectoryEventSource</code>.
+	 */
+	public WatchServiceDirectoryEventSource() {
+		this.roots = new ConcurrentHashMap<File, Root>();
+		this.directories = new ConcurrentHashMap<WatchKey, Path>();
+		this.directoryRoots = new ConcurrentHashMap<Path, Root>();
+	}
+
+	@Override
+	public void addDirectory(final File directory, final FileAlterationListener listener) throws IOException {
+		Root root = new Root(directory, listener);
+		this.roots.put(directory, root);
+		if (this.watchService != null) {
+			this.registerTree(root, directory.toPath(), false);
+		}
+	}
+
+	@Override
+	public void removeDirectory(final File directory) {
+		Root root = this.roots.remove(directory);
+		if (root != null) {
+			Iterator<Map.Entry<WatchKey, Path>> iterator = this.directories.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<WatchKey, Path> entry = iterator.next();
+				if (this.directoryRoots.get(entry.getValue()) == root) {
+					entry.getKey().cancel();
+					this.directoryRoots.remove(entry.getValue());
+					iterator.remove();
+				}
+			}
+			this.directoryRoots.values().removeAll(Collections.singleton(root));
+		}
+	}
+
+	@Override
+	public synchronized void start() throws Exception {
+		if (this.watchService != null) {
+			return;
+		}
+		this.watchService = FileSystems.getDefault().newWatchService();
+		for (Root root : this.roots.values()) {
+			this.registerTree(root, root.directory.toPath(), false);
+		}
+		this.eventThread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				WatchServiceDirectoryEventSource.this.processEvents();
+			}
+		}, _className);
+		this.eventThread.start();
+		this.objectName = MBeans.register(this, MBeans.DOMAIN + ":type=WatchServiceDirectoryEventSource,id="
+				+ Integer.toHexString(System.identityHashCode(this)));
+	}
+
+	@Override
+	public synchronized void stop() throws Exception {
+		if (this.watchService == null) {
+			return;
+		}
+		MBeans.unregister(this.objectName);
+		this.objectName = null;
+		this.watchService.close();
+		this.watchService = null;
+		if (this.eventThread != Thread.currentThread()) {
+			this.eventThread.join();
+		}
+		this.eventThread = null;
+		this.directories.clear();
+		this.directoryRoots.clear();
+	}
+
+	@Override
+	public int getWatchedDirectoryCount() {
+		return this.directories.size();
+	}
+
+	@Override
+	public long getEventCount() {
+		return this.eventCount;
+	}
+
+	@Override
+	public int getLastBacklog() {
+		return this.lastBacklog;
+	}
+
+	@Override
+	public int getMaxBacklog() {
+		return this.maxBacklog;
+	}
+
+	@Override
+	public long getOverflowCount() {
+		return this.overflowCount;
+	}
+
+	/**
+	 * Take events from the watch service and deliver them, until the watch service is closed.
+	 * <p>
+	 * An overflow is usually signalled on many keys at once, so resynchronisation is deferred until every key that is
+	 * ready has been processed, and then done once per tree.
+	 */
+	private void processEvents() {
+		WatchService service = this.watchService;
+		while (true) {
+			WatchKey key;
+			int backlog = 0;
+			try {
+				key = service.take();
+				do {
+					backlog += this.processKey(key);
+				} while ((key = service.poll()) != null);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ClosedWatchServiceException ex) {
+				return;
+			}
+			this.lastBacklog = backlog;
+			if (backlog > this.maxBacklog) {
+				this.maxBacklog = backlog;
+			}
+			for (Root root : this.roots.values()) {
+				if (root.resyncPending) {
+					root.resyncPending = false;
+					this.resync(root);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deliver the events of one watch key.
+	 *
+	 * @return The number of events the key held.
+	 */
+	private int processKey(final WatchKey key) {
+		Path directory = this.directories.get(key);
+		Root root = directory == null ? null : this.directoryRoots.get(directory);
+		int count;
+		if (root != null) {
+			List<WatchEvent<?>> events = key.pollEvents();
+			count = events.size();
+			// Counted before they are delivered, so that a listener that has seen an event also sees it counted.
+			this.eventCount += count;
+			for (WatchEvent<?> event : events) {
+				try {
+					this.dispatch(root, directory, event);
+				} catch (RuntimeException ex) {
+					_logger.log(Level.SEVERE, null, ex);
+				}
+			}
+		} else {
+			count = key.pollEvents().size();
+			this.eventCount += count;
+		}
+		if (!key.reset()) {
+			// The directory is gone.  Its tree is forgotten when the delete event of its parent arrives, which may be
+			// later, and which must still know that it was a directory.  A root has no parent to report it.
+			Path removed = this.directories.remove(key);
+			if (removed != null && root != null && removed.equals(root.directory.toPath())) {
+				this.directoryRoots.remove(removed);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Deliver one event to the listener of the tree.
+	 */
+	private void dispatch(final Root root, final Path directory, final WatchEvent<?> event) {
+		WatchEvent.Kind<?> kind = event.kind();
+		FileAlterationListener listener = root.listener;
+		if (kind == OVERFLOW) {
+			this.overflowCount++;
+			root.resyncPending = true;
+			return;
+		}
+		Path child = directory.resolve((Path) event.context());
+		File file = child.toFile();
+		if (kind == ENTRY_CREATE) {
+			if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+				listener.onDirectoryCreate(file);
+				try {
+					this.registerTree(root, child, true);
+				} catch (IOException ex) {
+					_logger.log(Level.WARNING, null, ex);
+				}
+			} else {
+				listener.onFileCreate(file);
+			}
+		} else if (kind == ENTRY_MODIFY) {
+			if (this.directoryRoots.containsKey(child)) {
+				listener.onDirectoryChange(file);
+			} else {
+				listener.onFileChange(file);
+			}
+		} else if (kind == ENTRY_DELETE) {
+			if (this.directoryRoots.containsKey(child)) {
+				this.unregisterTree(child);
+				listener.onDirectoryDelete(file);
+			} else {
+				listener.onFileDelete(file);
+			}
+		}
+	}
+
+	/**
+	 * Events were lost.  Re-register the tree (to pick up directories whose create event was lost), then ask the
+	 * listener to rescan.
+	 */
+	private void resync(final Root root) {
+		_logger.warning("Events were lost for " + root.directory + ", resynchronising");
+		try {
+			this.registerTree(root, root.directory.toPath(), false);
+		} catch (IOException ex) {
+			_logger.log(Level.WARNING, null, ex);
+		}
+		if (root.listener instanceof DirectoryResyncListener) {
+			((DirectoryResyncListener) root.listener).onResync(root.directory);
+		}
+	}
+
+	/**
+	 * Register every directory in the tree rooted at <code>start</code>.
+	 *
+	 * @param reportFiles If <code>true</code>, report the files and directories found below <code>start</code> as created.
+	 */
+	private void registerTree(final Root root, final Path start, final boolean reportFiles) throws IOException {
+		final WatchService service = this.watchService;
+		if (service == null) {
+			return;
+		}
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if (reportFiles && !dir.equals(start)) {
+					root.listener.onDirectoryCreate(dir.toFile());
+				}
+				WatchKey key = dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+				WatchServiceDirectoryEventSource.this.directories.put(key, dir);
+				WatchServiceDirectoryEventSource.this.directoryRoots.put(dir, root);
+				if (WatchServiceDirectoryEventSource.this.roots.get(root.directory) != root) {
+					// The tree was removed while it was being registered; removeDirectory may not have seen this key.
+					key.cancel();
+					WatchServiceDirectoryEventSource.this.directories.remove(key);
+					WatchServiceDirectoryEventSource.this.directoryRoots.remove(dir);
+					return FileVisitResult.TERMINATE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (WatchServiceDirectoryEventSource.this.roots.get(root.directory) != root) {
+					return FileVisitResult.TERMINATE;
+				}
+				if (reportFiles) {
+					root.listener.onFileCreate(file.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException ex) throws IOException {
+				// The file was most likely deleted during the walk.
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Forget every registered directory at or below <code>directory</code>, including those whose key was already
+	 * invalidated by the deletion.
+	 */
+	private void unregisterTree(final Path directory) {
+		List<WatchKey> keys = new ArrayList<WatchKey>();
+		for (Map.Entry<WatchKey, Path> entry : this.directories.entrySet()) {
+			if (entry.getValue().startsWith(directory)) {
+				keys.add(entry.getKey());
+			}
+		}
+		for (WatchKey key : keys) {
+			key.cancel();
+			this.directories.remove(key);
+		}
+		Iterator<Path> iterator = this.directoryRoots.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().startsWith(directory)) {
+				iterator.remove();
+			}
+		}
+	}
+}
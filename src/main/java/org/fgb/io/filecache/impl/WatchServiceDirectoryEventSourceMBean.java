@@ -0,0 +1,41 @@
+/*
+ * Class:   WatchServiceDirectoryEventSourceMBean.java
+ * Born On: Oct, 2026
+ * Purpose: The management interface of the watch service event source.
+ */
+package org.fgb.io.filecache.impl;
+
+/**
+ * The management interface of {@linkplain WatchServiceDirectoryEventSource}: how many events it delivers, and how many
+ * are waiting when its thread wakes up.
+ *
+ * @author Frederick Burkley
+ */
+public interface WatchServiceDirectoryEventSourceMBean {
+
+	/**
+	 * @return The number of directories registered with the watch service.
+	 */
+	public int getWatchedDirectoryCount();
+
+	/**
+	 * @return The number of events delivered.
+	 */
+	public long getEventCount();
+
+	/**
+	 * @return The number of events that were waiting the last time the event thread woke up.  It stays small while
+	 *   listeners keep up with the file system.
+	 */
+	public int getLastBacklog();
+
+	/**
+	 * @return The greatest number of events that were waiting when the event thread woke up.
+	 */
+	public int getMaxBacklog();
+
+	/**
+	 * @return The number of times the kernel event queue overflowed, and events were lost.
+	 */
+	public long getOverflowCount();
+}
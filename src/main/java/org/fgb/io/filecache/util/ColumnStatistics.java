@@ -0,0 +1,208 @@
+/*
+ * Class:   ColumnStatistics.java
+ * Born On: Oct, 2026
+ * Purpose: The per-column summary of a file of numbers: minimum, maximum, sum and count.
+ */
+package org.fgb.io.filecache.util;
+
+import java.util.Arrays;
+
+/**
+ * Class <code>ColumnStatistics</code> summarises the lines of numbers written by {@linkplain RandomLineHelper}: the
+ * number of lines, and for each column the number of values and their minimum, maximum and sum.
+ * <p>
+ * Lines need not have the same number of fields; a column counts the lines that reach it.  Statistics of consecutive
+ * parts of a file are combined with {@linkplain #merge(ColumnStatistics)}, which is how
+ * {@linkplain ParallelFileScanner} summarises the parts it parses in parallel.  Sums are kept as <code>double</code>s.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Frederick Burkley
+ */
+public class ColumnStatistics {
+
+	/**
+	 * The number of lines.
+	 */
+	private long lineCount;
+	/**
+	 * The number of columns seen: the number of fields of the widest line.
+	 */
+	private int columnCount;
+	/**
+	 * By column: the number of values, and their minimum, maximum and sum.
+	 */
+	private long[] counts;
+	private float[] minimums;
+	private float[] maximums;
+	private double[] sums;
+
+	/**
+	 * Create an empty <code>ColumnStatistics</code>.
+	 */
+	public ColumnStatistics() {
+		this.counts = new long[0];
+		this.minimums = new float[0];
+		this.maximums = new float[0];
+		this.sums = new double[0];
+	}
+
+	/**
+	 * Add a line.
+	 *
+	 * @param values The values of the line.
+	 * @param count The number of values of the line: the first <code>count</code> elements of <code>values</code>.
+	 */
+	public void add(final float[] values, final int count) {
+		this.ensureColumns(count);
+		for (int i = 0; i < count; i++) {
+			float value = values[i];
+			if (this.counts[i] == 0 || value < this.minimums[i]) {
+				this.minimums[i] = value;
+			}
+			if (this.counts[i] == 0 || value > this.maximums[i]) {
+				this.maximums[i] = value;
+			}
+			this.sums[i] += value;
+			this.counts[i]++;
+		}
+		this.lineCount++;
+	}
+
+	/**
+	 * Add the lines summarised by <code>other</code>.
+	 *
+	 * @param other The statistics to add.  It is not changed.
+	 * @return This <code>ColumnStatistics</code>.
+	 */
+	public ColumnStatistics merge(final ColumnStatistics other) {
+		this.ensureColumns(other.columnCount);
+		for (int i = 0; i < other.columnCount; i++) {
+			if (other.counts[i] == 0) {
+				continue;
+			}
+			if (this.counts[i] == 0 || other.minimums[i] < this.minimums[i]) {
+				this.minimums[i] = other.minimums[i];
+			}
+			if (this.counts[i] == 0 || other.maximums[i] > this.maximums[i]) {
+				this.maximums[i] = other.maximums[i];
+			}
+			this.sums[i] += other.sums[i];
+			this.counts[i] += other.counts[i];
+		}
+		this.lineCount += other.lineCount;
+		return this;
+	}
+
+	private void ensureColumns(final int count) {
+		if (count > this.columnCount) {
+			if (count > this.counts.length) {
+				int length = Math.max(count, this.counts.length * 2);
+				this.counts = Arrays.copyOf(this.counts, length);
+				this.minimums = Arrays.copyOf(this.minimums, length);
+				this.maximums = Arrays.copyOf(this.maximums, length);
+				this.sums = Arrays.copyOf(this.sums, length);
+			}
+			this.columnCount = count;
+		}
+	}
+
+	/**
+	 * Get the number of lines.
+	 *
+	 * @return The number of lines added.
+	 */
+	public long getLineCount() {
+		return this.lineCount;
+	}
+
+	/**
+	 * Get the number of columns.
+	 *
+	 * @return The number of fields of the widest line.
+	 */
+	public int getColumnCount() {
+		return this.columnCount;
+	}
+
+	/**
+	 * Get the number of values of a column.
+	 *
+	 * @param column The number of the column, from 0.
+	 * @return The number of lines with a value in the column.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public long getCount(final int column) throws IndexOutOfBoundsException {
+		this.checkColumn(column);
+		return this.counts[column];
+	}
+
+	/**
+	 * Get the smallest value of a column.
+	 *
+	 * @param column The number of the column, from 0.
+	 * @return The minimum.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public float getMinimum(final int column) throws IndexOutOfBoundsException {
+		this.checkColumn(column);
+		return this.minimums[column];
+	}
+
+	/**
+	 * Get the largest value of a column.
+	 *
+	 * @param column The number of the column, from 0.
+	 * @return The maximum.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public float getMaximum(final int column) throws IndexOutOfBoundsException {
+		this.checkColumn(column);
+		return this.maximums[column];
+	}
+
+	/**
+	 * Get the sum of the values of a column.
+	 *
+	 * @param column The number of the column, from 0.
+	 * @return The sum.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public double getSum(final int column) throws IndexOutOfBoundsException {
+		this.checkColumn(column);
+		return this.sums[column];
+	}
+
+	/**
+	 * Get the mean of the values of a column.
+	 *
+	 * @param column The number of the column, from 0.
+	 * @return The sum divided by the count.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public double getMean(final int column) throws IndexOutOfBoundsException {
+		this.checkColumn(column);
+		return this.sums[column] / this.counts[column];
+	}
+
+	private void checkColumn(final int column) throws IndexOutOfBoundsException {
+		if (column < 0 || column >= this.columnCount) {
+			throw new IndexOutOfBoundsException("Column " + column + " of " + this.columnCount + " columns");
+		}
+	}
+
+	/**
+	 * A table of the statistics: a line per column.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.lineCount).append(" lines, ").append(this.columnCount).append(" columns\n");
+		sb.append(String.format("%6s %12s %12s %12s %18s %12s%n", "column", "count", "min", "max", "sum", "mean"));
+		for (int i = 0; i < this.columnCount; i++) {
+			sb.append(String.format("%6d %12d %12.5f %12.5f %18.5f %12.5f%n", i, this.counts[i], this.minimums[i],
+					this.maximums[i], this.sums[i], this.getMean(i)));
+		}
+		return sb.toString();
+	}
+}
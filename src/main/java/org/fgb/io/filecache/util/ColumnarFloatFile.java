@@ -0,0 +1,188 @@
+/*
+ * Class:   ColumnarFloatFile.java
+ * Born On: Oct, 2026
+ * Purpose: The binary columnar format of generated data, and a memory-mapped reader for it.
+ */
+package org.fgb.io.filecache.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class <code>ColumnarFloatFile</code> reads the binary output of the file generators (see
+ * {@linkplain org.fgb.io.filecache.FileGenerator#enableBinaryOutput(boolean)}): a table of <code>float</code>s, stored
+ * column after column, so a column can be read without touching the others.
+ * <p>
+ * The file is a header of {@value #HEADER_SIZE} bytes followed by the columns, every value a little-endian IEEE 754
+ * float32.  All header fields are little-endian:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic: the bytes "FGBC"
+ *      4     4  version: {@value #VERSION}
+ *      8     4  field count (number of columns)
+ *     12     4  reserved: 0
+ *     16     8  row count
+ *     24        column 0 (row count floats), column 1, ...
+ * </pre>
+ * <p>
+ * The columns are memory-mapped when first asked for; each column is mapped on its own, so a file may be larger than
+ * 2 GB as long as no single column is.  Nothing is parsed: a value is 4 bytes rather than about 10 bytes of text.
+ *
+ * @author Frederick Burkley
+ */
+public class ColumnarFloatFile implements Closeable {
+
+	/**
+	 * The first four bytes of the file, "FGBC", read as a little-endian <code>int</code>.
+	 */
+	public static final int MAGIC = 0x43424746;
+	/**
+	 * The version of the format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * The size of the header, in bytes.  The columns start right after it.
+	 */
+	public static final int HEADER_SIZE = 24;
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = ColumnarFloatFile.class.getName();
+	/**
+	 * The file.
+	 */
+	private final File file;
+	/**
+	 * The open file.  The columns stay mapped after it is closed.
+	 */
+	private final FileChannel fileChannel;
+	/**
+	 * The number of columns.
+	 */
+	private final int fieldCount;
+	/**
+	 * The number of values in each column.
+	 */
+	private final long rowCount;
+	/**
+	 * The columns mapped so far, by field.
+	 */
+	private final FloatBuffer[] columns;
+
+	/**
+	 * Write the header of a columnar file into <code>buffer</code>, at its position.
+	 *
+	 * @param buffer The buffer.  Its byte order is set to little-endian.
+	 * @param fieldCount The number of columns.
+	 * @param rowCount The number of values in each column.
+	 */
+	public static void putHeader(final ByteBuffer buffer, final int fieldCount, final long rowCount) {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(fieldCount);
+		buffer.putInt(0);
+		buffer.putLong(rowCount);
+	}
+
+	/**
+	 * Open a columnar file, and read its header.
+	 *
+	 * @param file The file.
+	 * @return The open file.
+	 * @throws IOException If the file can not be read, is not a columnar file, is shorter than its header says, or
+	 *   has a column that is too large to map.
+	 */
+	public static ColumnarFloatFile open(final File file) throws IOException {
+		FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && fileChannel.read(header, header.position()) >= 0) {
+				// Read until the header is full or the file ends.
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+				throw new IOException(_className + ": " + file + " is not a columnar file.");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IOException(_className + ": " + file + " has version " + header.getInt(4) + ", expected " + VERSION + ".");
+			}
+			int fieldCount = header.getInt(8);
+			long rowCount = header.getLong(16);
+			if (fieldCount < 0 || rowCount < 0 || rowCount > Integer.MAX_VALUE / Float.BYTES) {
+				throw new IOException(_className + ": " + file + " has " + fieldCount + " columns of " + rowCount
+						+ " rows, which can not be mapped.");
+			}
+			long size = HEADER_SIZE + (long) fieldCount * rowCount * Float.BYTES;
+			if (fileChannel.size() < size) {
+				throw new IOException(_className + ": " + file + " is " + fileChannel.size() + " bytes long, its header says " + size + ".");
+			}
+			return new ColumnarFloatFile(file, fileChannel, fieldCount, rowCount);
+		} catch (IOException ex) {
+			fileChannel.close();
+			throw ex;
+		}
+	}
+
+	private ColumnarFloatFile(final File file, final FileChannel fileChannel, final int fieldCount, final long rowCount) {
+		this.file = file;
+		this.fileChannel = fileChannel;
+		this.fieldCount = fieldCount;
+		this.rowCount = rowCount;
+		this.columns = new FloatBuffer[fieldCount];
+	}
+
+	/**
+	 * Get the number of columns.
+	 *
+	 * @return The number of fields per row.
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Get the number of rows.
+	 *
+	 * @return The number of values in each column.
+	 */
+	public long getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Get a column.  The first call maps the column; later calls share the mapping.
+	 *
+	 * @param field The number of the column, from 0.
+	 * @return A read-only buffer of the values of the column, positioned at the first row.  Every call returns a new
+	 *   buffer, so callers do not share positions.
+	 * @throws IOException If the column can not be mapped, for example after {@linkplain #close()}.
+	 * @throws IndexOutOfBoundsException If there is no such column.
+	 */
+	public synchronized FloatBuffer getColumn(final int field) throws IOException, IndexOutOfBoundsException {
+		if (field < 0 || field >= this.fieldCount) {
+			throw new IndexOutOfBoundsException("Column " + field + " of " + this.file + ", which has " + this.fieldCount + " columns");
+		}
+		if (this.columns[field] == null) {
+			long columnSize = this.rowCount * Float.BYTES;
+			this.columns[field] = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + field * columnSize, columnSize)
+					.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		}
+		return this.columns[field].duplicate();
+	}
+
+	/**
+	 * Close the file.  Columns that were already returned stay readable.
+	 *
+	 * @throws IOException If the file can not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.fileChannel.close();
+	}
+}
@@ -12,7 +12,9 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
@@ -28,6 +30,10 @@ import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.IOUtils;
 
 /**
+ * Copy a file, optionally compressing it.
+ * <p>
+ * The uncompressed copy uses the kernel's zero copy path when it can, and an instance may be shared by
+ * several threads.
  *
  * @author Frederick Burkley
  */
@@ -42,66 +48,123 @@ public class Copy {
 	 */
 	private static final Logger _logger = Logger.getLogger(_className);
 
+	/**
+	 * The size of the direct buffer used when the channels can not transfer directly.
+	 */
+	public static final int DIRECT_BUFFER_SIZE = 1024 * 1024;
+	/**
+	 * The size of the buffer used by the compressing copies.
+	 */
+	private static final int _STREAM_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * A direct buffer per thread, so that concurrent copies do not share (or reallocate) one.
+	 */
+	private static final ThreadLocal<ByteBuffer> _directBuffer = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+		}
+	};
+
 	public Copy() {
 	}
 
-	public void copy(File inputFile, File outputFile) throws IOException {
-		InputStream inputStream = new FileInputStream(inputFile);
-		BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
-		OutputStream outputStream = new FileOutputStream(outputFile);
-		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-		byte[] buf = new byte[1024];
-		int length;
-		while ((length = bufferedInputStream.read(buf)) > 0) {
-			bufferedOutputStream.write(buf, 0, length);
+	/**
+	 * Copy a file with {@linkplain FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+	 * On Linux the kernel moves the data (<code>sendfile</code> or <code>copy_file_range</code>), so it never
+	 * crosses into the Java heap.
+	 * <p>
+	 * If the channel stops transferring before the end of the file (some file systems do not support it, or the
+	 * input file changed size), the rest of the file is copied through a direct buffer of {@value #DIRECT_BUFFER_SIZE} bytes.
+	 *
+	 * @param inputFile The file to copy.
+	 * @param outputFile The file to create or overwrite.
+	 * @return The number of bytes copied.
+	 * @throws IOException If either file can not be opened, or the copy fails.
+	 */
+	public long copy(File inputFile, File outputFile) throws IOException {
+		try (FileChannel inputChannel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+				FileChannel outputChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = inputChannel.size();
+			long position = 0;
+			long count;
+			while (position < size && (count = inputChannel.transferTo(position, size - position, outputChannel)) > 0) {
+				position += count;
+			}
+			if (position < size) {
+				_logger.log(Level.FINE, "transferTo() stopped at {0} of {1} bytes for {2}, continuing with a direct buffer",
+						new Object[] { position, size, inputFile });
+				inputChannel.position(position);
+				position += copy(inputChannel, outputChannel);
+			}
+			return position;
 		}
-		bufferedInputStream.close();
-		bufferedOutputStream.close();
+	}
+
+	/**
+	 * Copy a file through a direct buffer of {@value #DIRECT_BUFFER_SIZE} bytes, without
+	 * {@linkplain FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+	 *
+	 * @param inputFile The file to copy.
+	 * @param outputFile The file to create or overwrite.
+	 * @return The number of bytes copied.
+	 * @throws IOException If either file can not be opened, or the copy fails.
+	 */
+	public long copyWithDirectBuffer(File inputFile, File outputFile) throws IOException {
+		try (FileChannel inputChannel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+				FileChannel outputChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			return copy(inputChannel, outputChannel);
+		}
+	}
+
+	/**
+	 * Copy from the current position of <code>inputChannel</code> to its end, through this thread's direct buffer.
+	 */
+	private static long copy(final FileChannel inputChannel, final FileChannel outputChannel) throws IOException {
+		ByteBuffer buffer = _directBuffer.get();
+		long total = 0;
+		buffer.clear();
+		while (inputChannel.read(buffer) >= 0 || buffer.position() > 0) {
+			buffer.flip();
+			total += outputChannel.write(buffer);
+			buffer.compact();
+		}
+		return total;
 	}
 
 	public void copyWithGZipCompression(File inputFile, File outputFile) throws IOException {
-		InputStream inputStream = new FileInputStream(inputFile);
-		BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
-		OutputStream outputStream = new FileOutputStream(outputFile);
-		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-		GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bufferedOutputStream);
-		byte[] buf = new byte[8192];
-		int length;
-		while ((length = bufferedInputStream.read(buf)) > 0) {
-			gzipOutputStream.write(buf, 0, length);
+		try (InputStream inputStream = new FileInputStream(inputFile);
+				GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)), _STREAM_BUFFER_SIZE)) {
+			byte[] buf = new byte[_STREAM_BUFFER_SIZE];
+			int length;
+			while ((length = inputStream.read(buf)) > 0) {
+				gzipOutputStream.write(buf, 0, length);
+			}
 		}
-		bufferedInputStream.close();
-		gzipOutputStream.close();
 	}
 
 	public void copyWithZipCompression(File inputFile, File outputFile) throws IOException {
-		InputStream inputStream = new FileInputStream(inputFile);
-		BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
-		OutputStream outputStream = new FileOutputStream(outputFile);
-		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-		ZipEntry zipEntry = new ZipEntry("fgb.txt");
-		ZipOutputStream zipOutputStream = new ZipOutputStream(bufferedOutputStream);
-		zipOutputStream.putNextEntry(zipEntry);
-		byte[] buf = new byte[1024];
-		int length;
-		while ((length = bufferedInputStream.read(buf)) > 0) {
-			zipOutputStream.write(buf, 0, length);
+		try (InputStream inputStream = new FileInputStream(inputFile);
+				ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+			ZipEntry zipEntry = new ZipEntry("fgb.txt");
+			zipOutputStream.putNextEntry(zipEntry);
+			byte[] buf = new byte[_STREAM_BUFFER_SIZE];
+			int length;
+			while ((length = inputStream.read(buf)) > 0) {
+				zipOutputStream.write(buf, 0, length);
+			}
+			zipOutputStream.closeEntry();
 		}
-		bufferedInputStream.close();
-		zipOutputStream.closeEntry();
-		zipOutputStream.close();
 	}
 
 	public void copyWithIOUtils(File inputFile, File outputFile) throws IOException {
-		InputStream inputStream = new FileInputStream(inputFile);
-		BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
-		OutputStream outputStream = new FileOutputStream(outputFile);
-		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-		GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bufferedOutputStream);
-		IOUtils.copy(bufferedInputStream, gzipOutputStream);
-		bufferedInputStream.close();
-		gzipOutputStream.close();
-
+		try (InputStream inputStream = new BufferedInputStream(new FileInputStream(inputFile));
+				GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+			IOUtils.copy(inputStream, gzipOutputStream);
+		}
 	}
 
 	/**
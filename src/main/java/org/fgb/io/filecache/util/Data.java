@@ -5,11 +5,15 @@
 package org.fgb.io.filecache.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
 
 /**
  * An immutable class to represent data.
+ * <p>
+ * Every field is kept as a <code>String</code>.  To parse lines at high volume, use a {@linkplain RecordParser}, which
+ * reads the fields in place and allocates nothing per line.
  *
  * @author burkley
  */
@@ -23,13 +27,13 @@ public class Data {
 	 */
 	private static Logger _logger = Logger.getLogger(_className);
 	/**
-	 * A <code>List</code> to store the data.
+	 * The fields of the data.
 	 */
-	private final List<String> theData;
+	private final String[] theData;
 	/**
 	 * The delimiter that separates the fields in the input.  The input is the parameter that is passed to the constructor of this class.
 	 */
-	private final String delimiter;
+	private final char delimiter;
 
 	/**
 	 * Constructor.
@@ -37,33 +41,62 @@ public class Data {
 	 * @param line The data that is to be stored in this class.
 	 */
 	public Data(final String line) {
-		this.theData = new ArrayList<String>();
-		this.delimiter = "\t";
-		this.parse(line);
+		this.delimiter = RecordParser.DEFAULT_DELIMITER;
+		this.theData = this.parse(line);
 	}
 
 	/**
-	 * Parse the data, storing individual data items internally.
+	 * Parse the data into fields.  Splits on the delimiter with <code>indexOf</code> rather than a regular expression;
+	 * as with {@linkplain String#split(String)}, trailing empty fields are dropped.
 	 *
 	 * @param line The line that is to be parsed.
+	 * @return The fields.
 	 */
-	private void parse(final String line) {
-		String tokens[] = line.split(this.delimiter);
-		for (int i=0; i<tokens.length; i++) {
-			this.theData.add(tokens[i]);
+	private String[] parse(final String line) {
+		List<String> fields = new ArrayList<String>();
+		int start = 0;
+		int end;
+		while ((end = line.indexOf(this.delimiter, start)) >= 0) {
+			fields.add(line.substring(start, end));
+			start = end + 1;
 		}
+		if (start == 0) {
+			return new String[] { line };
+		}
+		fields.add(line.substring(start));
+		int count = fields.size();
+		while (count > 0 && fields.get(count - 1).isEmpty()) {
+			count--;
+		}
+		return fields.subList(0, count).toArray(new String[count]);
+	}
+
+	/**
+	 * Get the number of fields.
+	 *
+	 * @return The number of fields.
+	 */
+	public int getFieldCount() {
+		return this.theData.length;
+	}
+
+	/**
+	 * Get one field, without copying the others.
+	 *
+	 * @param field The number of the field, from 0.
+	 * @return The field.
+	 * @throws IndexOutOfBoundsException If there is no such field.
+	 */
+	public String getField(final int field) throws IndexOutOfBoundsException {
+		return this.theData[field];
 	}
 
 	/**
 	 * Get the data that is stored in this class.
 	 *
-	 * @return The data that is stored in this class.
+	 * @return A copy of the data that is stored in this class.
 	 */
 	public List<String> getData() {
-		List<String> copy = new ArrayList<String>();
-		for (int i=0; i<this.theData.size(); i++) {
-			copy.add(this.theData.get(i));
-		}
-		return copy;
+		return new ArrayList<String>(Arrays.asList(this.theData));
 	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Class:   LatencyHistogram.java
+ * Born On: Oct, 2026
+ * Purpose: Count durations in power of two buckets, without locking.
+ */
+package org.fgb.io.filecache.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class <code>LatencyHistogram</code> counts durations, in milliseconds, in power of two buckets: bucket 0 counts
+ * durations under 1 ms, bucket <i>i</i> durations from 2<sup><i>i</i>-1</sup> ms to under 2<sup><i>i</i></sup> ms,
+ * and the last bucket everything longer.
+ * <p>
+ * Recording is lock free and allocation free, so it can be done on hot paths.  Percentiles are approximate: they are
+ * the upper bound of the bucket that holds them.
+ *
+ * @author Frederick Burkley
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of buckets.  The last bucket starts at 2<sup>30</sup> ms, about 12 days.
+	 */
+	public static final int BUCKET_COUNT = 32;
+	/**
+	 * The counts, by bucket.
+	 */
+	private final AtomicLongArray buckets;
+	/**
+	 * The longest duration recorded.
+	 */
+	private final AtomicLong max;
+	/**
+	 * The sum of the durations recorded.
+	 */
+	private final AtomicLong sum;
+
+	/**
+	 * Create an empty <code>LatencyHistogram</code>.
+	 */
+	public LatencyHistogram() {
+		this.buckets = new AtomicLongArray(BUCKET_COUNT);
+		this.max = new AtomicLong();
+		this.sum = new AtomicLong();
+	}
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param millis The duration, in milliseconds.  Negative durations count as 0.
+	 */
+	public void record(final long millis) {
+		long value = Math.max(millis, 0);
+		int bucket = value == 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(value), BUCKET_COUNT - 1);
+		this.buckets.incrementAndGet(bucket);
+		this.sum.addAndGet(value);
+		long current = this.max.get();
+		while (value > current && !this.max.compareAndSet(current, value)) {
+			current = this.max.get();
+		}
+	}
+
+	/**
+	 * Get the number of durations recorded.
+	 *
+	 * @return The count.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += this.buckets.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the longest duration recorded.
+	 *
+	 * @return The longest duration, in milliseconds, or 0 if none was recorded.
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Get the mean of the durations recorded.
+	 *
+	 * @return The mean duration, in milliseconds, or 0 if none was recorded.
+	 */
+	public double getMean() {
+		long count = this.getCount();
+		return count == 0 ? 0 : (double) this.sum.get() / count;
+	}
+
+	/**
+	 * Get an approximate percentile.
+	 *
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The upper bound, in milliseconds, of the bucket that holds the percentile, capped at the longest
+	 *   duration recorded; 0 if none was recorded.
+	 */
+	public long getPercentile(final double percentile) {
+		long[] counts = this.getBuckets();
+		long count = 0;
+		for (long bucketCount : counts) {
+			count += bucketCount;
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100 * count);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0) {
+				return Math.min(1L << i, this.getMax());
+			}
+		}
+		return this.getMax();
+	}
+
+	/**
+	 * Get a copy of the counts.
+	 *
+	 * @return The counts, by bucket.
+	 */
+	public long[] getBuckets() {
+		long[] counts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = this.buckets.get(i);
+		}
+		return counts;
+	}
+}
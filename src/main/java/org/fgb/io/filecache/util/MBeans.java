@@ -0,0 +1,79 @@
+/*
+ * Class:   MBeans.java
+ * Born On: Oct, 2026
+ * Purpose: Register and unregister MBeans on the platform MBean server.
+ */
+package org.fgb.io.filecache.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Register and unregister MBeans on the platform MBean server.  Metrics are not worth failing for, so errors are logged
+ * rather than thrown.
+ *
+ * @author Frederick Burkley
+ */
+public class MBeans {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = MBeans.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The domain of the MBeans of this package.
+	 */
+	public static final String DOMAIN = "org.fgb.io.filecache";
+
+	/**
+	 * Prevent instances.
+	 */
+	private MBeans() {
+	}
+
+	/**
+	 * Register an MBean on the platform MBean server, replacing any MBean already registered under the same name.
+	 *
+	 * @param mbean The MBean.
+	 * @param name The name, for example <code>org.fgb.io.filecache:type=DirectoryCleaner,directory="/data"</code>.
+	 * @return The name the MBean was registered under, or <code>null</code> if it could not be registered.
+	 */
+	public static ObjectName register(final Object mbean, final String name) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName objectName = new ObjectName(name);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(mbean, objectName);
+			return objectName;
+		} catch (JMException ex) {
+			_logger.log(Level.WARNING, "Unable to register the MBean " + name, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Unregister an MBean from the platform MBean server.
+	 *
+	 * @param objectName The name returned by {@linkplain #register(Object, String)}, or <code>null</code>.
+	 */
+	public static void unregister(final ObjectName objectName) {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException ex) {
+			_logger.log(Level.FINE, "Unable to unregister the MBean " + objectName, ex);
+		}
+	}
+}
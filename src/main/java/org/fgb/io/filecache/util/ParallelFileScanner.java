@@ -0,0 +1,260 @@
+/*
+ * Class:   ParallelFileScanner.java
+ * Born On: Oct, 2026
+ * Purpose: Summarise a generated text file by parsing memory-mapped chunks of it in parallel.
+ */
+package org.fgb.io.filecache.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Class <code>ParallelFileScanner</code> reads back a text file written by the file generators (lines of tab separated
+ * numbers, see {@linkplain RandomLineHelper}) and summarises it as {@linkplain ColumnStatistics}.
+ * <p>
+ * The file is memory-mapped in segments of at most {@linkplain #setSegmentSize(int) the segment size}, since a single
+ * mapping can not exceed 2 GB.  Each segment ends after a newline, and is split in halves, again after a newline, until
+ * the parts are no larger than {@linkplain #setChunkSize(int) the chunk size}.  The chunks are parsed with a
+ * {@linkplain RecordParser} each, on a {@linkplain ForkJoinPool}, straight from the mapping, and their statistics are
+ * merged as the halves are joined.  Nothing is copied and nothing is allocated per line.
+ * <p>
+ * A line that is not all numbers fails the scan with an <code>IOException</code> that gives its offset in the file.
+ * Compressed files can not be mapped, and must be uncompressed first.
+ *
+ * @author Frederick Burkley
+ */
+public class ParallelFileScanner {
+
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = ParallelFileScanner.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default size of a chunk: the most bytes parsed by one task.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+	/**
+	 * The default size of a segment: the most bytes mapped at once.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 1024;
+	/**
+	 * The file to scan.
+	 */
+	private final File file;
+	/**
+	 * The pool the chunks are parsed on.
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * The most bytes parsed by one task.
+	 */
+	private int chunkSize;
+	/**
+	 * The most bytes mapped at once.
+	 */
+	private int segmentSize;
+
+	/**
+	 * Create a <code>ParallelFileScanner</code> that parses on the common pool.
+	 *
+	 * @param file The file to scan.
+	 */
+	public ParallelFileScanner(final File file) {
+		this.file = file;
+		this.pool = ForkJoinPool.commonPool();
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+		this.segmentSize = DEFAULT_SEGMENT_SIZE;
+	}
+
+	/**
+	 * Set the pool the chunks are parsed on.  The default is {@linkplain ForkJoinPool#commonPool()}.
+	 *
+	 * @param pool The pool.
+	 */
+	public void setForkJoinPool(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the size of a chunk, the most bytes parsed by one task.  A chunk is larger only if one line is.  The default
+	 * is {@value #DEFAULT_CHUNK_SIZE}.
+	 *
+	 * @param chunkSize The size of a chunk, in bytes.
+	 * @throws IllegalArgumentException If <code>chunkSize</code> is less than 1.
+	 */
+	public void setChunkSize(final int chunkSize) throws IllegalArgumentException {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException(_className + ": the chunk size can not be less than 1: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Set the size of a segment, the most bytes mapped at once.  Every line must fit in a segment.  The default is
+	 * {@value #DEFAULT_SEGMENT_SIZE}.
+	 *
+	 * @param segmentSize The size of a segment, in bytes.
+	 * @throws IllegalArgumentException If <code>segmentSize</code> is less than 1.
+	 */
+	public void setSegmentSize(final int segmentSize) throws IllegalArgumentException {
+		if (segmentSize < 1) {
+			throw new IllegalArgumentException(_className + ": the segment size can not be less than 1: " + segmentSize);
+		}
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Scan the file.
+	 *
+	 * @return The statistics of the whole file.
+	 * @throws IOException If the file can not be read, has a line that is longer than a segment, or has a line that is
+	 *   not all numbers.
+	 */
+	public ColumnStatistics scan() throws IOException {
+		long startTime = System.currentTimeMillis();
+		List<ForkJoinTask<ColumnStatistics>> tasks = new ArrayList<ForkJoinTask<ColumnStatistics>>();
+		try (FileChannel fileChannel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+			long size = fileChannel.size();
+			long offset = 0;
+			while (offset < size) {
+				long length = Math.min(size - offset, this.segmentSize);
+				MappedByteBuffer segment = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				int end = (int) length;
+				if (offset + length < size) {
+					end = lastLineEnd(segment, end);
+					if (end == 0) {
+						throw new IOException(_className + ": " + this.file + " has a line at " + offset
+								+ " that is longer than the segment size, " + this.segmentSize + " bytes.");
+					}
+				}
+				tasks.add(this.pool.submit(new ChunkTask(segment, offset, 0, end)));
+				offset += end;
+			}
+		} catch (IOException ex) {
+			cancel(tasks);
+			throw ex;
+		}
+		// The mappings outlive the channel.
+		ColumnStatistics statistics = new ColumnStatistics();
+		try {
+			for (ForkJoinTask<ColumnStatistics> task : tasks) {
+				statistics.merge(task.join());
+			}
+		} catch (UncheckedIOException ex) {
+			cancel(tasks);
+			throw ex.getCause();
+		}
+		if (_logger.isLoggable(Level.FINE)) {
+			_logger.log(Level.FINE, _className + ".scan(): " + this.file + ": " + statistics.getLineCount() + " lines in "
+					+ tasks.size() + " segments, " + (System.currentTimeMillis() - startTime) + " milliseconds");
+		}
+		return statistics;
+	}
+
+	private static void cancel(final List<ForkJoinTask<ColumnStatistics>> tasks) {
+		for (ForkJoinTask<ColumnStatistics> task : tasks) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * Find the end of the last complete line before <code>end</code>.
+	 *
+	 * @return The index after the last newline before <code>end</code>, or 0 if there is none.
+	 */
+	private static int lastLineEnd(final MappedByteBuffer buffer, final int end) {
+		for (int i = end - 1; i >= 0; i--) {
+			if (buffer.get(i) == '\n') {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Find the end of the first line that ends at or after <code>start</code>.
+	 *
+	 * @return The index after the first newline at or after <code>start</code>, or <code>end</code> if there is none.
+	 */
+	private static int nextLineEnd(final MappedByteBuffer buffer, final int start, final int end) {
+		for (int i = start; i < end; i++) {
+			if (buffer.get(i) == '\n') {
+				return i + 1;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Summarise the lines of a segment from <code>start</code> to <code>end</code>, which are line boundaries: parse them
+	 * if they are no larger than a chunk, or else split them in two at a line boundary and summarise both halves.
+	 */
+	private class ChunkTask extends RecursiveTask<ColumnStatistics> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final MappedByteBuffer segment;
+
+		private final long segmentOffset;
+
+		private final int start;
+
+		private final int end;
+
+		ChunkTask(final MappedByteBuffer segment, final long segmentOffset, final int start, final int end) {
+			this.segment = segment;
+			this.segmentOffset = segmentOffset;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected ColumnStatistics compute() {
+			if (this.end - this.start > ParallelFileScanner.this.chunkSize) {
+				int middle = nextLineEnd(this.segment, this.start + (this.end - this.start) / 2, this.end);
+				if (middle < this.end) {
+					ChunkTask first = new ChunkTask(this.segment, this.segmentOffset, this.start, middle);
+					first.fork();
+					ColumnStatistics second = new ChunkTask(this.segment, this.segmentOffset, middle, this.end).compute();
+					return first.join().merge(second);
+				}
+			}
+			return this.parse();
+		}
+
+		private ColumnStatistics parse() {
+			ColumnStatistics statistics = new ColumnStatistics();
+			RecordParser parser = new RecordParser();
+			float[] values = new float[32];
+			parser.reset(this.segment, this.start, this.end);
+			while (parser.next()) {
+				if (parser.getFieldCount() > values.length) {
+					values = new float[Math.max(parser.getFieldCount(), values.length * 2)];
+				}
+				try {
+					statistics.add(values, parser.getFloats(values));
+				} catch (NumberFormatException ex) {
+					throw new UncheckedIOException(new IOException(_className + ": " + ParallelFileScanner.this.file
+							+ " has a line at " + (this.segmentOffset + parser.getLineOffset()) + " that is not all numbers: "
+							+ ex.getMessage(), ex));
+				}
+			}
+			return statistics;
+		}
+	}
+}
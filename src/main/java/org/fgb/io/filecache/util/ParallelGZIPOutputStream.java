@@ -0,0 +1,210 @@
+package org.fgb.io.filecache.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class <code>ParallelGZIPOutputStream</code> is a gzip output stream that compresses on several threads, in the
+ * manner of <i>pigz</i>.
+ * <p>
+ * The input is cut into fixed size blocks.  Each block is compressed, on a thread pool, into a complete gzip member,
+ * and the members are written to the underlying stream in input order.  A file made of concatenated gzip members is a
+ * valid gzip file (RFC 1952), and is read back by <code>gunzip</code> and by {@linkplain java.util.zip.GZIPInputStream}.
+ * Compression is slightly worse than a single stream, since the dictionary is reset at each block.
+ * <p>
+ * At most two blocks per thread are in flight, which bounds the memory used.  This class is not thread safe.
+ *
+ * @author burkley
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+	/**
+	 * The name of this class.
+	 */
+	private static final String _className = ParallelGZIPOutputStream.class.getName();
+	/**
+	 * JDK logger.
+	 */
+	private static final Logger _logger = Logger.getLogger(_className);
+	/**
+	 * The default size of a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+	/**
+	 * The stream the gzip members are written to.
+	 */
+	private final OutputStream out;
+	/**
+	 * The thread pool that compresses blocks.
+	 */
+	private final ExecutorService executor;
+	/**
+	 * The maximum number of blocks in flight.
+	 */
+	private final int maximumPendingBlocks;
+	/**
+	 * The size of a block.
+	 */
+	private final int blockSize;
+	/**
+	 * The compressed blocks not yet written, in input order.
+	 */
+	private final Deque<Future<byte[]>> pending;
+	/**
+	 * The block being filled.
+	 */
+	private byte[] block;
+	/**
+	 * The number of bytes in the block being filled.
+	 */
+	private int position;
+	/**
+	 * Whether at least one gzip member has been submitted.
+	 */
+	private boolean memberSubmitted;
+	/**
+	 * Whether the stream has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Create a <code>ParallelGZIPOutputStream</code> with blocks of {@value #DEFAULT_BLOCK_SIZE} bytes.
+	 *
+	 * @param out The stream to write the compressed data to.
+	 * @param numberOfThreads The number of compression threads.
+	 */
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads) {
+		this(out, numberOfThreads, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Create a <code>ParallelGZIPOutputStream</code>.
+	 *
+	 * @param out The stream to write the compressed data to.
+	 * @param numberOfThreads The number of compression threads.
+	 * @param blockSize The number of uncompressed bytes per gzip member.
+	 */
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads, final int blockSize) {
+		this.out = out;
+		this.blockSize = blockSize;
+		this.maximumPendingBlocks = 2 * numberOfThreads;
+		this.pending = new ArrayDeque<Future<byte[]>>();
+		this.block = new byte[blockSize];
+		this.executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, _className);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		this.block[this.position++] = (byte) b;
+		if (this.position == this.blockSize) {
+			this.submitBlock();
+		}
+	}
+
+	@Override
+	public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+		int off = offset;
+		int len = length;
+		while (len > 0) {
+			int count = Math.min(len, this.blockSize - this.position);
+			System.arraycopy(bytes, off, this.block, this.position, count);
+			this.position += count;
+			off += count;
+			len -= count;
+			if (this.position == this.blockSize) {
+				this.submitBlock();
+			}
+		}
+	}
+
+	/**
+	 * Writes the members that are already compressed.  The partially filled block is not flushed, since that would
+	 * produce a short gzip member.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!this.pending.isEmpty() && this.pending.peekFirst().isDone()) {
+			this.writeFirstPending();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (this.position > 0 || !this.memberSubmitted) {
+				this.submitBlock();
+			}
+			while (!this.pending.isEmpty()) {
+				this.writeFirstPending();
+			}
+		} finally {
+			this.executor.shutdownNow();
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Hand the current block to the thread pool, then write finished members until the number of blocks in flight is
+	 * below the limit.
+	 */
+	private void submitBlock() throws IOException {
+		final byte[] data = this.block;
+		final int length = this.position;
+		this.pending.addLast(this.executor.submit(() -> compress(data, length)));
+		this.memberSubmitted = true;
+		this.block = new byte[this.blockSize];
+		this.position = 0;
+		while (this.pending.size() >= this.maximumPendingBlocks) {
+			this.writeFirstPending();
+		}
+	}
+
+	/**
+	 * Wait for the oldest block to be compressed, and write it.
+	 */
+	private void writeFirstPending() throws IOException {
+		Future<byte[]> future = this.pending.removeFirst();
+		try {
+			this.out.write(future.get());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ex.toString());
+		} catch (ExecutionException ex) {
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Compress a block into a complete gzip member.
+	 */
+	private static byte[] compress(final byte[] data, final int length) throws IOException {
+		ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(member, 8192)) {
+			gzipOutputStream.write(data, 0, length);
+		}
+		return member.toByteArray();
+	}
+}
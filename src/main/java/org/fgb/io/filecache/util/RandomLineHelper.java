@@ -1,5 +1,6 @@
 package org.fgb.io.filecache.util;
 
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.Random;
 import java.util.logging.Logger;
@@ -19,6 +20,13 @@ import java.util.logging.Logger;
  * <pre>
  * 256.61987	54.05118	75.37922	89.87322	60.63649	118.63278	74.480446	287.4949	275.73047	157.23566	252.51195	216.38153	52.19731	37.58171	2.409314	252.97537	314.55902	189.45442	277.22253	37.991997	14.473404	191.34471	0.3187564	319.5977
  * </pre>
+ * <p>
+ * {@linkplain #getLine()} writes each number with <code>Float.toString</code>.  The byte oriented methods
+ * {@linkplain #getLine(byte[], int)} and {@linkplain #getLine(ByteBuffer)} format the numbers straight into
+ * the caller's buffer and do not allocate, so they should be preferred when generating large files.  They write the
+ * fewest fraction digits that read back as the same <code>float</code> (see {@linkplain #formatFloat(float, byte[], int)}),
+ * which are nearly always the digits of <code>Float.toString</code>; numbers below 10^-3 are written without an
+ * exponent.
  * 
  * @author burkley
  */
@@ -45,6 +53,30 @@ public class RandomLineHelper {
 	 * {@linkplain #getLine()}). This is an arbitrary value.
 	 */
 	private final float maximumFloatValue = 345.0f;
+	/**
+	 * The most digits written after the decimal point by {@linkplain #formatFloat(float, byte[], int)}.
+	 */
+	public static final int MAXIMUM_FRACTION_DIGITS = 17;
+	/**
+	 * The powers of ten, up to 10 to the power {@value #MAXIMUM_FRACTION_DIGITS}.
+	 */
+	private static final long[] _POWERS_OF_TEN = new long[MAXIMUM_FRACTION_DIGITS + 1];
+	static {
+		_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < _POWERS_OF_TEN.length; i++) {
+			_POWERS_OF_TEN[i] = _POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+	/**
+	 * The maximum number of bytes of a field.  The smallest number above 0 is 345 * 2^-24, about 2.06 * 10^-5, so a field
+	 * is at most "0.", 4 zeros and the 9 significant digits that any <code>float</code> needs, or 3 integer digits, the
+	 * decimal point and 6 fraction digits.
+	 */
+	private static final int MAXIMUM_FIELD_LENGTH = 2 + 4 + 9;
+	/**
+	 * A reusable buffer for {@linkplain #getLine(ByteBuffer)}.
+	 */
+	private final byte[] lineBuffer;
 
 	/**
 	 * Construct an instance of <code>RandomLineHelper</code>. The number of
@@ -56,10 +88,40 @@ public class RandomLineHelper {
 	 */
 	public RandomLineHelper(final short numberOfFieldsPerLine) {
 		this.numberOfFieldsPerLine = numberOfFieldsPerLine;
+		this.lineBuffer = new byte[this.getMaximumLineLength()];
 		long time = new Date().getTime();
 		this.randomNumberGenerator = new Random(time);
 	}
 
+	/**
+	 * Get the number of fields per line.
+	 *
+	 * @return The number of fields per line.
+	 */
+	public short getNumberOfFieldsPerLine() {
+		return this.numberOfFieldsPerLine;
+	}
+
+	/**
+	 * Generate one random number, from the same distribution as the fields of a line.
+	 *
+	 * @return A random number, at least 0 and below the maximum value.
+	 */
+	public float nextFloat() {
+		return this.randomNumberGenerator.nextFloat() * this.maximumFloatValue;
+	}
+
+	/**
+	 * Get the maximum length, in bytes, of a line generated by this class.  A buffer passed to
+	 * {@linkplain #getLine(byte[], int)} or {@linkplain #getLine(ByteBuffer)} must have at least this many bytes remaining.
+	 * 
+	 * @return The maximum length of a line, including the trailing newline.
+	 */
+	public int getMaximumLineLength() {
+		// Every field is followed by either a tab or the newline.
+		return Math.max(this.numberOfFieldsPerLine, 1) * (MAXIMUM_FIELD_LENGTH + 1);
+	}
+
 	/**
 	 * Generate a line of text containing a series of random numbers. A typical
 	 * line appears as:
@@ -71,20 +133,121 @@ public class RandomLineHelper {
 	 * @return A line of text containing a series of random numbers.
 	 */
 	public String getLine() {
-		float number;
-		int index;
-		StringBuilder line = new StringBuilder();
-
-		// line.append(lineNumber).append(":\t");
+		StringBuilder line = new StringBuilder(this.getMaximumLineLength());
 		for (short field = 0; field < this.numberOfFieldsPerLine; field++) {
-			number = randomNumberGenerator.nextFloat() * maximumFloatValue;
-			line.append(number).append("\t");
+			if (field > 0) {
+				line.append('\t');
+			}
+			line.append(this.nextFloat());
 		}
-		// Remove trailing tab
-		index = line.lastIndexOf("\t");
-		line.delete(index, line.length());
-		// Append newline
-		line.append("\n");
+		line.append('\n');
 		return line.toString();
 	}
+
+	/**
+	 * Generate a line of text containing a series of random numbers, and write it as ASCII into <code>buffer</code>
+	 * starting at <code>offset</code>.
+	 * 
+	 * @param buffer The buffer to write to.  At least {@linkplain #getMaximumLineLength()} bytes must be available from <code>offset</code>.
+	 * @param offset The position in <code>buffer</code> of the first byte of the line.
+	 * @return The number of bytes written.
+	 */
+	public int getLine(final byte[] buffer, final int offset) {
+		int position = offset;
+		for (short field = 0; field < this.numberOfFieldsPerLine; field++) {
+			if (field > 0) {
+				buffer[position++] = '\t';
+			}
+			position = formatFloat(this.nextFloat(), buffer, position);
+		}
+		buffer[position++] = '\n';
+		return position - offset;
+	}
+
+	/**
+	 * Generate a line of text containing a series of random numbers, and put it as ASCII into <code>buffer</code>.
+	 * 
+	 * @param buffer The buffer to write to.  At least {@linkplain #getMaximumLineLength()} bytes must be remaining.
+	 * @return The number of bytes written.
+	 */
+	public int getLine(final ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			int position = buffer.position();
+			int length = this.getLine(buffer.array(), buffer.arrayOffset() + position);
+			buffer.position(position + length);
+			return length;
+		}
+		int length = this.getLine(this.lineBuffer, 0);
+		buffer.put(this.lineBuffer, 0, length);
+		return length;
+	}
+
+	/**
+	 * Format a number as ASCII, without going through a <code>String</code>.  The number is written in decimal notation
+	 * with the fewest fraction digits, at least 1, that <code>Float.parseFloat</code> reads back as the same
+	 * <code>float</code>.  The number must be finite and its magnitude below 10^14; below 10^-8 it is written with
+	 * {@value #MAXIMUM_FRACTION_DIGITS} fraction digits, which may not be enough to read it back exactly.
+	 * 
+	 * @param value The number to format.
+	 * @param buffer The buffer to write to.
+	 * @param offset The position in <code>buffer</code> of the first byte of the number.
+	 * @return The position in <code>buffer</code> after the last byte of the number.
+	 */
+	public static int formatFloat(final float value, final byte[] buffer, final int offset) {
+		int position = offset;
+		float magnitude = value;
+		if (Float.floatToRawIntBits(value) < 0) {
+			buffer[position++] = '-';
+			magnitude = -value;
+		}
+		double number = magnitude;
+		// Halves round to even, as in Float.toString.
+		int fractionDigits = 1;
+		long scaled = (long) Math.rint(number * _POWERS_OF_TEN[fractionDigits]);
+		while (fractionDigits < MAXIMUM_FRACTION_DIGITS && !readsBackAs(scaled, fractionDigits, magnitude)) {
+			fractionDigits++;
+			scaled = (long) Math.rint(number * _POWERS_OF_TEN[fractionDigits]);
+		}
+		long integerPart = scaled / _POWERS_OF_TEN[fractionDigits];
+		long fractionPart = scaled - integerPart * _POWERS_OF_TEN[fractionDigits];
+
+		// Integer digits, most significant first.
+		if (integerPart == 0) {
+			buffer[position++] = '0';
+		} else {
+			int start = position;
+			while (integerPart > 0) {
+				buffer[position++] = (byte) ('0' + (integerPart % 10));
+				integerPart /= 10;
+			}
+			for (int i = start, j = position - 1; i < j; i++, j--) {
+				byte b = buffer[i];
+				buffer[i] = buffer[j];
+				buffer[j] = b;
+			}
+		}
+		buffer[position++] = '.';
+		// Fraction digits, zero padded.
+		for (int i = position + fractionDigits - 1; i >= position; i--) {
+			buffer[i] = (byte) ('0' + (fractionPart % 10));
+			fractionPart /= 10;
+		}
+		return position + fractionDigits;
+	}
+
+	/**
+	 * Tell whether <code>scaled</code> / 10^<code>fractionDigits</code> reads back as <code>value</code>.
+	 */
+	private static boolean readsBackAs(final long scaled, final int fractionDigits, final float value) {
+		// The division is correctly rounded: scaled is below 2^53 and the power of ten is exact.
+		double decimal = scaled / (double) _POWERS_OF_TEN[fractionDigits];
+		if ((float) decimal != value) {
+			return false;
+		}
+		// Rounding to a double and then to a float differs from rounding straight to a float only if the double is
+		// halfway between two floats.  Below a power of two the floats are half as far apart.
+		double error = Math.abs(decimal - value);
+		double ulp = Math.ulp(value);
+		return error != ulp / 2 && error != ulp / 4;
+	}
 }
@@ -0,0 +1,394 @@
+/*
+ * Class:   RecordParser.java
+ * Born On: Oct, 2026
+ * Purpose: Parse delimited records from a ByteBuffer or a CharSequence without allocating.
+ */
+package org.fgb.io.filecache.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class <code>RecordParser</code> parses the lines of delimited text (by default tab separated, as written by
+ * {@linkplain RandomLineHelper}) one record at a time, straight from a {@linkplain ByteBuffer} or a
+ * {@linkplain CharSequence}.
+ * <p>
+ * The parser is the record: after {@linkplain #next()}, the fields of the current line are slices of the source, given
+ * by {@linkplain #getFieldOffset(int)} and {@linkplain #getFieldLength(int)}, and numbers are parsed from the source
+ * into primitives by {@linkplain #getFloat(int)} and {@linkplain #getFloats(float[])}.  One parser is reused for every
+ * line, so parsing allocates nothing once the parser has seen its widest line.  Only {@linkplain #getField(int)}
+ * creates a <code>String</code>.
+ * <p>
+ * Lines end with <code>\n</code> or <code>\r\n</code>; the last line need not end at all.  Every line has at least one
+ * field, and a line ending with the delimiter has an empty last field.  A byte source is read as ASCII, with absolute
+ * reads, so its position is not changed and several parsers may read parts of one buffer.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Frederick Burkley
+ */
+public class RecordParser {
+
+	/**
+	 * The default delimiter.
+	 */
+	public static final char DEFAULT_DELIMITER = '\t';
+	/**
+	 * Powers of ten that are exact as a <code>double</code>.
+	 */
+	private static final double[] _POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/**
+	 * Up to this many significant digits are exact in the mantissa of a <code>double</code>.
+	 */
+	private static final int MAXIMUM_EXACT_DIGITS = 15;
+	/**
+	 * The bits of a <code>double</code> that a <code>float</code> drops, and their value when the <code>double</code> lies
+	 * exactly half way between two <code>float</code>s.
+	 */
+	private static final long FLOAT_DROPPED_BITS = (1L << 29) - 1;
+	private static final long FLOAT_HALF_WAY = 1L << 28;
+	/**
+	 * The delimiter between fields.
+	 */
+	private final char delimiter;
+	/**
+	 * The source, if it is a byte buffer, or <code>null</code>.
+	 */
+	private ByteBuffer bytes;
+	/**
+	 * The source, if it is a character sequence, or <code>null</code>.
+	 */
+	private CharSequence chars;
+	/**
+	 * The index in the source of the start of the next line.
+	 */
+	private int position;
+	/**
+	 * The index in the source after the last character to parse.
+	 */
+	private int limit;
+	/**
+	 * The index in the source of the current line, and its length without the line terminator.
+	 */
+	private int lineOffset;
+	private int lineLength;
+	/**
+	 * The fields of the current line: where they start in the source, and their lengths.
+	 */
+	private int[] fieldOffsets;
+	private int[] fieldLengths;
+	private int fieldCount;
+
+	/**
+	 * Create a <code>RecordParser</code> for tab separated records.
+	 */
+	public RecordParser() {
+		this(DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * Create a <code>RecordParser</code>.
+	 *
+	 * @param delimiter The delimiter between fields.  Must be ASCII to parse a byte source.
+	 */
+	public RecordParser(final char delimiter) {
+		this.delimiter = delimiter;
+		this.fieldOffsets = new int[32];
+		this.fieldLengths = new int[32];
+	}
+
+	/**
+	 * Parse the bytes of <code>buffer</code> from its position to its limit.
+	 *
+	 * @param buffer The source.
+	 */
+	public void reset(final ByteBuffer buffer) {
+		this.reset(buffer, buffer.position(), buffer.limit());
+	}
+
+	/**
+	 * Parse the bytes of <code>buffer</code> from <code>start</code> to <code>end</code>.
+	 *
+	 * @param buffer The source.
+	 * @param start The index of the first byte to parse.
+	 * @param end The index after the last byte to parse.
+	 */
+	public void reset(final ByteBuffer buffer, final int start, final int end) {
+		this.bytes = buffer;
+		this.chars = null;
+		this.start(start, end);
+	}
+
+	/**
+	 * Parse the characters of <code>text</code>.
+	 *
+	 * @param text The source.
+	 */
+	public void reset(final CharSequence text) {
+		this.bytes = null;
+		this.chars = text;
+		this.start(0, text.length());
+	}
+
+	private void start(final int start, final int end) {
+		this.position = start;
+		this.limit = end;
+		this.lineOffset = start;
+		this.lineLength = 0;
+		this.fieldCount = 0;
+	}
+
+	/**
+	 * Move to the next line.
+	 *
+	 * @return <code>true</code> if there is a next line, <code>false</code> at the end of the source.
+	 */
+	public boolean next() {
+		int index = this.position;
+		if (index >= this.limit) {
+			this.fieldCount = 0;
+			return false;
+		}
+		this.lineOffset = index;
+		this.fieldCount = 0;
+		int fieldStart = index;
+		int c = 0;
+		while (index < this.limit && (c = this.charAt(index)) != '\n') {
+			if (c == this.delimiter) {
+				this.addField(fieldStart, index);
+				fieldStart = index + 1;
+			}
+			index++;
+		}
+		int lineEnd = index;
+		if (lineEnd > fieldStart && this.charAt(lineEnd - 1) == '\r') {
+			lineEnd--;
+		}
+		this.addField(fieldStart, lineEnd);
+		this.lineLength = lineEnd - this.lineOffset;
+		this.position = index < this.limit ? index + 1 : index;
+		return true;
+	}
+
+	/**
+	 * Get the index in the source of the start of the current line.
+	 *
+	 * @return The index of the first character of the line.
+	 */
+	public int getLineOffset() {
+		return this.lineOffset;
+	}
+
+	/**
+	 * Get the length of the current line, without its line terminator.
+	 *
+	 * @return The number of characters of the line.
+	 */
+	public int getLineLength() {
+		return this.lineLength;
+	}
+
+	/**
+	 * Get the index in the source of the start of the next line.
+	 *
+	 * @return The index after the line terminator of the current line.
+	 */
+	public int getPosition() {
+		return this.position;
+	}
+
+	/**
+	 * Get the number of fields of the current line.
+	 *
+	 * @return The number of fields; 0 before the first line and after the last.
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Get the index in the source of the start of a field.
+	 *
+	 * @param field The number of the field, from 0.
+	 * @return The index of the first character of the field.
+	 * @throws IndexOutOfBoundsException If the line has no such field.
+	 */
+	public int getFieldOffset(final int field) throws IndexOutOfBoundsException {
+		this.checkField(field);
+		return this.fieldOffsets[field];
+	}
+
+	/**
+	 * Get the length of a field.
+	 *
+	 * @param field The number of the field, from 0.
+	 * @return The number of characters of the field.
+	 * @throws IndexOutOfBoundsException If the line has no such field.
+	 */
+	public int getFieldLength(final int field) throws IndexOutOfBoundsException {
+		this.checkField(field);
+		return this.fieldLengths[field];
+	}
+
+	/**
+	 * Get a field as a <code>String</code>.  This allocates; use the offsets, or {@linkplain #getFloat(int)}, on hot
+	 * paths.
+	 *
+	 * @param field The number of the field, from 0.
+	 * @return The text of the field.
+	 * @throws IndexOutOfBoundsException If the line has no such field.
+	 */
+	public String getField(final int field) throws IndexOutOfBoundsException {
+		this.checkField(field);
+		return this.substring(this.fieldOffsets[field], this.fieldOffsets[field] + this.fieldLengths[field]);
+	}
+
+	/**
+	 * Parse a field as a <code>float</code>.  Decimal numbers of up to {@value #MAXIMUM_EXACT_DIGITS} significant digits
+	 * (every number written by {@linkplain RandomLineHelper}) are parsed without allocating; anything else is handed to
+	 * {@linkplain Float#parseFloat(String)}.  Either way the result is the same as that of
+	 * {@linkplain Float#parseFloat(String)}.
+	 *
+	 * @param field The number of the field, from 0.
+	 * @return The value of the field.
+	 * @throws IndexOutOfBoundsException If the line has no such field.
+	 * @throws NumberFormatException If the field is not a number.
+	 */
+	public float getFloat(final int field) throws IndexOutOfBoundsException, NumberFormatException {
+		this.checkField(field);
+		int start = this.fieldOffsets[field];
+		return this.parseFloat(start, start + this.fieldLengths[field]);
+	}
+
+	/**
+	 * Parse the first fields of the current line as <code>float</code>s.
+	 *
+	 * @param values Receives the values.  At most <code>values.length</code> fields are parsed.
+	 * @return The number of values parsed: the smaller of the number of fields and <code>values.length</code>.
+	 * @throws NumberFormatException If a field is not a number.
+	 */
+	public int getFloats(final float[] values) throws NumberFormatException {
+		int count = Math.min(this.fieldCount, values.length);
+		for (int i = 0; i < count; i++) {
+			int start = this.fieldOffsets[i];
+			values[i] = this.parseFloat(start, start + this.fieldLengths[i]);
+		}
+		return count;
+	}
+
+	private void checkField(final int field) throws IndexOutOfBoundsException {
+		if (field < 0 || field >= this.fieldCount) {
+			throw new IndexOutOfBoundsException("Field " + field + " of a line of " + this.fieldCount + " fields");
+		}
+	}
+
+	private void addField(final int start, final int end) {
+		if (this.fieldCount == this.fieldOffsets.length) {
+			int[] offsets = new int[this.fieldCount * 2];
+			int[] lengths = new int[this.fieldCount * 2];
+			System.arraycopy(this.fieldOffsets, 0, offsets, 0, this.fieldCount);
+			System.arraycopy(this.fieldLengths, 0, lengths, 0, this.fieldCount);
+			this.fieldOffsets = offsets;
+			this.fieldLengths = lengths;
+		}
+		this.fieldOffsets[this.fieldCount] = start;
+		this.fieldLengths[this.fieldCount] = end - start;
+		this.fieldCount++;
+	}
+
+	private int charAt(final int index) {
+		return this.bytes != null ? this.bytes.get(index) & 0xFF : this.chars.charAt(index);
+	}
+
+	private String substring(final int start, final int end) {
+		if (this.bytes != null) {
+			byte[] copy = new byte[end - start];
+			for (int i = start; i < end; i++) {
+				copy[i - start] = this.bytes.get(i);
+			}
+			return new String(copy, StandardCharsets.US_ASCII);
+		}
+		return this.chars.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Parse <code>[+-]digits[.digits][(e|E)[+-]digits]</code> as a decimal mantissa and a power of ten.  If the mantissa
+	 * and the power of ten are both exact as <code>double</code>s, one division or multiplication rounds the value
+	 * correctly to a <code>double</code>; rounding that to a <code>float</code> is then correct too, unless the
+	 * <code>double</code> lies exactly half way between two <code>float</code>s.  Every other case is handed to
+	 * {@linkplain Float#parseFloat(String)}.
+	 */
+	private float parseFloat(final int start, final int end) throws NumberFormatException {
+		int index = start;
+		boolean negative = false;
+		if (index < end && (this.charAt(index) == '-' || this.charAt(index) == '+')) {
+			negative = this.charAt(index) == '-';
+			index++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean sawDigit = false;
+		int c;
+		while (index < end && (c = this.charAt(index) - '0') >= 0 && c <= 9) {
+			sawDigit = true;
+			if (mantissa != 0 || c != 0) {
+				mantissa = mantissa * 10 + c;
+				digits++;
+			}
+			index++;
+		}
+		if (index < end && this.charAt(index) == '.') {
+			index++;
+			while (index < end && (c = this.charAt(index) - '0') >= 0 && c <= 9) {
+				sawDigit = true;
+				if (mantissa != 0 || c != 0) {
+					mantissa = mantissa * 10 + c;
+					digits++;
+				}
+				exponent--;
+				index++;
+			}
+		}
+		if (sawDigit && index < end && (this.charAt(index) == 'e' || this.charAt(index) == 'E')) {
+			index++;
+			boolean negativeExponent = false;
+			if (index < end && (this.charAt(index) == '-' || this.charAt(index) == '+')) {
+				negativeExponent = this.charAt(index) == '-';
+				index++;
+			}
+			int exponentStart = index;
+			int explicit = 0;
+			while (index < end && (c = this.charAt(index) - '0') >= 0 && c <= 9) {
+				explicit = Math.min(explicit * 10 + c, 10000);
+				index++;
+			}
+			if (index == exponentStart) {
+				return this.parseFloatSlowly(start, end);
+			}
+			exponent += negativeExponent ? -explicit : explicit;
+		}
+		if (!sawDigit || index != end || digits > MAXIMUM_EXACT_DIGITS) {
+			return this.parseFloatSlowly(start, end);
+		}
+		if (mantissa == 0) {
+			return negative ? -0.0f : 0.0f;
+		}
+		if (exponent < -(_POWERS_OF_TEN.length - 1) || exponent > _POWERS_OF_TEN.length - 1) {
+			return this.parseFloatSlowly(start, end);
+		}
+		double value = exponent < 0 ? mantissa / _POWERS_OF_TEN[-exponent] : mantissa * _POWERS_OF_TEN[exponent];
+		if (value < Float.MIN_NORMAL || value > Float.MAX_VALUE
+				|| (Double.doubleToRawLongBits(value) & FLOAT_DROPPED_BITS) == FLOAT_HALF_WAY) {
+			return this.parseFloatSlowly(start, end);
+		}
+		return negative ? -(float) value : (float) value;
+	}
+
+	private float parseFloatSlowly(final int start, final int end) throws NumberFormatException {
+		return Float.parseFloat(this.substring(start, end));
+	}
+}
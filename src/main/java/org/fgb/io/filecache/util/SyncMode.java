@@ -0,0 +1,85 @@
+/*
+ * Class:   SyncMode
+ * Born On: Oct, 2026
+ * Purpose: Decide whether a file has to be copied when synchronising two directory trees.
+ */
+package org.fgb.io.filecache.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * Enum <code>SyncMode</code> decides whether a file has to be copied when synchronising two directory trees, in the
+ * manner of <i>rsync</i>.
+ * <ul>
+ * <li>{@linkplain #ALWAYS} copies every file.</li>
+ * <li>{@linkplain #SIZE_AND_MTIME} skips a file whose destination has the same size and last modified time.  This
+ * only costs a <code>stat</code> of the destination, so the copy time scales with the amount of change.</li>
+ * <li>{@linkplain #CHECKSUM} skips a file whose destination has the same size and the same CRC-32.  Both files are
+ * read in full, so this is the slow, verifying tier; use it when last modified times can not be trusted.</li>
+ * </ul>
+ * A copy must keep the last modified time of the source for {@linkplain #SIZE_AND_MTIME} to skip it next time.
+ *
+ * @author Frederick Burkley
+ */
+public enum SyncMode {
+	ALWAYS,
+	SIZE_AND_MTIME,
+	CHECKSUM;
+
+	/**
+	 * The size of the buffer used to compute checksums.
+	 */
+	private static final int _CHECKSUM_BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * Decide whether a file has to be copied.
+	 *
+	 * @param source The file to copy.
+	 * @param sourceAttributes The attributes of <code>source</code>, which the caller has usually read already.
+	 * @param destination The file <code>source</code> would be copied to.
+	 * @return <code>true</code> if the destination is missing or differs from the source.
+	 * @throws IOException If the attributes or contents of the files can not be read.
+	 */
+	public boolean needsCopy(final Path source, final BasicFileAttributes sourceAttributes, final Path destination) throws IOException {
+		if (this == ALWAYS) {
+			return true;
+		}
+		BasicFileAttributes destinationAttributes;
+		try {
+			destinationAttributes = Files.readAttributes(destination, BasicFileAttributes.class);
+		} catch (NoSuchFileException ex) {
+			return true;
+		}
+		if (!destinationAttributes.isRegularFile() || destinationAttributes.size() != sourceAttributes.size()) {
+			return true;
+		}
+		if (this == SIZE_AND_MTIME) {
+			return destinationAttributes.lastModifiedTime().toMillis() != sourceAttributes.lastModifiedTime().toMillis();
+		}
+		return checksum(source) != checksum(destination);
+	}
+
+	/**
+	 * Compute the CRC-32 of a file.
+	 */
+	private static long checksum(final Path file) throws IOException {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(_CHECKSUM_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		return crc.getValue();
+	}
+}
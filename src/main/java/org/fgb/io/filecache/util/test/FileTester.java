@@ -7,6 +7,9 @@ package org.fgb.io.filecache.util.test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.cli.CommandLine;
@@ -16,7 +19,6 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
-import org.apache.commons.io.FileSystemUtils;
 import org.apache.commons.io.FileUtils;
 
 /**
@@ -48,8 +50,10 @@ public class FileTester {
 		System.out.println(msg.toString());
 		msg.delete(0, msg.length());
 
-		freeSpaceKb = FileSystemUtils.freeSpaceKb(fileName);
-		msg.append(_className).append(": Free space = ").append(freeSpaceKb).append(" KB.");
+		// The file store reads the free space with a system call, where FileSystemUtils.freeSpaceKb() forks df.
+		FileStore fileStore = Files.getFileStore(Paths.get(fileName));
+		freeSpaceKb = fileStore.getUsableSpace() / FileUtils.ONE_KB;
+		msg.append(_className).append(": Free space = ").append(freeSpaceKb).append(" KB of ").append(fileStore.getTotalSpace() / FileUtils.ONE_KB).append(" KB.");
 		System.out.println(msg.toString());
 		msg.delete(0, msg.length());
 
@@ -0,0 +1,70 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchDeleterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<CacheEntry> createFiles(final int count) throws IOException {
+		List<CacheEntry> entries = new ArrayList<CacheEntry>();
+		for (int i = 0; i < count; i++) {
+			File file = new File(this.folder.getRoot(), "FGB" + i);
+			FileUtils.writeByteArrayToFile(file, new byte[10]);
+			entries.add(new CacheEntry(file, 10, 0));
+		}
+		return entries;
+	}
+
+	@Test
+	public void testParallelDelete() throws IOException {
+		List<CacheEntry> entries = this.createFiles(2500);
+		// One file is gone already, and one can not be deleted: a non empty directory.
+		assertTrue(entries.get(7).getFile().delete());
+		File directory = this.folder.newFolder("FGBdir");
+		FileUtils.writeByteArrayToFile(new File(directory, "child"), new byte[1]);
+		entries.add(new CacheEntry(directory, 10, 0));
+
+		BatchDeleter deleter = new BatchDeleter(4);
+		final AtomicInteger reports = new AtomicInteger();
+		deleter.setProgressListener(new DeleteProgressListener() {
+
+			@Override
+			public void onProgress(int filesDone, int filesTotal, long bytesFreed) {
+				assertEquals(2501, filesTotal);
+				reports.incrementAndGet();
+			}
+		});
+		DeleteResult result = deleter.delete(entries);
+		deleter.close();
+
+		assertEquals(2499, result.getFilesDeleted());
+		assertEquals(24990, result.getBytesFreed());
+		assertEquals(1, result.getFilesMissing());
+		assertEquals(1, result.getFailures().size());
+		assertEquals(directory, result.getFailures().get(0));
+		// At 1000, 2000 and at the end.
+		assertEquals(3, reports.get());
+		assertEquals(1, this.folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testSerialDelete() throws IOException {
+		BatchDeleter deleter = new BatchDeleter(1);
+		DeleteResult result = deleter.delete(this.createFiles(3));
+		assertEquals(3, result.getFilesDeleted());
+		assertTrue(deleter.delete(new ArrayList<CacheEntry>()).getFailures().isEmpty());
+	}
+}
@@ -0,0 +1,260 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.fgb.io.filecache.impl.LargestFirstEvictionPolicy;
+import org.fgb.io.filecache.impl.TimeToLiveEvictionPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CacheIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		this.index = new CacheIndex(this.folder.getRoot(), new FileFilter() {
+
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.getName().startsWith("FGB");
+			}
+		});
+	}
+
+	private File createFile(final String name, final int size, final long lastModified) throws IOException {
+		File file = new File(this.folder.getRoot(), name);
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		assertTrue(file.setLastModified(lastModified));
+		return file;
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		this.createFile("FGB1", 100, 1000000L);
+		this.createFile("other", 50, 2000000L);
+		this.index.load();
+		assertEquals(150, this.index.getTotalSize());
+		assertEquals(2, this.index.getFileCount());
+	}
+
+	@Test
+	public void testAddUpdateRemove() throws IOException {
+		File file = this.createFile("FGB1", 100, 1000000L);
+		this.index.add(file);
+		this.index.add(file);
+		assertEquals(100, this.index.getTotalSize());
+
+		FileUtils.writeByteArrayToFile(file, new byte[300]);
+		this.index.update(file);
+		assertEquals(300, this.index.getTotalSize());
+
+		assertEquals(300, this.index.remove(file));
+		assertEquals(0, this.index.remove(file));
+		assertEquals(0, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testPollOldest() throws IOException {
+		this.createFile("FGB2", 10, 3000000L);
+		this.createFile("FGB1", 10, 1000000L);
+		this.createFile("other", 10, 0L);
+		this.createFile("FGB3", 10, 2000000L);
+		this.index.load();
+
+		assertEquals("FGB1", this.index.pollVictim().getFile().getName());
+		assertEquals("FGB3", this.index.pollVictim().getFile().getName());
+		assertEquals("FGB2", this.index.pollVictim().getFile().getName());
+		assertNull(this.index.pollVictim());
+		assertEquals(10, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testPollVictims() throws IOException {
+		this.createFile("FGB1", 100, 1000000L);
+		this.createFile("FGB2", 100, 2000000L);
+		this.createFile("FGB3", 100, 3000000L);
+		this.index.load();
+
+		assertTrue(this.index.pollVictims(0).isEmpty());
+		List<CacheEntry> victims = this.index.pollVictims(150);
+		assertEquals(2, victims.size());
+		assertEquals("FGB1", victims.get(0).getFile().getName());
+		assertEquals("FGB2", victims.get(1).getFile().getName());
+		assertEquals(100, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testReconcile() throws IOException {
+		File file = this.createFile("FGB1", 100, 1000000L);
+		this.index.load();
+		assertTrue(file.delete());
+		this.createFile("FGB2", 40, 1000000L);
+		assertEquals(-60, this.index.reconcile());
+		assertEquals(40, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testRunningTotal() throws IOException {
+		File first = this.createFile("FGB1", 100, 1000000L);
+		File second = this.createFile("sub/FGB2", 200, 2000000L);
+		this.index.add(first);
+		this.index.add(second);
+		assertEquals(300, this.index.getTotalSize());
+		assertEquals(2, this.index.getFileCount());
+		assertEquals(200, this.index.getDirectorySize(second.getParentFile()));
+
+		FileUtils.writeByteArrayToFile(second, new byte[50]);
+		this.index.update(second);
+		assertEquals(150, this.index.getTotalSize());
+		assertEquals(50, this.index.getDirectorySize(second.getParentFile()));
+
+		assertTrue(first.delete());
+		this.index.update(first);
+		assertEquals(50, this.index.getTotalSize());
+		assertEquals(1, this.index.getFileCount());
+		// The walk agrees with the events.
+		assertEquals(0, this.index.reconcile());
+	}
+
+	@Test
+	public void testReconcileDuringEvents() throws IOException {
+		this.createFile("FGB1", 100, 1000000L);
+		File changed = this.createFile("FGB2", 100, 2000000L);
+		File deleted = this.createFile("FGB3", 100, 3000000L);
+		this.index.load();
+
+		long since = this.index.startScan();
+		Map<File, CacheEntry> scanned = this.index.scan();
+		// Events and an eviction that the walk did not see.
+		File created = this.createFile("FGB4", 40, 4000000L);
+		this.index.add(created);
+		FileUtils.writeByteArrayToFile(changed, new byte[300]);
+		this.index.update(changed);
+		assertTrue(deleted.delete());
+		this.index.remove(deleted);
+		// Evicted, but not deleted yet.
+		assertEquals("FGB1", this.index.pollVictim().getFile().getName());
+		assertEquals(340, this.index.getTotalSize());
+
+		assertEquals(0, this.index.finishScan(scanned, since));
+		assertEquals(340, this.index.getTotalSize());
+		assertEquals(2, this.index.getFileCount());
+		// Writing FGB2 made it the newest file.
+		assertEquals("FGB4", this.index.pollVictim().getFile().getName());
+		assertEquals("FGB2", this.index.pollVictim().getFile().getName());
+		assertNull(this.index.pollVictim());
+
+		// Once the walk is over, changes are no longer remembered, and the next walk sees the disk as it is.
+		this.index.load();
+		assertEquals(440, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testEvictionPolicy() throws IOException {
+		this.createFile("FGB1", 10, 1000000L);
+		this.createFile("FGB2", 30, 2000000L);
+		this.createFile("FGB3", 20, 3000000L);
+		this.index.load();
+		this.index.setEvictionPolicy(new LargestFirstEvictionPolicy());
+
+		assertEquals("FGB2", this.index.pollVictim().getFile().getName());
+		assertEquals("FGB3", this.index.pollVictim().getFile().getName());
+		assertEquals("FGB1", this.index.pollVictim().getFile().getName());
+	}
+
+	@Test
+	public void testPollExpired() throws IOException {
+		long now = System.currentTimeMillis();
+		this.createFile("FGB1", 10, now - 60000L);
+		this.createFile("FGB2", 10, now);
+		this.createFile("other", 10, now - 60000L);
+		this.index.setEvictionPolicy(new TimeToLiveEvictionPolicy(30000L));
+		this.index.load();
+
+		List<CacheEntry> expired = this.index.pollExpired(now);
+		assertEquals(1, expired.size());
+		assertEquals("FGB1", expired.get(0).getFile().getName());
+		assertEquals(20, this.index.getTotalSize());
+	}
+
+	@Test
+	public void testPollExpiredInExpiryOrder() throws IOException {
+		long now = System.currentTimeMillis();
+		File file1 = this.createFile("FGB1", 10, now - 90000L);
+		this.createFile("FGB2", 10, now - 50000L);
+		this.createFile("FGB3", 10, now - 70000L);
+		this.index.setEvictionPolicy(new TimeToLiveEvictionPolicy(30000L, new LargestFirstEvictionPolicy()));
+		this.index.load();
+
+		// Nothing has expired 30 seconds ago.
+		assertTrue(this.index.pollExpired(now - 60000L).isEmpty());
+		// Rewriting a file gives it a new expiry time.
+		assertTrue(file1.setLastModified(now - 10000L));
+		this.index.update(file1);
+
+		List<CacheEntry> expired = this.index.pollExpired(now);
+		assertEquals(2, expired.size());
+		assertEquals("FGB3", expired.get(0).getFile().getName());
+		assertEquals("FGB2", expired.get(1).getFile().getName());
+		assertEquals(1, this.index.getFileCount());
+		// The expired files are out of the eviction order too.
+		assertEquals("FGB1", this.index.pollVictim().getFile().getName());
+		assertNull(this.index.pollVictim());
+		assertTrue(this.index.pollExpired(now + 60000L).isEmpty());
+	}
+
+	@Test
+	public void testPollExpiredWithoutExpiry() throws IOException {
+		this.createFile("FGB1", 10, 1000000L);
+		this.index.load();
+		assertFalse(this.index.getEvictionPolicy().expires());
+		assertTrue(this.index.pollExpired(Long.MAX_VALUE).isEmpty());
+		assertEquals(1, this.index.getFileCount());
+	}
+
+	@Test
+	public void testDirectoryRollups() throws IOException {
+		File root = this.folder.getRoot();
+		File week1 = new File(root, "2026/10/1");
+		File week2 = new File(root, "2026/10/2");
+		this.createFile("2026/10/1/FGB1", 100, 1000000L);
+		this.createFile("2026/10/2/FGB2", 200, 2000000L);
+		this.createFile("2026/10/1/FGB3", 300, 3000000L);
+		this.index.load();
+		assertEquals(600, this.index.getDirectorySize(new File(root, "2026")));
+		assertEquals(400, this.index.getDirectorySize(week1));
+		assertEquals(2, this.index.getDirectoryFileCount(week1));
+		assertEquals(600, this.index.getDirectorySize(root));
+
+		File file4 = this.createFile("2026/10/2/FGB4", 50, 4000000L);
+		this.index.add(file4);
+		assertEquals(250, this.index.getDirectorySize(week2));
+		assertEquals(650, this.index.getDirectorySize(new File(root, "2026/10")));
+
+		// The oldest file under week 2 goes first, although FGB1 is older.
+		List<CacheEntry> victims = this.index.pollVictims(week2, 1);
+		assertEquals(1, victims.size());
+		assertEquals("FGB2", victims.get(0).getFile().getName());
+		assertEquals(50, this.index.getDirectorySize(week2));
+		assertEquals(450, this.index.getTotalSize());
+
+		this.index.remove(file4);
+		assertEquals(0, this.index.getDirectorySize(week2));
+		assertEquals(0, this.index.getDirectoryFileCount(week2));
+		assertTrue(this.index.pollVictims(week2, 100).isEmpty());
+		assertEquals(400, this.index.getDirectorySize(new File(root, "2026")));
+	}
+}
@@ -0,0 +1,151 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CacheManifestTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CacheIndex index;
+
+	private CacheManifest manifest;
+
+	@Before
+	public void setUp() throws Exception {
+		this.index = new CacheIndex(this.folder.getRoot(), new FileFilter() {
+
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.getName().startsWith("FGB");
+			}
+		});
+		this.manifest = new CacheManifest(this.folder.getRoot());
+		this.index.setManifest(this.manifest);
+	}
+
+	private File createFile(final String name, final int size) throws IOException {
+		File file = new File(this.folder.getRoot(), name);
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		return file;
+	}
+
+	@Test
+	public void testNoManifest() throws IOException {
+		assertNull(this.manifest.load());
+	}
+
+	@Test
+	public void testCheckpointAndJournal() throws IOException {
+		this.createFile("FGB1", 100);
+		this.createFile("dir/FGB2", 200);
+		this.index.load();
+		this.manifest.open();
+		this.manifest.checkpoint(this.index);
+
+		File file3 = this.createFile("FGB3", 300);
+		this.index.add(file3);
+		this.index.remove(new File(this.folder.getRoot(), "FGB1"));
+		this.manifest.close();
+
+		Map<File, CacheEntry> entries = new CacheManifest(this.folder.getRoot()).load();
+		assertEquals(2, entries.size());
+		assertEquals(200, entries.get(new File(this.folder.getRoot(), "dir/FGB2")).getSize());
+		assertEquals(300, entries.get(file3).getSize());
+		assertEquals(file3.lastModified(), entries.get(file3).getLastModified());
+	}
+
+	@Test
+	public void testConcurrentCheckpoints() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			this.createFile("FGB" + i, 10 + i);
+		}
+		this.index.load();
+		this.manifest.open();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						for (int i = 0; i < 20; i++) {
+							CacheManifestTest.this.manifest.checkpoint(CacheManifestTest.this.index);
+						}
+						return null;
+					}
+				}));
+			}
+			// Change the index while the checkpoints run.
+			for (int i = 0; i < 50; i++) {
+				this.index.remove(new File(this.folder.getRoot(), "FGB" + i));
+				this.index.add(this.createFile("FGBnew" + i, 100 + i));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		this.manifest.close();
+
+		Map<File, CacheEntry> entries = new CacheManifest(this.folder.getRoot()).load();
+		assertEquals(this.index.getFileCount(), entries.size());
+		for (CacheEntry entry : this.index.getEntries()) {
+			assertEquals(entry.getSize(), entries.get(entry.getFile()).getSize());
+		}
+	}
+
+	@Test
+	public void testTruncatedJournal() throws IOException {
+		this.manifest.open();
+		this.index.add(this.createFile("FGB1", 100));
+		this.index.add(this.createFile("FGB2", 200));
+		this.manifest.close();
+		File journal = new File(this.folder.getRoot(), CacheManifest.JOURNAL_FILE_NAME);
+		try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+			file.setLength(file.length() - 3);
+		}
+
+		CacheManifest reopened = new CacheManifest(this.folder.getRoot());
+		Map<File, CacheEntry> entries = reopened.load();
+		assertEquals(1, entries.size());
+		assertTrue(entries.containsKey(new File(this.folder.getRoot(), "FGB1")));
+
+		// New records must not follow the broken one.
+		reopened.open();
+		reopened.journalRemove(new File(this.folder.getRoot(), "FGB1"));
+		reopened.close();
+		assertTrue(new CacheManifest(this.folder.getRoot()).load().isEmpty());
+	}
+
+	@Test
+	public void testInternalFilesAreNotIndexed() throws IOException {
+		this.createFile("FGB1", 100);
+		this.manifest.open();
+		this.manifest.checkpoint(this.index);
+		this.index.load();
+		assertEquals(1, this.index.getFileCount());
+		this.index.add(new File(this.folder.getRoot(), CacheManifest.SNAPSHOT_FILE_NAME));
+		assertEquals(100, this.index.getTotalSize());
+	}
+}
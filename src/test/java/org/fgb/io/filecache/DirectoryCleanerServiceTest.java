@@ -0,0 +1,223 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.monitor.FileAlterationListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryCleanerServiceTest {
+
+	/**
+	 * An event source that delivers the events the test tells it to.
+	 */
+	private static class ManualEventSource implements DirectoryEventSource {
+
+		private final Map<File, FileAlterationListener> listeners = new ConcurrentHashMap<File, FileAlterationListener>();
+
+		private int starts;
+
+		@Override
+		public void addDirectory(File directory, FileAlterationListener listener) {
+			this.listeners.put(directory, listener);
+		}
+
+		@Override
+		public void removeDirectory(File directory) {
+			this.listeners.remove(directory);
+		}
+
+		@Override
+		public void start() {
+			this.starts++;
+		}
+
+		@Override
+		public void stop() {
+		}
+
+		void fireCreate(File directory, File file) {
+			this.listeners.get(directory).onFileCreate(file);
+		}
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ManualEventSource eventSource;
+
+	private DirectoryCleanerService service;
+
+	@Before
+	public void setUp() throws Exception {
+		this.eventSource = new ManualEventSource();
+		this.service = new DirectoryCleanerService(this.eventSource, 2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.service.stop();
+	}
+
+	private File createFile(final File directory, final String name, final int size, final long lastModified) throws IOException {
+		File file = new File(directory, name);
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		file.setLastModified(lastModified);
+		return file;
+	}
+
+	private void waitForSize(final long size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (this.service.getTotalSize() > size && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Wait for evicted files to be deleted.  Waiting on the size is not enough: a directory gives up its victims in its
+	 * index before it deletes them, and the directories of a global eviction are evicted one after the other.
+	 */
+	private static void waitForDeletion(final File... files) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		for (File file : files) {
+			while (file.exists() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	@Test
+	public void testSharedEventSource() throws Exception {
+		this.service.addDirectory(this.folder.newFolder("a").getPath(), 1000, 500);
+		this.service.addDirectory(this.folder.newFolder("b").getPath(), 1000, 500);
+		this.service.start();
+		assertEquals(1, this.eventSource.starts);
+		assertEquals(2, this.eventSource.listeners.size());
+		try {
+			this.service.addDirectory(new File(this.folder.getRoot(), "a").getPath(), 1000, 500);
+			fail();
+		} catch (IllegalArgumentException ex) {
+			// Expected.
+		}
+		this.service.removeDirectory(new File(this.folder.getRoot(), "b").getPath());
+		assertEquals(1, this.eventSource.listeners.size());
+	}
+
+	@Test
+	public void testGlobalQuota() throws Exception {
+		File a = this.folder.newFolder("a");
+		File b = this.folder.newFolder("b");
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 6; i++) {
+			this.createFile(a, "FGB" + i, 100, now - (10 - i) * 1000);
+		}
+		for (int i = 0; i < 2; i++) {
+			this.createFile(b, "FGB" + i, 100, now - (10 - i) * 1000);
+		}
+		// The per directory quotas are never reached.
+		this.service.addDirectory(a.getPath(), 10000, 5000);
+		this.service.addDirectory(b.getPath(), 10000, 5000);
+		this.service.setGlobalQuota(900, 500);
+		this.service.start();
+		assertEquals(800, this.service.getTotalSize());
+
+		this.eventSource.fireCreate(a, this.createFile(a, "FGB6", 200, now));
+		// 500 bytes are freed; a holds 800 of the 1000 bytes, so it gives up 400, and b 100.
+		waitForDeletion(new File(a, "FGB0"), new File(a, "FGB1"), new File(a, "FGB2"), new File(a, "FGB3"), new File(b, "FGB0"));
+		assertEquals(500, this.service.getTotalSize());
+		for (int i = 0; i < 4; i++) {
+			assertFalse(new File(a, "FGB" + i).exists());
+		}
+		assertTrue(new File(a, "FGB4").exists());
+		assertFalse(new File(b, "FGB0").exists());
+		assertTrue(new File(b, "FGB1").exists());
+	}
+
+	@Test
+	public void testEvictionWhilePeriodicWorkIsBlocked() throws Exception {
+		File a = this.folder.newFolder("a");
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 8; i++) {
+			this.createFile(a, "FGB" + i, 100, now - (10 - i) * 1000);
+		}
+		this.service.stop();
+		this.service = new DirectoryCleanerService(this.eventSource, 1);
+		this.service.addDirectory(a.getPath(), 1000, 500);
+		this.service.start();
+		// Stand in for a long reconcile of another directory: the only thread of the periodic pool is busy.
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		this.service.getScheduledExecutor().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			assertTrue(blocked.await(10, TimeUnit.SECONDS));
+			// a goes over its quota; its eviction pass does not wait for the periodic pool.
+			this.eventSource.fireCreate(a, this.createFile(a, "FGB8", 300, now));
+			this.waitForSize(500);
+			assertEquals(500, this.service.getTotalSize());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		File a = this.folder.newFolder("a");
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 8; i++) {
+			this.createFile(a, "FGB" + i, 100, now - (10 - i) * 1000);
+		}
+		DirectoryCleaner cleaner = this.service.addDirectory(a.getPath(), 1000, 500);
+		this.service.start();
+		CleanerMetrics metrics = cleaner.getMetrics();
+		assertEquals(1, metrics.getScanCount());
+		assertEquals(8, metrics.getFileCount());
+		assertFalse(metrics.isAboveHighWaterMark());
+
+		this.eventSource.fireCreate(a, this.createFile(a, "FGB8", 300, now));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (metrics.getEvictionPassCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, metrics.getEvictionPassCount());
+		assertEquals(1, metrics.getEventCount());
+		assertEquals(6, metrics.getFilesEvicted());
+		assertEquals(600, metrics.getBytesFreed());
+		assertEquals(500, metrics.getSize());
+		long lagCount = 0;
+		for (long count : metrics.getEvictionLagHistogram()) {
+			lagCount += count;
+		}
+		assertEquals(1, lagCount);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("org.fgb.io.filecache:type=DirectoryCleaner,directory=" + ObjectName.quote(a.getAbsolutePath()));
+		assertEquals(600L, server.getAttribute(name, "BytesFreed"));
+		this.service.removeDirectory(a.getPath());
+		assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,89 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EvictionWorkerTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	private void waitForIdle(final EvictionWorker worker) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (worker.isBusy() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertFalse(worker.isBusy());
+	}
+
+	@Test
+	public void testSignalsDuringAPassAreCoalesced() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		EvictionWorker worker = new EvictionWorker(this.executor, new Runnable() {
+
+			@Override
+			public void run() {
+				if (running.incrementAndGet() > 1) {
+					overlaps.incrementAndGet();
+				}
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+			}
+		});
+		worker.signal();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 100; i++) {
+			worker.signal();
+		}
+		release.countDown();
+		this.waitForIdle(worker);
+		assertEquals(2, worker.getPassCount());
+		assertEquals(0, overlaps.get());
+
+		worker.signal();
+		this.waitForIdle(worker);
+		assertEquals(3, worker.getPassCount());
+	}
+
+	@Test
+	public void testFailedPass() throws InterruptedException {
+		EvictionWorker worker = new EvictionWorker(this.executor, new Runnable() {
+
+			@Override
+			public void run() {
+				throw new IllegalStateException("Expected");
+			}
+		});
+		worker.signal();
+		this.waitForIdle(worker);
+		worker.signal();
+		this.waitForIdle(worker);
+		assertEquals(2, worker.getPassCount());
+	}
+}
@@ -0,0 +1,81 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CacheIndex index;
+
+	private FileCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		this.index = new CacheIndex(this.folder.getRoot(), new FileFilter() {
+
+			@Override
+			public boolean accept(File pathname) {
+				return true;
+			}
+		});
+		this.cache = new FileCache(this.folder.getRoot(), new AccessTracker());
+	}
+
+	@Test
+	public void testHitsReachTheIndex() throws IOException {
+		File file = new File(this.folder.getRoot(), "dir/FGB1");
+		FileUtils.writeByteArrayToFile(file, new byte[100]);
+		this.index.load();
+
+		try (InputStream in = this.cache.open("dir/FGB1")) {
+			assertEquals(100, in.skip(1000));
+		}
+		try (FileChannel channel = this.cache.openChannel("dir/../dir/FGB1")) {
+			assertEquals(100, channel.size());
+		}
+		assertEquals(2, this.cache.getAccessTracker().getHitCount());
+		assertEquals(1, this.cache.getAccessTracker().drainTo(this.index));
+		assertEquals(2, this.index.getEntries().get(0).getAccessCount());
+
+		// Nothing new to drain.
+		assertEquals(0, this.cache.getAccessTracker().drainTo(this.index));
+		assertEquals(2, this.index.getEntries().get(0).getAccessCount());
+	}
+
+	@Test
+	public void testMiss() throws IOException {
+		try {
+			this.cache.open("FGB2").close();
+			fail();
+		} catch (NoSuchFileException ex) {
+			// Expected.
+		}
+		assertEquals(0, this.cache.getAccessTracker().getHitCount());
+		assertEquals(1, this.cache.getAccessTracker().getMissCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testKeyOutsideTheCache() throws IOException {
+		this.cache.resolve("../FGB1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInternalFile() throws IOException {
+		this.cache.resolve(CacheManifest.JOURNAL_FILE_NAME);
+	}
+}
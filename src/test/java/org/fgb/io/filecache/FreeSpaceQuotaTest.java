@@ -0,0 +1,119 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FreeSpaceQuotaTest {
+
+	/**
+	 * A volume whose space the test sets.
+	 */
+	private static class FakeFileStore extends FileStore {
+
+		private long totalSpace = 1000;
+
+		private long usableSpace = 1000;
+
+		private int samples;
+
+		@Override
+		public String name() {
+			return "fake";
+		}
+
+		@Override
+		public String type() {
+			return "fake";
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return false;
+		}
+
+		@Override
+		public long getTotalSpace() {
+			return this.totalSpace;
+		}
+
+		@Override
+		public long getUsableSpace() {
+			this.samples++;
+			return this.usableSpace;
+		}
+
+		@Override
+		public long getUnallocatedSpace() {
+			return this.usableSpace;
+		}
+
+		@Override
+		public boolean supportsFileAttributeView(Class<? extends FileAttributeView> type) {
+			return false;
+		}
+
+		@Override
+		public boolean supportsFileAttributeView(String name) {
+			return false;
+		}
+
+		@Override
+		public <V extends FileStoreAttributeView> V getFileStoreAttributeView(Class<V> type) {
+			return null;
+		}
+
+		@Override
+		public Object getAttribute(String attribute) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private FakeFileStore fileStore;
+
+	private FreeSpaceQuota quota;
+
+	@Before
+	public void setUp() {
+		this.fileStore = new FakeFileStore();
+		this.quota = new FreeSpaceQuota(this.fileStore, 10, 20);
+		this.quota.setSampleInterval(Long.MAX_VALUE / 1000000L);
+	}
+
+	@Test
+	public void testEstimateBetweenSamples() {
+		assertEquals(0, this.quota.getBytesToFree(0));
+		assertEquals(1, this.fileStore.samples);
+
+		// The cache grew by 850 bytes since the sample; the estimate sees it without sampling.
+		this.fileStore.usableSpace = 150;
+		assertEquals(0, this.quota.getBytesToFree(850));
+		assertEquals(150, this.quota.getUsableSpace(850));
+		assertEquals(1, this.fileStore.samples);
+
+		// Past the minimum; the volume is sampled before evicting.
+		this.fileStore.usableSpace = 50;
+		assertEquals(150, this.quota.getBytesToFree(950));
+		assertEquals(2, this.fileStore.samples);
+	}
+
+	@Test
+	public void testSpaceFreedElsewhere() {
+		assertEquals(0, this.quota.getBytesToFree(0));
+		// The estimate is short of space, but another process freed some.
+		this.fileStore.usableSpace = 500;
+		assertEquals(0, this.quota.getBytesToFree(950));
+		assertEquals(2, this.fileStore.samples);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTargetBelowMinimum() {
+		new FreeSpaceQuota(this.fileStore, 20, 10);
+	}
+}
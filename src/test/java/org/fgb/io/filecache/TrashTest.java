@@ -0,0 +1,114 @@
+package org.fgb.io.filecache;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrashTest {
+
+	/**
+	 * Runs the reaper only when the test says so.
+	 */
+	private static class ManualExecutor implements Executor {
+
+		private Runnable task;
+
+		@Override
+		public void execute(Runnable command) {
+			this.task = command;
+		}
+
+		void runPending() {
+			Runnable pending = this.task;
+			this.task = null;
+			pending.run();
+		}
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createFile(final String name, final int size) throws IOException {
+		File file = new File(this.folder.getRoot(), name);
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		return file;
+	}
+
+	@Test
+	public void testMoveAndReap() throws IOException {
+		CacheIndex index = new CacheIndex(this.folder.getRoot(), new FileFilter() {
+
+			@Override
+			public boolean accept(File pathname) {
+				return true;
+			}
+		});
+		this.createFile("FGB1", 100);
+		this.createFile("dir/FGB2", 200);
+		index.load();
+		ManualExecutor executor = new ManualExecutor();
+		Trash trash = new Trash(this.folder.getRoot(), executor);
+		trash.open();
+
+		DeleteResult result = trash.moveToTrash(index.pollVictims(300));
+		assertEquals(2, result.getFilesDeleted());
+		assertEquals(300, result.getBytesFreed());
+		assertEquals(300, trash.getPendingBytes());
+		assertFalse(new File(this.folder.getRoot(), "FGB1").exists());
+		assertEquals(2, trash.getTrashDirectory().list().length);
+
+		// The trash is not part of the cache.
+		assertEquals(0, index.reconcile());
+		index.add(trash.getTrashDirectory().listFiles()[0]);
+		assertEquals(0, index.getFileCount());
+
+		executor.runPending();
+		assertEquals(0, trash.getPendingBytes());
+		assertEquals(2, trash.getReapedFileCount());
+		assertEquals(0, trash.getTrashDirectory().list().length);
+	}
+
+	@Test
+	public void testLeftOversAreReaped() throws IOException {
+		this.createFile(Trash.TRASH_DIRECTORY_NAME + "/1-FGB1", 100);
+		ManualExecutor executor = new ManualExecutor();
+		Trash trash = new Trash(this.folder.getRoot(), executor);
+		trash.open();
+		assertEquals(100, trash.getPendingBytes());
+		executor.runPending();
+		assertEquals(0, trash.getPendingBytes());
+	}
+
+	@Test
+	public void testStaleSize() throws IOException {
+		File file = this.createFile("FGB1", 100);
+		ManualExecutor executor = new ManualExecutor();
+		Trash trash = new Trash(this.folder.getRoot(), executor);
+		trash.open();
+		// The index still has the size the file had before it grew.
+		trash.moveToTrash(Arrays.asList(new CacheEntry(file, 60, 0)));
+		assertEquals(60, trash.getPendingBytes());
+		executor.runPending();
+		assertEquals(1, trash.getReapedFileCount());
+		assertEquals(0, trash.getPendingBytes());
+	}
+
+	@Test
+	public void testMissingFile() throws IOException {
+		Trash trash = new Trash(this.folder.getRoot(), new ManualExecutor());
+		trash.open();
+		DeleteResult result = trash.moveToTrash(Arrays.asList(new CacheEntry(new File(this.folder.getRoot(), "FGB1"), 10, 0)));
+		assertEquals(0, result.getFilesDeleted());
+		assertEquals(1, result.getFilesMissing());
+		assertEquals(0, trash.getPendingBytes());
+	}
+}
@@ -0,0 +1,78 @@
+package org.fgb.io.filecache.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.fgb.io.filecache.util.FileSize;
+
+public class CacheBuilderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CacheBuilder cacheBuilder;
+
+	@Before
+	public void setUp() {
+		this.cacheBuilder = new CacheBuilder(3);
+	}
+
+	@After
+	public void tearDown() {
+		this.cacheBuilder.shutdown();
+	}
+
+	private static long totalLength(final File[] files) {
+		long length = 0;
+		for (File file : files) {
+			length += file.length();
+		}
+		return length;
+	}
+
+	@Test
+	public void testNumberOfFiles() {
+		File directory = new File(this.folder.getRoot(), "count");
+		CacheBuildReport report = this.cacheBuilder.populateCache(directory.getPath(), new FileSize("4K"), false, 25, 0);
+		File[] files = directory.listFiles();
+		assertEquals(25, files.length);
+		assertEquals(25, report.getNumberOfFiles());
+		assertEquals(0, report.getNumberOfFailures());
+		assertEquals(totalLength(files), report.getNumberOfBytes());
+		for (File file : files) {
+			// A file stops at the end of the line that reaches the size.
+			assertTrue(file.length() >= 4096 && file.length() < 4096 + 1024);
+		}
+	}
+
+	@Test
+	public void testTotalSize() {
+		File directory = new File(this.folder.getRoot(), "budget");
+		CacheBuildReport report = this.cacheBuilder.populateCache(directory.getPath(), new FileSize("4K"), true, 0, 100 * 1024);
+		File[] files = directory.listFiles();
+		assertEquals(files.length, report.getNumberOfFiles());
+		assertEquals(totalLength(files), report.getNumberOfBytes());
+		assertTrue(report.getNumberOfBytes() >= 100 * 1024);
+		assertTrue(report.getNumberOfBytes() < 100 * 1024 + files.length * 1024);
+	}
+
+	@Test
+	public void testNumberOfLines() {
+		File directory = new File(this.folder.getRoot(), "lines");
+		CacheBuildReport report = this.cacheBuilder.populateCache(directory.getPath(), 10, false, 12);
+		assertEquals(12, directory.listFiles().length);
+		assertEquals(12, report.getNumberOfFiles());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyFileSize() {
+		this.cacheBuilder.populateCache(this.folder.getRoot().getPath(), new FileSize("0K"), false, 0, 10 * 1024 * 1024);
+	}
+}
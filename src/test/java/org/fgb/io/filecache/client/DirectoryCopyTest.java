@@ -0,0 +1,91 @@
+package org.fgb.io.filecache.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.fgb.io.filecache.util.SyncMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryCopyTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static File write(final File directory, final String name, final int size) throws IOException {
+		directory.mkdirs();
+		File file = new File(directory, name);
+		Files.write(file.toPath(), new byte[size]);
+		file.setLastModified(1000000000000L + size * 1000L);
+		return file;
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		File source = this.folder.newFolder("source");
+		File target = new File(this.folder.getRoot(), "target");
+		write(source, "a", 10);
+		write(new File(source, "one"), "b", 2000);
+
+		new DirectoryCopy().copy(source, target);
+
+		// The contents of the read directory are copied into the write directory, not the other way round.
+		assertEquals(10, new File(target, "a").length());
+		assertEquals(2000, new File(target, "one/b").length());
+		assertEquals(new File(source, "one/b").lastModified(), new File(target, "one/b").lastModified());
+		assertEquals(2, source.list().length);
+	}
+
+	@Test
+	public void testSync() throws IOException {
+		File source = this.folder.newFolder("source");
+		File target = this.folder.newFolder("target");
+		File unchanged = write(source, "unchanged", 10);
+		File changed = write(new File(source, "one"), "changed", 20);
+		DirectoryCopy directoryCopy = new DirectoryCopy();
+		directoryCopy.setSyncMode(SyncMode.SIZE_AND_MTIME);
+		directoryCopy.copy(source, target);
+		assertEquals(10, new File(target, "unchanged").length());
+		assertEquals(20, new File(target, "one/changed").length());
+
+		// Mark the copy of the unchanged file, keeping its size and time, then change the other source file.
+		File unchangedCopy = new File(target, "unchanged");
+		Files.write(unchangedCopy.toPath(), new byte[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 });
+		unchangedCopy.setLastModified(unchanged.lastModified());
+		Files.write(changed.toPath(), new byte[21]);
+		directoryCopy.copy(source, target);
+
+		// The unchanged file was skipped, so the mark survives.
+		assertEquals(1, Files.readAllBytes(unchangedCopy.toPath())[0]);
+		assertEquals(21, new File(target, "one/changed").length());
+
+		directoryCopy.setSyncMode(SyncMode.CHECKSUM);
+		directoryCopy.copy(source, target);
+		assertEquals(0, Files.readAllBytes(unchangedCopy.toPath())[0]);
+	}
+
+	@Test
+	public void testChecksumAlignsTime() throws IOException {
+		File source = this.folder.newFolder("source");
+		File target = this.folder.newFolder("target");
+		File file = write(source, "same", 10);
+		File copy = write(target, "same", 10);
+		copy.setLastModified(file.lastModified() - 60000);
+
+		DirectoryCopy directoryCopy = new DirectoryCopy();
+		directoryCopy.setSyncMode(SyncMode.CHECKSUM);
+		directoryCopy.copy(source, target);
+		assertEquals(file.lastModified(), copy.lastModified());
+
+		// With the times aligned, a size and time sync skips the file.
+		Files.write(copy.toPath(), new byte[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 });
+		copy.setLastModified(file.lastModified());
+		directoryCopy.setSyncMode(SyncMode.SIZE_AND_MTIME);
+		directoryCopy.copy(source, target);
+		assertEquals(1, Files.readAllBytes(copy.toPath())[0]);
+	}
+}
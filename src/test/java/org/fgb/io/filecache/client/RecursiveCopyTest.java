@@ -0,0 +1,74 @@
+package org.fgb.io.filecache.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.fgb.io.filecache.util.SyncMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecursiveCopyTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static File write(final File directory, final String name, final int size) throws IOException {
+		directory.mkdirs();
+		File file = new File(directory, name);
+		Files.write(file.toPath(), new byte[size]);
+		file.setLastModified(1000000000000L + size * 1000L);
+		return file;
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		File source = this.folder.newFolder("source");
+		File target = this.folder.newFolder("target");
+		write(source, "a", 10);
+		write(new File(source, "one"), "b", 2000);
+		write(new File(source, "one/two"), "c", 0);
+		write(new File(source, "one/two"), ".d", 30);
+		write(new File(source, ".hidden"), "e", 40);
+		new File(source, "empty").mkdirs();
+
+		new RecursiveCopy(3).copy(source, target);
+
+		File copy = new File(target, "source");
+		assertEquals(10, new File(copy, "a").length());
+		assertEquals(2000, new File(copy, "one/b").length());
+		assertEquals(new File(source, "one/b").lastModified(), new File(copy, "one/b").lastModified());
+		assertTrue(new File(copy, "one/two/c").isFile());
+		assertTrue(new File(copy, "one/two/.d").isFile());
+		assertTrue(new File(copy, "empty").isDirectory());
+		assertFalse(new File(copy, ".hidden").exists());
+	}
+
+	@Test
+	public void testSync() throws IOException {
+		File source = this.folder.newFolder("source");
+		File target = this.folder.newFolder("target");
+		File unchanged = write(source, "unchanged", 10);
+		File changed = write(source, "changed", 20);
+		RecursiveCopy recursiveCopy = new RecursiveCopy(2);
+		recursiveCopy.setSyncMode(SyncMode.SIZE_AND_MTIME);
+		recursiveCopy.copy(source, target);
+
+		// Mark the copies, then change one source file.
+		File copy = new File(target, "source");
+		Files.write(new File(copy, "unchanged").toPath(), new byte[] { 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 });
+		new File(copy, "unchanged").setLastModified(unchanged.lastModified());
+		Files.write(changed.toPath(), new byte[21]);
+		recursiveCopy.copy(source, target);
+
+		assertEquals(1, Files.readAllBytes(new File(copy, "unchanged").toPath())[0]);
+		assertEquals(21, new File(copy, "changed").length());
+
+		recursiveCopy.setSyncMode(SyncMode.CHECKSUM);
+		recursiveCopy.copy(source, target);
+		assertEquals(0, Files.readAllBytes(new File(copy, "unchanged").toPath())[0]);
+	}
+}
@@ -0,0 +1,142 @@
+package org.fgb.io.filecache.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.fgb.io.filecache.FileGenerator;
+import org.fgb.io.filecache.util.RandomLineHelper;
+
+public class CompressedFileGeneratorTest {
+
+	private static final short FIELDS_PER_LINE = 24;
+
+	private static final int MAXIMUM_LINE_LENGTH = new RandomLineHelper(FIELDS_PER_LINE).getMaximumLineLength();
+
+	/**
+	 * Enough lines that a parallel gzip stream writes several members.
+	 */
+	private static final int NUMBER_OF_LINES = 20000;
+
+	private static final long FILE_SIZE = 2 * 1024 * 1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Enable one kind of compression.
+	 */
+	private static void compress(final FileGenerator generator, final boolean zip, final int compressionThreads) {
+		generator.enableZipCompression(zip);
+		generator.enableGZipCompression(!zip);
+		generator.setCompressionThreads(compressionThreads);
+	}
+
+	/**
+	 * Read back a compressed file.
+	 */
+	private static byte[] read(final File file, final boolean zip) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (InputStream fileInputStream = new FileInputStream(file)) {
+			InputStream inputStream;
+			if (zip) {
+				ZipInputStream zipInputStream = new ZipInputStream(fileInputStream);
+				ZipEntry entry = zipInputStream.getNextEntry();
+				assertNotNull(entry);
+				assertEquals("FGB", entry.getName());
+				inputStream = zipInputStream;
+			} else {
+				inputStream = new GZIPInputStream(fileInputStream);
+			}
+			byte[] buffer = new byte[64 * 1024];
+			int length;
+			while ((length = inputStream.read(buffer)) > 0) {
+				bytes.write(buffer, 0, length);
+			}
+			if (zip) {
+				assertNull(((ZipInputStream) inputStream).getNextEntry());
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Count the lines of text, checking that the text ends with a whole line.
+	 */
+	private static int countLines(final byte[] bytes) {
+		assertTrue(bytes.length > 0);
+		assertEquals('\n', bytes[bytes.length - 1]);
+		int lines = 0;
+		for (byte b : bytes) {
+			if (b == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	private void checkLineCount(final String directory, final boolean zip, final int compressionThreads) throws IOException {
+		File file = new File(this.folder.newFolder(directory), "FGB");
+		LineCountFileGenerator generator = new LineCountFileGenerator(file.getPath(), NUMBER_OF_LINES, FIELDS_PER_LINE);
+		compress(generator, zip, compressionThreads);
+		generator.generateFile();
+		assertFalse(file.exists());
+		File compressed = new File(file.getPath() + (zip ? ".zip" : ".gz"));
+		assertEquals(NUMBER_OF_LINES, countLines(read(compressed, zip)));
+	}
+
+	private void checkFileSize(final String directory, final boolean zip, final int compressionThreads) throws IOException {
+		File file = new File(this.folder.newFolder(directory), "FGB");
+		FileSizeFileGenerator generator = new FileSizeFileGenerator(file.getPath(), FILE_SIZE, FIELDS_PER_LINE);
+		compress(generator, zip, compressionThreads);
+		generator.generateFile();
+		assertFalse(file.exists());
+		File compressed = new File(file.getPath() + (zip ? ".zip" : ".gz"));
+		byte[] bytes = read(compressed, zip);
+		// The size is that of the uncompressed text.
+		assertTrue(bytes.length >= FILE_SIZE);
+		assertTrue(bytes.length < FILE_SIZE + MAXIMUM_LINE_LENGTH);
+		countLines(bytes);
+	}
+
+	@Test
+	public void testLineCountZip() throws IOException {
+		this.checkLineCount("zip", true, 1);
+	}
+
+	@Test
+	public void testLineCountGZip() throws IOException {
+		this.checkLineCount("gzip", false, 1);
+	}
+
+	@Test
+	public void testLineCountParallelGZip() throws IOException {
+		this.checkLineCount("pgzip", false, 4);
+	}
+
+	@Test
+	public void testFileSizeZip() throws IOException {
+		this.checkFileSize("zip", true, 1);
+	}
+
+	@Test
+	public void testFileSizeGZip() throws IOException {
+		this.checkFileSize("gzip", false, 1);
+	}
+
+	@Test
+	public void testFileSizeParallelGZip() throws IOException {
+		this.checkFileSize("pgzip", false, 4);
+	}
+}
@@ -0,0 +1,46 @@
+package org.fgb.io.filecache.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.fgb.io.filecache.CacheEntry;
+import org.fgb.io.filecache.EvictionPolicy;
+
+public class EvictionPoliciesTest {
+
+	@Test
+	public void testForName() {
+		assertTrue(EvictionPolicies.forName("mtime") instanceof ModifiedTimeEvictionPolicy);
+		assertTrue(EvictionPolicies.forName("LRU") instanceof LeastRecentlyUsedEvictionPolicy);
+		assertTrue(EvictionPolicies.forName("LFU") instanceof LeastFrequentlyUsedEvictionPolicy);
+		assertTrue(EvictionPolicies.forName("Largest") instanceof LargestFirstEvictionPolicy);
+		assertTrue(EvictionPolicies.forName("GDS") instanceof GreedyDualSizeEvictionPolicy);
+		assertTrue(EvictionPolicies.forName("TTL") instanceof TimeToLiveEvictionPolicy);
+	}
+
+	@Test
+	public void testTimeToLive() {
+		CacheEntry entry = new CacheEntry(new File("FGB0"), 10, 1000);
+		EvictionPolicy policy = EvictionPolicies.forName("ttl");
+		assertTrue(policy.expires());
+		assertEquals(1000 + TimeUnit.SECONDS.toMillis(EvictionPolicies.DEFAULT_TIME_TO_LIVE), policy.getExpiryTime(entry));
+		policy = EvictionPolicies.forName("TTL: 60");
+		assertEquals(1000 + 60000, policy.getExpiryTime(entry));
+	}
+
+	@Test
+	public void testInvalidNames() {
+		for (String name : new String[] { "FIFO", "TTL:", "TTL:soon", "TTL:0", "TTL:-5" }) {
+			try {
+				EvictionPolicies.forName(name);
+				fail(name);
+			} catch (IllegalArgumentException ex) {
+				// Expected.
+			}
+		}
+	}
+}
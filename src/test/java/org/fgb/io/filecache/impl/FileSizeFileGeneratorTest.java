@@ -0,0 +1,74 @@
+package org.fgb.io.filecache.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.fgb.io.filecache.util.RandomLineHelper;
+
+public class FileSizeFileGeneratorTest {
+
+	private static final short FIELDS_PER_LINE = 24;
+
+	private static final int MAXIMUM_LINE_LENGTH = new RandomLineHelper(FIELDS_PER_LINE).getMaximumLineLength();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Generate a file, and check that it is whole lines of text that reach, and overshoot by less than a line, the size.
+	 */
+	private File generate(final String name, final long fileSize, final boolean reserveSpace) throws IOException {
+		File file = new File(this.folder.getRoot(), name);
+		FileSizeFileGenerator generator = new FileSizeFileGenerator(file.getPath(), fileSize, FIELDS_PER_LINE);
+		generator.setReserveSpace(reserveSpace);
+		// A small buffer, so that the file is written in many pieces.
+		generator.setBufferSize(4096);
+		generator.generateFile();
+		assertTrue(file.length() >= fileSize);
+		assertTrue(file.length() < fileSize + MAXIMUM_LINE_LENGTH);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		assertEquals('\n', bytes[bytes.length - 1]);
+		for (byte b : bytes) {
+			// Reserved space that was not written over would be zeros.
+			assertTrue(b != 0);
+		}
+		return file;
+	}
+
+	@Test
+	public void testSize() throws IOException {
+		this.generate("plain", 100000, false);
+		this.generate("tiny", 1, false);
+	}
+
+	@Test
+	public void testReserveSpace() throws IOException {
+		this.generate("reserved", 100000, true);
+		this.generate("tiny", 1, true);
+	}
+
+	@Test
+	public void testReserveSpaceTruncatesOvershoot() throws IOException {
+		// Sizes that fall within a line: the last line overshoots the reserved length, and the file keeps all of it.
+		for (long fileSize = 70000; fileSize < 70000 + MAXIMUM_LINE_LENGTH; fileSize += 37) {
+			this.generate("overshoot" + fileSize, fileSize, true);
+		}
+	}
+
+	@Test
+	public void testReserveSpaceOverLargerFile() throws IOException {
+		File file = this.generate("shrink", 200000, true);
+		// Generating the file again, smaller, leaves nothing of the larger file.
+		FileSizeFileGenerator generator = new FileSizeFileGenerator(file.getPath(), 50000, FIELDS_PER_LINE);
+		generator.setReserveSpace(true);
+		generator.generateFile();
+		assertTrue(file.length() >= 50000 && file.length() < 50000 + MAXIMUM_LINE_LENGTH);
+	}
+}
@@ -0,0 +1,149 @@
+package org.fgb.io.filecache.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WatchServiceDirectoryEventSourceTest {
+
+	/**
+	 * How long to wait for an event that should be delivered, in milliseconds.
+	 */
+	private static final long TIMEOUT = 10000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private WatchServiceDirectoryEventSource source;
+
+	private BlockingQueue<String> events;
+
+	/**
+	 * Records every event as <code>kind:path</code>, the path relative to the root.
+	 */
+	private class RecordingListener extends FileAlterationListenerAdaptor {
+
+		private void record(final String kind, final File file) {
+			String root = WatchServiceDirectoryEventSourceTest.this.folder.getRoot().getPath() + File.separator;
+			WatchServiceDirectoryEventSourceTest.this.events.add(kind + ":" + file.getPath().substring(root.length()));
+		}
+
+		@Override
+		public void onDirectoryCreate(File directory) {
+			this.record("directoryCreate", directory);
+		}
+
+		@Override
+		public void onDirectoryDelete(File directory) {
+			this.record("directoryDelete", directory);
+		}
+
+		@Override
+		public void onFileCreate(File file) {
+			this.record("fileCreate", file);
+		}
+
+		@Override
+		public void onFileChange(File file) {
+			this.record("fileChange", file);
+		}
+
+		@Override
+		public void onFileDelete(File file) {
+			this.record("fileDelete", file);
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.events = new LinkedBlockingQueue<String>();
+		this.source = new WatchServiceDirectoryEventSource();
+		this.source.addDirectory(this.folder.getRoot(), new RecordingListener());
+		this.source.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.source.stop();
+	}
+
+	/**
+	 * Wait for an event, skipping any other events delivered before it.
+	 */
+	private void await(final String event) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		String next;
+		do {
+			next = this.events.poll(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+			if (next == null) {
+				fail("No " + event + " within " + TIMEOUT + " milliseconds");
+			}
+		} while (!next.equals(event));
+	}
+
+	private File write(final File file, final int size) throws IOException {
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		return file;
+	}
+
+	@Test
+	public void testFileEvents() throws Exception {
+		File file = this.write(new File(this.folder.getRoot(), "FGB1"), 10);
+		this.await("fileCreate:FGB1");
+		FileUtils.writeByteArrayToFile(file, new byte[20], true);
+		this.await("fileChange:FGB1");
+		assertTrue(file.delete());
+		this.await("fileDelete:FGB1");
+		assertTrue(this.source.getEventCount() >= 3);
+	}
+
+	@Test
+	public void testNewSubdirectory() throws Exception {
+		assertEquals(1, this.source.getWatchedDirectoryCount());
+		File subdirectory = new File(this.folder.getRoot(), "one");
+		assertTrue(subdirectory.mkdir());
+		// Written at once, likely before the subdirectory is registered; the registration walk reports it.
+		this.write(new File(subdirectory, "FGB1"), 10);
+		this.await("directoryCreate:one");
+		this.await("fileCreate:one" + File.separator + "FGB1");
+		assertEquals(2, this.source.getWatchedDirectoryCount());
+
+		// The new subdirectory is watched.
+		this.write(new File(subdirectory, "FGB2"), 10);
+		this.await("fileCreate:one" + File.separator + "FGB2");
+
+		FileUtils.deleteDirectory(subdirectory);
+		this.await("directoryDelete:one");
+		assertEquals(1, this.source.getWatchedDirectoryCount());
+	}
+
+	@Test
+	public void testRemoveDirectory() throws Exception {
+		File subdirectory = new File(this.folder.getRoot(), "one");
+		assertTrue(subdirectory.mkdir());
+		this.await("directoryCreate:one");
+
+		this.source.removeDirectory(this.folder.getRoot());
+		// The subdirectory may still be being registered; its registration sees the removal and undoes itself.
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (this.source.getWatchedDirectoryCount() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, this.source.getWatchedDirectoryCount());
+		this.write(new File(this.folder.getRoot(), "FGB1"), 10);
+		this.write(new File(subdirectory, "FGB2"), 10);
+		assertNull(this.events.poll(1, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,84 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.fgb.io.filecache.FileGenerator;
+import org.fgb.io.filecache.impl.FileSizeFileGenerator;
+import org.fgb.io.filecache.impl.LineCountFileGenerator;
+
+public class ColumnarFloatFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private void checkColumns(final ColumnarFloatFile columnarFile) throws IOException {
+		for (int field = 0; field < columnarFile.getFieldCount(); field++) {
+			FloatBuffer column = columnarFile.getColumn(field);
+			assertEquals(columnarFile.getRowCount(), column.remaining());
+			while (column.hasRemaining()) {
+				float value = column.get();
+				assertTrue(value >= 0 && value < 345);
+			}
+		}
+	}
+
+	@Test
+	public void testLineCountFileGenerator() throws IOException {
+		File file = new File(this.folder.getRoot(), "FGBlines");
+		FileGenerator generator = new LineCountFileGenerator(file.getPath(), 1000, (short) 16);
+		generator.enableBinaryOutput(true);
+		generator.generateFile();
+		assertEquals(ColumnarFloatFile.HEADER_SIZE + 1000 * 16 * 4, file.length());
+		try (ColumnarFloatFile columnarFile = ColumnarFloatFile.open(file)) {
+			assertEquals(16, columnarFile.getFieldCount());
+			assertEquals(1000, columnarFile.getRowCount());
+			this.checkColumns(columnarFile);
+			// Every call gets its own position.
+			FloatBuffer column = columnarFile.getColumn(3);
+			column.get();
+			assertEquals(0, columnarFile.getColumn(3).position());
+			try {
+				columnarFile.getColumn(16);
+				fail();
+			} catch (IndexOutOfBoundsException ex) {
+				// Expected.
+			}
+		}
+	}
+
+	@Test
+	public void testFileSizeFileGenerator() throws IOException {
+		File file = new File(this.folder.getRoot(), "FGBsize");
+		FileSizeFileGenerator generator = new FileSizeFileGenerator(file.getPath(), 100000, (short) 24);
+		generator.enableBinaryOutput(true);
+		generator.setReserveSpace(true);
+		generator.generateFile();
+		try (ColumnarFloatFile columnarFile = ColumnarFloatFile.open(file)) {
+			assertEquals(24, columnarFile.getFieldCount());
+			// The smallest number of rows that reaches the size.
+			assertEquals(1042, columnarFile.getRowCount());
+			assertEquals(ColumnarFloatFile.HEADER_SIZE + 1042 * 24 * 4, file.length());
+			this.checkColumns(columnarFile);
+		}
+	}
+
+	@Test
+	public void testNotColumnar() throws IOException {
+		File file = new File(this.folder.getRoot(), "FGBtext");
+		new LineCountFileGenerator(file.getPath(), 10, (short) 16).generateFile();
+		try {
+			ColumnarFloatFile.open(file).close();
+			fail();
+		} catch (IOException ex) {
+			// Expected.
+		}
+	}
+}
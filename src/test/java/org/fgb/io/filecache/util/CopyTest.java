@@ -0,0 +1,58 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CopyTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createFile(final String name, final int size) throws IOException {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		File file = this.folder.newFile(name);
+		Files.write(file.toPath(), data);
+		return file;
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		Copy copy = new Copy();
+		File input = this.createFile("input", 3 * Copy.DIRECT_BUFFER_SIZE + 17);
+		File output = new File(this.folder.getRoot(), "output");
+		Files.write(output.toPath(), new byte[5 * Copy.DIRECT_BUFFER_SIZE]);
+
+		assertEquals(input.length(), copy.copy(input, output));
+		assertArrayEquals(Files.readAllBytes(input.toPath()), Files.readAllBytes(output.toPath()));
+	}
+
+	@Test
+	public void testCopyWithDirectBuffer() throws IOException {
+		Copy copy = new Copy();
+		File input = this.createFile("input", 2 * Copy.DIRECT_BUFFER_SIZE + 1);
+		File output = new File(this.folder.getRoot(), "output");
+
+		assertEquals(input.length(), copy.copyWithDirectBuffer(input, output));
+		assertArrayEquals(Files.readAllBytes(input.toPath()), Files.readAllBytes(output.toPath()));
+	}
+
+	@Test
+	public void testCopyEmptyFile() throws IOException {
+		Copy copy = new Copy();
+		File input = this.createFile("input", 0);
+		File output = new File(this.folder.getRoot(), "output");
+
+		assertEquals(0, copy.copy(input, output));
+		assertTrue(output.exists());
+		assertEquals(0, output.length());
+	}
+}
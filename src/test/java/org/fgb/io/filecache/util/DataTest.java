@@ -0,0 +1,28 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DataTest {
+
+	@Test
+	public void testSplitLikeStringSplit() {
+		String[] lines = { "", "a", "\t", "a\tb", "a\t\tb", "a\tb\t\t", "\ta" };
+		for (String line : lines) {
+			assertEquals(line, Arrays.asList(line.split("\t")), new Data(line).getData());
+		}
+	}
+
+	@Test
+	public void testImmutable() {
+		Data data = new Data("1.5\t2.5");
+		List<String> copy = data.getData();
+		copy.clear();
+		assertEquals(2, data.getFieldCount());
+		assertEquals("2.5", data.getField(1));
+	}
+}
@@ -0,0 +1,42 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(99));
+		histogram.record(0);
+		histogram.record(-5);
+		histogram.record(1);
+		histogram.record(3);
+		histogram.record(1000);
+		histogram.record(Long.MAX_VALUE);
+		long[] buckets = histogram.getBuckets();
+		assertEquals(2, buckets[0]);
+		assertEquals(1, buckets[1]);
+		assertEquals(1, buckets[2]);
+		assertEquals(1, buckets[10]);
+		assertEquals(1, buckets[LatencyHistogram.BUCKET_COUNT - 1]);
+		assertEquals(6, histogram.getCount());
+		assertEquals(Long.MAX_VALUE, histogram.getMax());
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.record(5);
+		}
+		histogram.record(700);
+		// 5 ms is in the bucket [4, 8); 700 ms in [512, 1024), capped at the maximum.
+		assertEquals(8, histogram.getPercentile(50));
+		assertEquals(8, histogram.getPercentile(99));
+		assertEquals(700, histogram.getPercentile(100));
+		assertEquals(11.95, histogram.getMean(), 0.001);
+	}
+}
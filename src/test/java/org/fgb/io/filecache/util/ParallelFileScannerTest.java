@@ -0,0 +1,122 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.fgb.io.filecache.impl.LineCountFileGenerator;
+
+public class ParallelFileScannerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Summarise a file one line at a time, as the scanner should.
+	 */
+	private ColumnStatistics scanSequentially(final File file) throws IOException {
+		ColumnStatistics statistics = new ColumnStatistics();
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				float[] values = new float[fields.length];
+				for (int i = 0; i < fields.length; i++) {
+					values[i] = Float.parseFloat(fields[i]);
+				}
+				statistics.add(values, values.length);
+			}
+		}
+		return statistics;
+	}
+
+	@Test
+	public void testScan() throws IOException {
+		File file = new File(this.folder.getRoot(), "FGBlines");
+		new LineCountFileGenerator(file.getPath(), 20000, (short) 16).generateFile();
+		ColumnStatistics expected = this.scanSequentially(file);
+		assertEquals(20000, expected.getLineCount());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ParallelFileScanner scanner = new ParallelFileScanner(file);
+			scanner.setForkJoinPool(pool);
+			// Many chunks, and several segments.
+			scanner.setChunkSize(10000);
+			scanner.setSegmentSize(300000);
+			ColumnStatistics actual = scanner.scan();
+			assertEquals(expected.getLineCount(), actual.getLineCount());
+			assertEquals(16, actual.getColumnCount());
+			for (int i = 0; i < 16; i++) {
+				assertEquals(20000, actual.getCount(i));
+				assertEquals(expected.getMinimum(i), actual.getMinimum(i), 0);
+				assertEquals(expected.getMaximum(i), actual.getMaximum(i), 0);
+				// The order of the additions differs.
+				assertEquals(expected.getSum(i), actual.getSum(i), 1e-6 * expected.getSum(i));
+				assertTrue(actual.getMinimum(i) >= 0 && actual.getMaximum(i) < 345);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testRaggedLines() throws IOException {
+		File file = this.folder.newFile("ragged");
+		Files.write(file.toPath(), "1\t2\t3\n-4\n5\t6\n".getBytes(StandardCharsets.US_ASCII));
+		ParallelFileScanner scanner = new ParallelFileScanner(file);
+		scanner.setChunkSize(1);
+		ColumnStatistics statistics = scanner.scan();
+		assertEquals(3, statistics.getLineCount());
+		assertEquals(3, statistics.getColumnCount());
+		assertEquals(3, statistics.getCount(0));
+		assertEquals(-4f, statistics.getMinimum(0), 0);
+		assertEquals(5f, statistics.getMaximum(0), 0);
+		assertEquals(2, statistics.getCount(1));
+		assertEquals(4.0, statistics.getMean(1), 0);
+		assertEquals(1, statistics.getCount(2));
+		assertEquals(3.0, statistics.getSum(2), 0);
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		ColumnStatistics statistics = new ParallelFileScanner(this.folder.newFile("empty")).scan();
+		assertEquals(0, statistics.getLineCount());
+		assertEquals(0, statistics.getColumnCount());
+	}
+
+	@Test
+	public void testNotNumbers() throws IOException {
+		File file = this.folder.newFile("text");
+		Files.write(file.toPath(), "1\t2\n3\tx\n".getBytes(StandardCharsets.US_ASCII));
+		try {
+			new ParallelFileScanner(file).scan();
+			fail();
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains(" at 4 "));
+		}
+	}
+
+	@Test
+	public void testLineLongerThanSegment() throws IOException {
+		File file = this.folder.newFile("long");
+		Files.write(file.toPath(), "1\t2\t3\t4\n5\n".getBytes(StandardCharsets.US_ASCII));
+		ParallelFileScanner scanner = new ParallelFileScanner(file);
+		scanner.setSegmentSize(4);
+		try {
+			scanner.scan();
+			fail();
+		} catch (IOException ex) {
+			// Expected.
+		}
+	}
+}
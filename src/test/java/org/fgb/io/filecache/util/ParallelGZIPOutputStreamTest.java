@@ -0,0 +1,53 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class ParallelGZIPOutputStreamTest {
+
+	private static byte[] gunzip(final byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			byte[] buffer = new byte[4096];
+			int count;
+			while ((count = in.read(buffer)) > 0) {
+				out.write(buffer, 0, count);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		RandomLineHelper helper = new RandomLineHelper((short) 8);
+		byte[] data = new byte[100000];
+		int position = 0;
+		while (position + helper.getMaximumLineLength() <= data.length) {
+			position += helper.getLine(data, position);
+		}
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, 3, 4096)) {
+			out.write(data, 0, 10);
+			out.write(data[10]);
+			out.write(data, 11, position - 11);
+		}
+		byte[] expected = new byte[position];
+		System.arraycopy(data, 0, expected, 0, position);
+		assertArrayEquals(expected, gunzip(compressed.toByteArray()));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		new ParallelGZIPOutputStream(compressed, 2).close();
+		assertEquals(0, gunzip(compressed.toByteArray()).length);
+	}
+}
@@ -0,0 +1,92 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RandomLineHelperTest {
+
+	private static String format(final float value) {
+		byte[] buffer = new byte[32];
+		int length = RandomLineHelper.formatFloat(value, buffer, 0);
+		return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void testFormatFloat() {
+		assertEquals("0.0", format(0.0f));
+		assertEquals("1.5", format(1.5f));
+		assertEquals("0.3187564", format(0.3187564f));
+		assertEquals("344.99997", format(344.99997f));
+		assertEquals("100.0", format(99.999999f));
+		assertEquals("-2.25", format(-2.25f));
+		assertEquals("300.20312", format(300.203125f));
+		assertEquals("0.000020563602", format(345f / (1 << 24)));
+	}
+
+	@Test
+	public void testFormatFloatReadsBack() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000000; i++) {
+			float value = random.nextFloat() * 345;
+			String field = format(value);
+			assertEquals(field, value, Float.parseFloat(field), 0);
+			if (value >= 1e-3f) {
+				assertEquals(Float.toString(value), field);
+			}
+		}
+	}
+
+	@Test
+	public void testGetLine() {
+		short numberOfFields = 24;
+		RandomLineHelper helper = new RandomLineHelper(numberOfFields);
+		byte[] buffer = new byte[helper.getMaximumLineLength() + 3];
+		int length = helper.getLine(buffer, 3);
+		assertTrue(length <= helper.getMaximumLineLength());
+
+		String line = new String(buffer, 3, length, StandardCharsets.US_ASCII);
+		assertTrue(line.endsWith("\n"));
+		String[] fields = line.trim().split("\t");
+		assertEquals(numberOfFields, fields.length);
+		for (String field : fields) {
+			float value = Float.parseFloat(field);
+			assertTrue(value >= 0.0f && value <= 345.0f);
+		}
+	}
+
+	@Test
+	public void testGetLineIntoByteBuffer() {
+		short numberOfFields = 4;
+		RandomLineHelper helper = new RandomLineHelper(numberOfFields);
+		ByteBuffer direct = ByteBuffer.allocateDirect(helper.getMaximumLineLength());
+		int length = helper.getLine(direct);
+		assertEquals(length, direct.position());
+		assertEquals('\n', direct.get(length - 1));
+
+		ByteBuffer heap = ByteBuffer.allocate(helper.getMaximumLineLength() * 2);
+		length = helper.getLine(heap);
+		length += helper.getLine(heap);
+		assertEquals(length, heap.position());
+	}
+
+	@Test
+	public void testGetLineString() {
+		short numberOfFields = 24;
+		RandomLineHelper helper = new RandomLineHelper(numberOfFields);
+		for (int i = 0; i < 1000; i++) {
+			String line = helper.getLine();
+			// Tab separated, no trailing tab, and each number as written by Float.toString.
+			assertTrue(line.endsWith("\n"));
+			String[] fields = line.substring(0, line.length() - 1).split("\t", -1);
+			assertEquals(numberOfFields, fields.length);
+			for (String field : fields) {
+				assertEquals(Float.toString(Float.parseFloat(field)), field);
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package org.fgb.io.filecache.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RecordParserTest {
+
+	@Test
+	public void testLines() {
+		ByteBuffer buffer = ByteBuffer.wrap("1.5\t2\r\n\n-3\t\tx\n4".getBytes(StandardCharsets.US_ASCII));
+		RecordParser parser = new RecordParser();
+		parser.reset(buffer);
+		assertEquals(0, parser.getFieldCount());
+
+		assertTrue(parser.next());
+		assertEquals(2, parser.getFieldCount());
+		assertEquals(1.5f, parser.getFloat(0), 0);
+		assertEquals(2f, parser.getFloat(1), 0);
+		assertEquals(1, parser.getFieldLength(1));
+		assertEquals(5, parser.getLineLength());
+
+		assertTrue(parser.next());
+		assertEquals(1, parser.getFieldCount());
+		assertEquals(0, parser.getFieldLength(0));
+
+		assertTrue(parser.next());
+		assertEquals(3, parser.getFieldCount());
+		assertEquals("", parser.getField(1));
+		assertEquals("x", parser.getField(2));
+		assertEquals(8, parser.getFieldOffset(0));
+		try {
+			parser.getFloat(2);
+			fail();
+		} catch (NumberFormatException ex) {
+			// Expected.
+		}
+		try {
+			parser.getFloat(3);
+			fail();
+		} catch (IndexOutOfBoundsException ex) {
+			// Expected.
+		}
+
+		assertTrue(parser.next());
+		assertEquals(4f, parser.getFloat(0), 0);
+		assertFalse(parser.next());
+		assertEquals(0, buffer.position());
+	}
+
+	@Test
+	public void testCharSequence() {
+		RecordParser parser = new RecordParser(',');
+		parser.reset(new StringBuilder("1e3,-0.0,.5,NaN,1.0f, 7\n"));
+		assertTrue(parser.next());
+		float[] values = new float[8];
+		assertEquals(6, parser.getFloats(values));
+		assertEquals(1000f, values[0], 0);
+		assertEquals(Float.floatToIntBits(-0.0f), Float.floatToIntBits(values[1]));
+		assertEquals(0.5f, values[2], 0);
+		assertTrue(Float.isNaN(values[3]));
+		assertEquals(1f, values[4], 0);
+		assertEquals(7f, values[5], 0);
+		assertFalse(parser.next());
+	}
+
+	@Test
+	public void testFloatsMatchParseFloat() {
+		Random random = new Random(42);
+		StringBuilder text = new StringBuilder();
+		String[] expected = new String[100000];
+		for (int i = 0; i < expected.length; i++) {
+			switch (i % 4) {
+			case 0:
+				byte[] buffer = new byte[32];
+				int length = RandomLineHelper.formatFloat(random.nextFloat() * 345, buffer, 0);
+				expected[i] = new String(buffer, 0, length, StandardCharsets.US_ASCII);
+				break;
+			case 1:
+				expected[i] = Float.toString(Float.intBitsToFloat(random.nextInt()));
+				break;
+			case 2:
+				expected[i] = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(60) - 30));
+				break;
+			default:
+				expected[i] = Long.toString(random.nextLong() % 100000000000L) + "." + random.nextInt(1000);
+			}
+			text.append(expected[i]).append(i % 10 == 9 ? '\n' : '\t');
+		}
+		RecordParser parser = new RecordParser();
+		parser.reset(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+		float[] values = new float[10];
+		int i = 0;
+		while (parser.next()) {
+			assertEquals(10, parser.getFloats(values));
+			for (float value : values) {
+				assertEquals(expected[i], Float.floatToIntBits(Float.parseFloat(expected[i])), Float.floatToIntBits(value));
+				i++;
+			}
+		}
+		assertEquals(expected.length, i);
+	}
+}